@@ -22,7 +22,8 @@ curl -X POST http://localhost:8087/connectors \
       "database.server.name": "dbserver1",
       "table.include.list": "public.inventory_outbox",
       "plugin.name": "pgoutput",
-      "publication.autocreate.mode": "filtered",
+      "publication.name": "dbz_publication",
+      "publication.autocreate.mode": "disabled",
       "slot.name": "debezium_inventory_outbox_slot",
       "key.converter": "org.apache.kafka.connect.json.JsonConverter",
       "value.converter": "org.apache.kafka.connect.json.JsonConverter",
@@ -0,0 +1,51 @@
+// Catalog load test for the BFF GraphQL endpoint.
+//
+// Holds 2000 concurrent clients against the product listing (search + batched
+// stockLevel) and reports sustained RPS and p99 latency. Run it against the same
+// stack before and after a change and compare the summaries:
+//
+//   k6 run -e BFF_URL=http://localhost:8080/graphql infra/k6/bff-catalog.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BFF_URL = __ENV.BFF_URL || 'http://localhost:8080/graphql';
+const VUS = parseInt(__ENV.VUS || '2000', 10);
+
+export const options = {
+  scenarios: {
+    catalog: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: VUS },
+        { duration: __ENV.DURATION || '3m', target: VUS },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+const QUERY = `
+  query Catalog($page: Int, $size: Int) {
+    products(page: $page, size: $size) {
+      products { id name price currency stockLevel }
+      totalCount
+    }
+  }`;
+
+export default function () {
+  const res = http.post(
+    BFF_URL,
+    JSON.stringify({ query: QUERY, variables: { page: Math.floor(Math.random() * 5), size: 20 } }),
+    { headers: { 'Content-Type': 'application/json' } },
+  );
+  check(res, {
+    'status is 200': (r) => r.status === 200,
+    'no graphql errors': (r) => !r.json('errors'),
+  });
+}
@@ -0,0 +1,33 @@
+#!/bin/bash
+#
+# Creates the dbz_publication of each outbox database on a Postgres volume that was
+# initialised before init.sql created them. The outbox connectors are registered with
+# publication.autocreate.mode=disabled and fail to start without it. Safe to run again:
+# an existing publication gets publish_via_partition_root and its outbox table added.
+
+POSTGRES_CONTAINER=${POSTGRES_CONTAINER:-serendib-postgres}
+POSTGRES_USER=${POSTGRES_USER:-postgres}
+
+for target in order_db:order_outbox inventory_db:inventory_outbox payment_db:payment_outbox; do
+  db=${target%%:*}
+  table=${target##*:}
+  echo "Creating dbz_publication for ${table} in ${db}..."
+  docker exec -i "$POSTGRES_CONTAINER" psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$db" <<SQL
+DO \$\$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'dbz_publication') THEN
+    CREATE PUBLICATION dbz_publication FOR TABLE ${table} WITH (publish_via_partition_root = true);
+  ELSE
+    ALTER PUBLICATION dbz_publication SET (publish_via_partition_root = true);
+    IF NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                   WHERE pubname = 'dbz_publication' AND tablename = '${table}') THEN
+      ALTER PUBLICATION dbz_publication ADD TABLE ${table};
+    END IF;
+  END IF;
+END
+\$\$;
+SQL
+done
+
+echo ""
+echo "Done. Restart the outbox connectors if they failed without the publication."
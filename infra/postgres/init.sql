@@ -14,15 +14,23 @@ CREATE TABLE IF NOT EXISTS orders (
     created_at TIMESTAMP
 );
 
--- Outbox table for transactional messaging (Debezium CDC)
+-- Outbox table for transactional messaging (Debezium CDC), partitioned by day.
+-- OutboxRetentionJob adds the coming days' partitions and drops old ones once the
+-- connector has read them; rows outside every partition go to the default one
 CREATE TABLE IF NOT EXISTS order_outbox (
-    id VARCHAR(255) PRIMARY KEY,
+    id VARCHAR(255) NOT NULL,
     aggregate_type VARCHAR(255) NOT NULL,
     aggregate_id VARCHAR(255) NOT NULL,
     event_type VARCHAR(255) NOT NULL,
     payload TEXT NOT NULL,
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
-);
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS order_outbox_default PARTITION OF order_outbox DEFAULT;
+
+-- Changes to the partitions are published as changes to order_outbox
+CREATE PUBLICATION dbz_publication FOR TABLE order_outbox WITH (publish_via_partition_root = true);
 
 -- Inventory database setup
 \c inventory_db;
@@ -30,18 +38,36 @@ CREATE TABLE IF NOT EXISTS order_outbox (
 CREATE TABLE IF NOT EXISTS inventory (
     id VARCHAR(255) PRIMARY KEY,
     product_id VARCHAR(255) UNIQUE NOT NULL,
-    quantity INT DEFAULT 0
+    quantity INT DEFAULT 0,
+    shard_count INT
 );
 
--- Outbox table for transactional messaging (Debezium CDC)
-CREATE TABLE IF NOT EXISTS inventory_outbox (
+-- Counter shards for hot products (inventory.shard_count > 1)
+CREATE TABLE IF NOT EXISTS inventory_shards (
     id VARCHAR(255) PRIMARY KEY,
+    product_id VARCHAR(255) NOT NULL,
+    shard_index INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    UNIQUE (product_id, shard_index)
+);
+
+-- Outbox table for transactional messaging (Debezium CDC), partitioned by day.
+-- OutboxRetentionJob adds the coming days' partitions and drops old ones once the
+-- connector has read them; rows outside every partition go to the default one
+CREATE TABLE IF NOT EXISTS inventory_outbox (
+    id VARCHAR(255) NOT NULL,
     aggregate_type VARCHAR(255) NOT NULL,
     aggregate_id VARCHAR(255) NOT NULL,
     event_type VARCHAR(255) NOT NULL,
     payload TEXT NOT NULL,
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
-);
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS inventory_outbox_default PARTITION OF inventory_outbox DEFAULT;
+
+-- Changes to the partitions are published as changes to inventory_outbox
+CREATE PUBLICATION dbz_publication FOR TABLE inventory_outbox WITH (publish_via_partition_root = true);
 
 
 -- Payment database setup
@@ -58,11 +84,20 @@ CREATE TABLE IF NOT EXISTS payments (
     created_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- Outbox table for transactional messaging (Debezium CDC), partitioned by day.
+-- OutboxRetentionJob adds the coming days' partitions and drops old ones once the
+-- connector has read them; rows outside every partition go to the default one
 CREATE TABLE IF NOT EXISTS payment_outbox (
-    id VARCHAR(255) PRIMARY KEY,
+    id VARCHAR(255) NOT NULL,
     aggregate_type VARCHAR(255) NOT NULL,
     aggregate_id VARCHAR(255) NOT NULL,
     event_type VARCHAR(255) NOT NULL,
     payload TEXT NOT NULL,
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
-);
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS payment_outbox_default PARTITION OF payment_outbox DEFAULT;
+
+-- Changes to the partitions are published as changes to payment_outbox
+CREATE PUBLICATION dbz_publication FOR TABLE payment_outbox WITH (publish_via_partition_root = true);
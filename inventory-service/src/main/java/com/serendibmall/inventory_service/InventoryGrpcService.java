@@ -3,6 +3,7 @@ package com.serendibmall.inventory_service;
 import com.serendibmall.inventory.v1.*;
 import com.serendibmall.inventory_service.entity.Inventory;
 import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.service.StockShardService;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,7 +25,11 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceImplBase {
 
+    // Keeps the IN list well below the Postgres bind parameter limit
+    private static final int BATCH_STOCK_CHUNK_SIZE = 500;
+
     private final InventoryRepository inventoryRepository;
+    private final StockShardService stockShardService;
 
     @Override
     public void getStock(GetStockRequest request, StreamObserver<StockResponse> responseObserver) {
@@ -36,10 +46,21 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
     public void getBatchStock(GetBatchStockRequest request, StreamObserver<BatchStockResponse> responseObserver) {
         log.info("Getting batch stock for {} products", request.getProductIdsCount());
 
+        // One IN query per chunk instead of one lookup per product id
+        List<String> productIds = new ArrayList<>(new LinkedHashSet<>(request.getProductIdsList()));
+        Map<String, Integer> quantities = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += BATCH_STOCK_CHUNK_SIZE) {
+            List<String> chunk = productIds.subList(from, Math.min(from + BATCH_STOCK_CHUNK_SIZE, productIds.size()));
+            quantities.putAll(stockShardService.availableQuantities(inventoryRepository.findByProductIdIn(chunk)));
+        }
+
         BatchStockResponse.Builder batchBuilder = BatchStockResponse.newBuilder();
 
         for (String productId : request.getProductIdsList()) {
-            batchBuilder.addStocks(buildStockResponse(productId));
+            Integer quantity = quantities.get(productId);
+            batchBuilder.addStocks(quantity != null
+                    ? buildStockResponse(productId, quantity)
+                    : unavailableStockResponse(productId));
         }
 
         responseObserver.onNext(batchBuilder.build());
@@ -53,14 +74,9 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
         int quantity = request.getQuantity();
         log.info("Setting stock for product {}: {}", productId, quantity);
 
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElse(Inventory.builder()
-                        .id(UUID.randomUUID().toString())
-                        .productId(productId)
-                        .build());
-
-        inventory.setQuantity(quantity);
-        inventoryRepository.save(inventory);
+        // Sharded or not is decided under the row lock, so a concurrent configureShards
+        // cannot leave stock on both the main row and the shards
+        stockShardService.setQuantity(productId, quantity);
 
         responseObserver.onNext(buildStockResponse(productId, quantity));
         responseObserver.onCompleted();
@@ -73,16 +89,25 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
         int delta = request.getDelta();
         log.info("Updating stock for product {} by delta: {}", productId, delta);
 
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElse(Inventory.builder()
-                        .id(UUID.randomUUID().toString())
-                        .productId(productId)
-                        .quantity(0)
-                        .build());
+        Optional<Inventory> existing = inventoryRepository.findByProductId(productId);
+        if (existing.isPresent() && stockShardService.isSharded(existing.get())) {
+            int newQuantity = stockShardService.adjustQuantity(productId, delta);
+            responseObserver.onNext(buildStockResponse(productId, newQuantity));
+            responseObserver.onCompleted();
+            return;
+        }
 
-        int newQuantity = Math.max(0, inventory.getQuantity() + delta);
-        inventory.setQuantity(newQuantity);
-        inventoryRepository.save(inventory);
+        // Single in-place UPDATE; only unknown products fall back to an insert
+        int newQuantity = inventoryRepository.adjustStock(productId, delta)
+                .orElseGet(() -> {
+                    int initialQuantity = Math.max(0, delta);
+                    inventoryRepository.save(Inventory.builder()
+                            .id(UUID.randomUUID().toString())
+                            .productId(productId)
+                            .quantity(initialQuantity)
+                            .build());
+                    return initialQuantity;
+                });
 
         responseObserver.onNext(buildStockResponse(productId, newQuantity));
         responseObserver.onCompleted();
@@ -99,20 +124,37 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
         ListInventoryResponse.Builder responseBuilder = ListInventoryResponse.newBuilder()
                 .setTotalCount((int) inventoryPage.getTotalElements());
 
+        Map<String, Integer> quantities = stockShardService.availableQuantities(inventoryPage.getContent());
         for (Inventory inv : inventoryPage.getContent()) {
-            responseBuilder.addItems(buildStockResponse(inv.getProductId(), inv.getQuantity()));
+            responseBuilder.addItems(buildStockResponse(inv.getProductId(), quantities.get(inv.getProductId())));
         }
 
         responseObserver.onNext(responseBuilder.build());
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void configureStockShards(ConfigureStockShardsRequest request, StreamObserver<StockResponse> responseObserver) {
+        String productId = request.getProductId();
+        int shardCount = request.getShardCount();
+        log.info("Configuring {} stock shards for product {}", shardCount, productId);
+
+        int quantity = stockShardService.configureShards(productId, shardCount);
+
+        responseObserver.onNext(buildStockResponse(productId, quantity));
+        responseObserver.onCompleted();
+    }
+
     private StockResponse buildStockResponse(String productId) {
         Optional<Inventory> inventoryOpt = inventoryRepository.findByProductId(productId);
         if (inventoryOpt.isPresent()) {
             Inventory inventory = inventoryOpt.get();
-            return buildStockResponse(productId, inventory.getQuantity());
+            return buildStockResponse(productId, stockShardService.availableQuantity(inventory));
         }
+        return unavailableStockResponse(productId);
+    }
+
+    private StockResponse unavailableStockResponse(String productId) {
         return StockResponse.newBuilder()
                 .setProductId(productId)
                 .setQuantity(0)
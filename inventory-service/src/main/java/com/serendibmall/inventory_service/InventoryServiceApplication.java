@@ -1,9 +1,18 @@
 package com.serendibmall.inventory_service;
 
+import com.serendibmall.outbox_relay.OutboxRelayConfig;
+import com.serendibmall.outbox_relay.OutboxRetentionConfig;
+import com.serendibmall.virtual_threads.VirtualThreadJdbcConfig;
+import com.serendibmall.virtual_threads.VirtualThreadGrpcConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import({VirtualThreadJdbcConfig.class, VirtualThreadGrpcConfig.class,
+        OutboxRelayConfig.class, OutboxRetentionConfig.class})
+@EnableScheduling
 public class InventoryServiceApplication {
 
 	public static void main(String[] args) {
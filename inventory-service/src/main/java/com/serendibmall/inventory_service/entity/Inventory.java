@@ -19,4 +19,7 @@ public class Inventory {
     private String id;
     private String productId;
     private Integer quantity;
+
+    // Number of counter shards in inventory_shards; null when the product is not sharded
+    private Integer shardCount;
 }
@@ -0,0 +1,32 @@
+package com.serendibmall.inventory_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "inventory_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard_index"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryShard {
+    @Id
+    private String id;
+
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,241 @@
+package com.serendibmall.inventory_service.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.entity.InventoryOutbox;
+import com.serendibmall.inventory_service.repository.InventoryOutboxRepository;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.service.StockShardService;
+import com.serendibmall.saga_events.OrderEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch counterpart of {@link InventoryOrderListener}, enabled with
+ * {@code inventory.saga.batch-listener.enabled=true}.
+ * <p>
+ * A whole poll of {@code order.events} is handled in one transaction: every plain
+ * product touched by the batch is locked and read once, reservations and compensations
+ * are applied in record order against that row, and the resulting outbox rows are written
+ * in a single JDBC batch. Each order still gets its own InventoryReservedEvent or
+ * InventoryFailedEvent, and its lines are reserved all-or-nothing. Sharded products
+ * are reserved on their shard rows through {@link StockShardService}; their main row
+ * is not locked, so batches on other instances can reserve the same product at once.
+ * <p>
+ * A record that cannot be decoded or handled does not cost the rest of the poll: the
+ * records before it are committed in their own transaction, and a
+ * {@link BatchListenerFailedException} names it, so the error handler commits their
+ * offsets and retries from that record, sending only it to the DLT once retries run out.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.saga.batch-listener.enabled", havingValue = "true")
+public class InventoryOrderBatchListener {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryOutboxRepository outboxRepository;
+    private final StockShardService stockShardService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @KafkaListener(topics = "order.events", groupId = "inventory-service-saga",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            properties = "max.poll.records=${inventory.saga.batch-listener.max-poll-records:500}")
+    public void handleOrderEvents(List<String> messages) {
+        // Index i holds the event of record i
+        List<OrderEvent> events = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                events.add(SagaEventCodec.decodeOrderEvent(messages.get(i)));
+            } catch (Exception e) {
+                log.error("Unreadable order event at record {} of {}", i, messages.size(), e);
+                processOrFail(events, messages.size());
+                throw new BatchListenerFailedException("Unreadable order event", e, i);
+            }
+        }
+        processOrFail(events, messages.size());
+    }
+
+    /**
+     * Processes the events, or if one of them fails, commits the ones before it and
+     * throws a {@link BatchListenerFailedException} naming the first record that failed.
+     */
+    private void processOrFail(List<OrderEvent> events, int batchSize) {
+        try {
+            process(events);
+        } catch (EventFailedException e) {
+            log.error("Error processing order event at record {} of {}", e.index, batchSize, e.getCause());
+            // The whole transaction rolled back; keep the records before the failing one
+            processOrFail(events.subList(0, e.index), batchSize);
+            throw new BatchListenerFailedException("Failed to process order event", e.getCause(), e.index);
+        }
+    }
+
+    /**
+     * Applies the events in one transaction. A failure on one of them rolls it all back
+     * and surfaces as an {@link EventFailedException} naming that event.
+     */
+    private void process(List<OrderEvent> events) {
+        if (events.stream().noneMatch(event -> isReservation(event) || isCompensation(event))) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> productIds = events.stream()
+                    .filter(event -> isReservation(event) || isCompensation(event))
+                    .flatMap(event -> event.lines().stream())
+                    .map(OrderEvent.Line::productId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            Set<String> shardedIds = new HashSet<>(inventoryRepository.findShardedProductIdsIn(productIds));
+            List<String> plainIds = productIds.stream().filter(id -> !shardedIds.contains(id)).toList();
+            // One locked read per plain product; changes are flushed at commit by dirty checking
+            Map<String, Inventory> inventories = plainIds.isEmpty() ? new HashMap<>() : inventoryRepository
+                    .findAllByProductIdInForUpdate(plainIds).stream()
+                    .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+            // Sharded since the read above: reserved on its shards like the others
+            inventories.values().stream()
+                    .filter(stockShardService::isSharded)
+                    .forEach(inventory -> shardedIds.add(inventory.getProductId()));
+
+            List<InventoryOutbox> outboxEvents = new ArrayList<>();
+            int reserved = 0;
+            int failed = 0;
+
+            for (int i = 0; i < events.size(); i++) {
+                OrderEvent event = events.get(i);
+                try {
+                    if (isReservation(event)) {
+                        if (reserveAll(event, inventories, shardedIds)) {
+                            outboxEvents.add(buildOutboxEvent("InventoryReservedEvent", event));
+                            reserved++;
+                        } else {
+                            outboxEvents.add(buildOutboxEvent("InventoryFailedEvent", event));
+                            failed++;
+                            log.warn("Insufficient stock or unknown product for order: {}", event.orderId());
+                        }
+                    } else if (isCompensation(event)) {
+                        releaseAll(event, inventories, shardedIds);
+                    }
+                } catch (Exception e) {
+                    throw new EventFailedException(i, e);
+                }
+            }
+
+            outboxRepository.insertAll(outboxEvents);
+            log.info("Processed order event batch: records={}, products={}, reserved={}, failed={}",
+                    events.size(), productIds.size(), reserved, failed);
+        });
+    }
+
+    /**
+     * Reserves every line of the order or none. Plain rows are checked before anything
+     * is taken; shard reservations already made are released if a later one fails.
+     */
+    private boolean reserveAll(OrderEvent event, Map<String, Inventory> inventories, Set<String> shardedIds) {
+        Map<String, Integer> quantities = event.quantitiesByProduct();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (shardedIds.contains(line.getKey())) {
+                continue;
+            }
+            Inventory inventory = inventories.get(line.getKey());
+            if (inventory == null || inventory.getQuantity() < line.getValue()) {
+                return false;
+            }
+        }
+
+        List<Map.Entry<String, Integer>> takenFromShards = new ArrayList<>();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (!shardedIds.contains(line.getKey())) {
+                continue;
+            }
+            if (!stockShardService.reserve(line.getKey(), event.orderId(), line.getValue())) {
+                for (Map.Entry<String, Integer> taken : takenFromShards) {
+                    stockShardService.release(taken.getKey(), event.orderId(), taken.getValue());
+                }
+                return false;
+            }
+            takenFromShards.add(line);
+        }
+
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (!shardedIds.contains(line.getKey())) {
+                Inventory inventory = inventories.get(line.getKey());
+                inventory.setQuantity(inventory.getQuantity() - line.getValue());
+                stockShardService.countReservation(line.getKey());
+            }
+        }
+        return true;
+    }
+
+    private void releaseAll(OrderEvent event, Map<String, Inventory> inventories, Set<String> shardedIds) {
+        for (Map.Entry<String, Integer> line : event.quantitiesByProduct().entrySet()) {
+            Inventory inventory = inventories.get(line.getKey());
+            if (shardedIds.contains(line.getKey())) {
+                stockShardService.release(line.getKey(), event.orderId(), line.getValue());
+            } else if (inventory != null) {
+                inventory.setQuantity(inventory.getQuantity() + line.getValue());
+            } else {
+                log.warn("Compensation: Product {} not found in inventory for order {}",
+                        line.getKey(), event.orderId());
+                continue;
+            }
+            log.info("Compensation completed: Stock released for Order {}, returned {} units of product {}",
+                    event.orderId(), line.getValue(), line.getKey());
+        }
+    }
+
+    private InventoryOutbox buildOutboxEvent(String eventType, OrderEvent event) throws Exception {
+        Map<String, Object> payloadMap = new HashMap<>();
+        payloadMap.put("type", eventType);
+        payloadMap.put("orderId", event.orderId());
+        payloadMap.put("productId", event.productId());
+        payloadMap.put("quantity", event.quantity());
+        payloadMap.put("lines", event.lines());
+
+        return InventoryOutbox.builder()
+                .id(UUID.randomUUID().toString())
+                .aggregateType("Order")
+                .aggregateId(event.orderId())
+                .eventType(eventType)
+                .payload(objectMapper.writeValueAsString(payloadMap))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static boolean isReservation(OrderEvent event) {
+        return event.isType("OrderCreatedEvent");
+    }
+
+    private static boolean isCompensation(OrderEvent event) {
+        return event.isType("OrderCancelledEvent");
+    }
+
+    private static class EventFailedException extends RuntimeException {
+
+        private final int index;
+
+        EventFailedException(int index, Throwable cause) {
+            super(cause);
+            this.index = index;
+        }
+    }
+}
@@ -1,29 +1,38 @@
 package com.serendibmall.inventory_service.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.serendibmall.inventory_service.entity.Inventory;
 import com.serendibmall.inventory_service.entity.InventoryOutbox;
 import com.serendibmall.inventory_service.repository.InventoryOutboxRepository;
-import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.service.StockShardService;
+import com.serendibmall.saga_events.OrderEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Reserves stock for new orders and releases it for cancelled ones, one event per
+ * transaction. An order's lines are reserved all-or-nothing: if any line is short,
+ * the lines already taken are released in the same transaction and the whole order
+ * fails.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.saga.batch-listener.enabled", havingValue = "false", matchIfMissing = true)
 public class InventoryOrderListener {
 
-    private final InventoryRepository inventoryRepository;
+    private final StockShardService stockShardService;
     private final InventoryOutboxRepository outboxRepository;
     private final ObjectMapper objectMapper;
 
@@ -31,32 +40,20 @@ public class InventoryOrderListener {
     @Transactional
     public void handleOrderEvent(String message) {
         try {
-            log.info("Received raw order event message: {}", message);
-            
-            // SMT has already extracted the payload - single parse is enough!
-            JsonNode payload = objectMapper.readTree(message);
-            log.info("Parsed payload node type: {}", payload.getNodeType());
-            log.info("Parsed payload JSON: {}", payload.toPrettyString());
-            
-            if (payload.isTextual()) {
-                log.warn("Payload is TextNode, attempting double-parse");
-                payload = objectMapper.readTree(payload.asText());
-                log.info("Double-parsed payload: {}", payload.toPrettyString());
-            }
+            log.debug("Received order event: {}", message);
 
-            String eventType = payload.get("type").asText();
-            String orderId = payload.get("orderId").asText();
-            String productId = payload.get("productId").asText();
-            int quantity = payload.get("quantity").asInt();
+            // SMT has already extracted the payload; the codec also handles double serialization
+            OrderEvent event = SagaEventCodec.decodeOrderEvent(message);
+            String eventType = event.type();
 
             // Handle OrderCreatedEvent for stock reservation
             if ("OrderCreatedEvent".equals(eventType)) {
-                handleStockReservation(orderId, productId, quantity);
+                handleStockReservation(event);
             }
             
             // Handle OrderCancelledEvent for compensation (stock release)
             if ("OrderCancelledEvent".equals(eventType)) {
-                handleCompensation(orderId, productId, quantity);
+                handleCompensation(event);
             }
 
         } catch (Exception e) {
@@ -65,57 +62,56 @@ public class InventoryOrderListener {
         }
     }
 
-    private void handleStockReservation(String orderId, String productId, int quantity) {
-        log.info("Processing stock reservation: order={}, product={}, quantity={}", orderId, productId, quantity);
-
-        Optional<Inventory> inventoryOptional = inventoryRepository.findByProductId(productId);
-
-        if (inventoryOptional.isPresent()) {
-            Inventory inventory = inventoryOptional.get();
-            if (inventory.getQuantity() >= quantity) {
-                // Reserve stock
-                inventory.setQuantity(inventory.getQuantity() - quantity);
-                inventoryRepository.save(inventory);
-                
-                // Write to outbox table (same transaction as inventory update)
-                saveOutboxEvent("InventoryReservedEvent", orderId, productId, quantity);
-                log.info("Stock reserved for order: {}", orderId);
-            } else {
-                // Insufficient stock - write failure event to outbox
-                saveOutboxEvent("InventoryFailedEvent", orderId, productId, quantity);
-                log.warn("Insufficient stock for order: {}", orderId);
+    private void handleStockReservation(OrderEvent event) {
+        String orderId = event.orderId();
+        Map<String, Integer> quantities = event.quantitiesByProduct();
+        log.info("Processing stock reservation: order={}, products={}", orderId, quantities.size());
+
+        // Rows are taken in product id order, so two orders sharing products cannot deadlock
+        List<Map.Entry<String, Integer>> reserved = new ArrayList<>(quantities.size());
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            // Guarded decrement: the row (or shard) is only touched when enough stock is left
+            if (!stockShardService.reserve(line.getKey(), orderId, line.getValue())) {
+                // Put back what this order already took; the rows are still locked by us
+                for (Map.Entry<String, Integer> taken : reserved) {
+                    stockShardService.release(taken.getKey(), orderId, taken.getValue());
+                }
+                // Insufficient stock or unknown product - write failure event to outbox
+                saveOutboxEvent("InventoryFailedEvent", event);
+                log.warn("Insufficient stock or product {} not found for order: {}", line.getKey(), orderId);
+                return;
             }
-        } else {
-            // Product not found in inventory - write failure event to outbox
-            saveOutboxEvent("InventoryFailedEvent", orderId, productId, quantity);
-            log.warn("Product not found in inventory for order: {}", orderId);
+            reserved.add(line);
         }
+
+        // Write to outbox table (same transaction as inventory update)
+        saveOutboxEvent("InventoryReservedEvent", event);
+        log.info("Stock reserved for order: {}", orderId);
     }
 
-    private void handleCompensation(String orderId, String productId, int quantity) {
+    private void handleCompensation(OrderEvent event) {
+        String orderId = event.orderId();
         log.info("Compensation triggered: Releasing stock for order: {}", orderId);
 
-        Optional<Inventory> inventoryOptional = inventoryRepository.findByProductId(productId);
-
-        if (inventoryOptional.isPresent()) {
-            Inventory inventory = inventoryOptional.get();
-            // Release the reserved stock
-            inventory.setQuantity(inventory.getQuantity() + quantity);
-            inventoryRepository.save(inventory);
-            log.info("Compensation completed: Stock released for Order {}, returned {} units of product {}", 
-                    orderId, quantity, productId);
-        } else {
-            log.warn("Compensation: Product {} not found in inventory for order {}", productId, orderId);
+        for (Map.Entry<String, Integer> line : event.quantitiesByProduct().entrySet()) {
+            if (stockShardService.release(line.getKey(), orderId, line.getValue())) {
+                log.info("Compensation completed: Stock released for Order {}, returned {} units of product {}",
+                        orderId, line.getValue(), line.getKey());
+            } else {
+                log.warn("Compensation: Product {} not found in inventory for order {}", line.getKey(), orderId);
+            }
         }
     }
 
-    private void saveOutboxEvent(String eventType, String orderId, String productId, int quantity) {
+    private void saveOutboxEvent(String eventType, OrderEvent event) {
+        String orderId = event.orderId();
         try {
             Map<String, Object> payloadMap = new HashMap<>();
             payloadMap.put("type", eventType);
             payloadMap.put("orderId", orderId);
-            payloadMap.put("productId", productId);
-            payloadMap.put("quantity", quantity);
+            payloadMap.put("productId", event.productId());
+            payloadMap.put("quantity", event.quantity());
+            payloadMap.put("lines", event.lines());
             
             String payloadJson = objectMapper.writeValueAsString(payloadMap);
             
@@ -128,7 +124,7 @@ public class InventoryOrderListener {
                     .createdAt(LocalDateTime.now())
                     .build();
             
-            outboxRepository.save(outboxEvent);
+            outboxRepository.insert(outboxEvent);
             log.info("Outbox event saved: {} for order: {}", eventType, orderId);
         } catch (Exception e) {
             log.error("Error saving outbox event", e);
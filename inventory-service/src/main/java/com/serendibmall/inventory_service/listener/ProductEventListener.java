@@ -1,9 +1,9 @@
 package com.serendibmall.inventory_service.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serendibmall.inventory_service.entity.Inventory;
 import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.saga_events.ProductEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -18,30 +18,18 @@ import java.util.UUID;
 public class ProductEventListener {
 
     private final InventoryRepository inventoryRepository;
-    private final ObjectMapper objectMapper;
 
     @KafkaListener(topics = "product.events", groupId = "inventory-service-product")
     @Transactional
     public void handleProductEvent(String message) {
         try {
-            log.info("Received product event: {}", message);
+            log.debug("Received product event: {}", message);
 
-            JsonNode payload = objectMapper.readTree(message);
+            // Handles double-serialized JSON from the Debezium SMT as well
+            ProductEvent event = SagaEventCodec.decodeProductEvent(message);
 
-            // Handle potential double-serialized JSON from Debezium SMT
-            if (payload.isTextual()) {
-                payload = objectMapper.readTree(payload.asText());
-            }
-
-            String eventType = null;
-            if (payload.has("eventType")) {
-                eventType = payload.get("eventType").asText();
-            } else if (payload.has("type")) {
-                eventType = payload.get("type").asText();
-            }
-
-            if ("ProductCreated".equals(eventType)) {
-                handleProductCreated(payload);
+            if (event.isType("ProductCreated")) {
+                handleProductCreated(event);
             }
 
         } catch (Exception e) {
@@ -49,10 +37,12 @@ public class ProductEventListener {
         }
     }
 
-    private void handleProductCreated(JsonNode payload) {
-        String productId = payload.has("product_id") 
-                ? payload.get("product_id").asText() 
-                : payload.get("productId").asText();
+    private void handleProductCreated(ProductEvent event) {
+        String productId = event.productId();
+        if (productId == null) {
+            log.warn("ProductCreated event missing product_id");
+            return;
+        }
 
         // Only create if not already exists (idempotent)
         if (inventoryRepository.findByProductId(productId).isEmpty()) {
@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InventoryOutboxRepository extends JpaRepository<InventoryOutbox, String> {
+public interface InventoryOutboxRepository extends JpaRepository<InventoryOutbox, String>, InventoryOutboxRepositoryCustom {
 }
@@ -0,0 +1,19 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.entity.InventoryOutbox;
+
+import java.util.List;
+
+public interface InventoryOutboxRepositoryCustom {
+
+    /**
+     * Inserts all outbox rows in a single JDBC batch, skipping the per-entity
+     * merge lookup that {@code saveAll} does for entities with assigned ids.
+     */
+    void insertAll(List<InventoryOutbox> events);
+
+    /**
+     * Inserts a single outbox row the same way. Both are timed as {@code outbox.insert}.
+     */
+    void insert(InventoryOutbox event);
+}
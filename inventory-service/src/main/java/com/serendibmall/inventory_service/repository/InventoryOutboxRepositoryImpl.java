@@ -0,0 +1,45 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.entity.InventoryOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class InventoryOutboxRepositoryImpl implements InventoryOutboxRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO inventory_outbox (id, aggregate_type, aggregate_id, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer insertTimer;
+
+    public InventoryOutboxRepositoryImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertTimer = meterRegistry.timer("outbox.insert", "table", "inventory_outbox");
+    }
+
+    @Override
+    public void insertAll(List<InventoryOutbox> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        insertTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getId());
+            ps.setString(2, event.getAggregateType());
+            ps.setString(3, event.getAggregateId());
+            ps.setString(4, event.getEventType());
+            ps.setString(5, event.getPayload());
+            ps.setTimestamp(6, Timestamp.valueOf(event.getCreatedAt()));
+        }));
+    }
+
+    @Override
+    public void insert(InventoryOutbox event) {
+        insertAll(List.of(event));
+    }
+}
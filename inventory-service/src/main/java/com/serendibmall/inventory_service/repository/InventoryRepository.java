@@ -1,12 +1,54 @@
 package com.serendibmall.inventory_service.repository;
 
 import com.serendibmall.inventory_service.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, String> {
     Optional<Inventory> findByProductId(String productId);
+
+    List<Inventory> findByProductIdIn(Collection<String> productIds);
+
+    @Query("SELECT i.productId FROM Inventory i WHERE i.shardCount > 1")
+    List<String> findShardedProductIds();
+
+    // Scalar read, so it never leaves unlocked entities in the persistence context
+    @Query("SELECT i.productId FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount > 1")
+    List<String> findShardedProductIdsIn(@Param("productIds") Collection<String> productIds);
+
+    // Rows are locked in product_id order so concurrent batches cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds ORDER BY i.productId")
+    List<Inventory> findAllByProductIdInForUpdate(@Param("productIds") Collection<String> productIds);
+
+    /**
+     * Reserves stock with a single guarded UPDATE. Returns 1 when the reservation was
+     * applied and 0 when the product is unknown or has insufficient stock.
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity " +
+            "WHERE i.productId = :productId AND i.quantity >= :quantity")
+    int reserveStock(@Param("productId") String productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity WHERE i.productId = :productId")
+    int releaseStock(@Param("productId") String productId, @Param("quantity") int quantity);
+
+    /**
+     * Applies a delta in place, clamping at zero, and returns the new quantity.
+     * Empty when the product has no inventory row yet.
+     */
+    @Query(value = "UPDATE inventory SET quantity = GREATEST(0, quantity + :delta) " +
+            "WHERE product_id = :productId RETURNING quantity", nativeQuery = true)
+    Optional<Integer> adjustStock(@Param("productId") String productId, @Param("delta") int delta);
 }
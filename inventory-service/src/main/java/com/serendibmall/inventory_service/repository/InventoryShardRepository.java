@@ -0,0 +1,45 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.entity.InventoryShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<InventoryShard> findByProductIdForUpdate(@Param("productId") String productId);
+
+    // Scalar read so callers that already issued bulk updates never see stale managed entities
+    @Query(value = "SELECT shard_index, quantity FROM inventory_shards " +
+            "WHERE product_id = :productId ORDER BY shard_index FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockShardQuantities(@Param("productId") String productId);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.quantity = s.quantity - :quantity " +
+            "WHERE s.productId = :productId AND s.shardIndex = :shardIndex AND s.quantity >= :quantity")
+    int reserveFromShard(@Param("productId") String productId, @Param("shardIndex") int shardIndex,
+                         @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.quantity = s.quantity + :quantity " +
+            "WHERE s.productId = :productId AND s.shardIndex = :shardIndex")
+    int releaseToShard(@Param("productId") String productId, @Param("shardIndex") int shardIndex,
+                       @Param("quantity") int quantity);
+
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM InventoryShard s WHERE s.productId = :productId")
+    long sumQuantity(@Param("productId") String productId);
+
+    @Query("SELECT s.productId, SUM(s.quantity) FROM InventoryShard s " +
+            "WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumQuantityByProductIdIn(@Param("productIds") Collection<String> productIds);
+}
@@ -0,0 +1,116 @@
+package com.serendibmall.inventory_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Keeps hot products sharded and their shards even.
+ * <p>
+ * Each instance counts its own reservations per product. A product this instance
+ * reserved more than {@code reservations-per-shard} times a second gets shards, one
+ * per that many reservations a second rounded up to a power of two, up to
+ * {@code max-shards}. Shards are only ever added here; folding a product that has
+ * cooled down back into its main row is left to ConfigureStockShards.
+ * <p>
+ * Evening out the shards is done by one instance at a time, the one holding an
+ * advisory lock.
+ */
+@Component
+@Slf4j
+public class StockShardRebalancer {
+
+    private static final String LOCK_NAME = "inventory_shards";
+
+    private final StockShardService stockShardService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int reservationsPerShard;
+    private final int maxShards;
+
+    private long lastRunNanos = System.nanoTime();
+
+    public StockShardRebalancer(StockShardService stockShardService, JdbcTemplate jdbcTemplate,
+                                @Value("${inventory.sharding.auto.reservations-per-shard:500}") int reservationsPerShard,
+                                @Value("${inventory.sharding.auto.max-shards:16}") int maxShards) {
+        this.stockShardService = stockShardService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservationsPerShard = reservationsPerShard;
+        this.maxShards = maxShards;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.sharding.rebalance-interval-ms:5000}")
+    public void rebalanceShards() {
+        shardHotProducts();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // Pinned to one connection for the session-level advisory lock
+                JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                if (!Boolean.TRUE.equals(session.queryForObject(
+                        "SELECT pg_try_advisory_lock(hashtext(?))", Boolean.class, LOCK_NAME))) {
+                    log.debug("Stock shards are being rebalanced elsewhere");
+                    return null;
+                }
+                try {
+                    rebalanceAll();
+                } finally {
+                    session.queryForObject("SELECT pg_advisory_unlock(hashtext(?))", Boolean.class, LOCK_NAME);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to rebalance stock shards: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Shards the products reserved fastest on this instance since the last run.
+     */
+    void shardHotProducts() {
+        long now = System.nanoTime();
+        double seconds = Math.max(0.001, (now - lastRunNanos) / 1_000_000_000.0);
+        lastRunNanos = now;
+        Map<String, Long> counts = stockShardService.drainReservationCounts();
+        if (reservationsPerShard <= 0) {
+            return;
+        }
+
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            double rate = entry.getValue() / seconds;
+            if (rate <= reservationsPerShard) {
+                continue;
+            }
+            int shardCount = Math.min(maxShards, Integer.highestOneBit((int) Math.ceil(rate / reservationsPerShard) - 1) << 1);
+            try {
+                if (shardCount > 1 && stockShardService.growShards(entry.getKey(), shardCount)) {
+                    log.info("Product {} is hot ({} reservations/s): now on {} stock shards",
+                            entry.getKey(), Math.round(rate), shardCount);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to shard hot product {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void rebalanceAll() {
+        int rebalanced = 0;
+        for (String productId : stockShardService.findShardedProductIds()) {
+            try {
+                if (stockShardService.rebalance(productId)) {
+                    rebalanced++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to rebalance stock shards for product {}: {}", productId, e.getMessage());
+            }
+        }
+        if (rebalanced > 0) {
+            log.info("Rebalanced stock shards for {} products", rebalanced);
+        }
+    }
+}
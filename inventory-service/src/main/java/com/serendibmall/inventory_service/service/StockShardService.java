@@ -0,0 +1,359 @@
+package com.serendibmall.inventory_service.service;
+
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.entity.InventoryShard;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.repository.InventoryShardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock reservation for both plain and sharded products.
+ * <p>
+ * A hot product can have its stock split across N rows in {@code inventory_shards}
+ * so that concurrent reservations contend on different rows. Reservations start at
+ * the shard picked by the order id hash and fall over to the siblings when it runs
+ * dry. The main {@code inventory} row keeps any stock released back to it and is
+ * folded into the shards on the next rebalance.
+ * <p>
+ * Reservations are counted per product, so {@link StockShardRebalancer} can give a
+ * product that turns hot its shards, or more of them, without an operator.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StockShardService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+
+    // Shard counts of products known to be sharded, so the hot path skips the main row
+    private final Map<String, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    // Reservations per product since the last drainReservationCounts()
+    private final Map<String, LongAdder> reservationCounts = new ConcurrentHashMap<>();
+
+    @Transactional
+    public boolean reserve(String productId, String orderId, int quantity) {
+        countReservation(productId);
+        Integer shardCount = shardCounts.get(productId);
+        if (shardCount == null) {
+            if (inventoryRepository.reserveStock(productId, quantity) == 1) {
+                return true;
+            }
+            shardCount = lookupShardCount(productId);
+            if (shardCount == null) {
+                return false;
+            }
+        }
+
+        int start = Math.floorMod(orderId.hashCode(), shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            if (shardRepository.reserveFromShard(productId, (start + i) % shardCount, quantity) == 1) {
+                return true;
+            }
+        }
+
+        // No single shard covers the request: take it across shards under lock
+        return reserveAcrossShards(productId, quantity);
+    }
+
+    @Transactional
+    public boolean release(String productId, String orderId, int quantity) {
+        Integer shardCount = shardCounts.get(productId);
+        if (shardCount != null
+                && shardRepository.releaseToShard(productId, Math.floorMod(orderId.hashCode(), shardCount), quantity) == 1) {
+            return true;
+        }
+        return inventoryRepository.releaseStock(productId, quantity) == 1;
+    }
+
+    public boolean isSharded(Inventory inventory) {
+        return inventory.getShardCount() != null && inventory.getShardCount() > 1;
+    }
+
+    /**
+     * Total available quantity: the main row plus all of its shards.
+     */
+    public int availableQuantity(Inventory inventory) {
+        if (!isSharded(inventory)) {
+            return inventory.getQuantity();
+        }
+        return inventory.getQuantity() + (int) shardRepository.sumQuantity(inventory.getProductId());
+    }
+
+    /**
+     * Available quantities for a page of inventory rows, with one grouped query for
+     * all sharded rows on the page.
+     */
+    public Map<String, Integer> availableQuantities(Collection<Inventory> inventories) {
+        Map<String, Integer> quantities = new HashMap<>();
+        List<String> shardedIds = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            quantities.put(inventory.getProductId(), inventory.getQuantity());
+            if (isSharded(inventory)) {
+                shardedIds.add(inventory.getProductId());
+            }
+        }
+        if (!shardedIds.isEmpty()) {
+            for (Object[] row : shardRepository.sumQuantityByProductIdIn(shardedIds)) {
+                quantities.merge((String) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Splits a product's stock across {@code shardCount} shards, or folds it back into
+     * the main row when {@code shardCount <= 1}. Returns the total quantity.
+     */
+    @Transactional
+    public int configureShards(String productId, int shardCount) {
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        int total = inventory.getQuantity() + shards.stream().mapToInt(InventoryShard::getQuantity).sum();
+
+        if (shardCount <= 1) {
+            shardRepository.deleteAll(shards);
+            inventory.setQuantity(total);
+            inventory.setShardCount(null);
+            shardCounts.remove(productId);
+            log.info("Sharding disabled for product {}: {} units moved back to main row", productId, total);
+            return total;
+        }
+
+        List<InventoryShard> kept = new ArrayList<>();
+        for (InventoryShard shard : shards) {
+            if (shard.getShardIndex() < shardCount) {
+                kept.add(shard);
+            } else {
+                shardRepository.delete(shard);
+            }
+        }
+        for (int index = kept.size(); index < shardCount; index++) {
+            kept.add(InventoryShard.builder()
+                    .id(UUID.randomUUID().toString())
+                    .productId(productId)
+                    .shardIndex(index)
+                    .quantity(0)
+                    .build());
+        }
+
+        spread(kept, total);
+        shardRepository.saveAll(kept);
+        inventory.setQuantity(0);
+        inventory.setShardCount(shardCount);
+        shardCounts.put(productId, shardCount);
+        log.info("Sharding enabled for product {}: {} units over {} shards", productId, total, shardCount);
+        return total;
+    }
+
+    /**
+     * Sets the absolute stock level of a product, creating its row if needed. Stock
+     * goes on the main row, or is spread evenly over the shards of a sharded product,
+     * as the row is once locked.
+     */
+    @Transactional
+    public int setQuantity(String productId, int quantity) {
+        Inventory inventory = lockInventory(productId);
+        setTotal(inventory, lockShards(inventory), quantity);
+        return quantity;
+    }
+
+    /**
+     * Applies a delta to a sharded product, clamping the total at zero.
+     */
+    @Transactional
+    public int adjustQuantity(String productId, int delta) {
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> shards = lockShards(inventory);
+        int total = inventory.getQuantity() + shards.stream().mapToInt(InventoryShard::getQuantity).sum();
+        int newTotal = Math.max(0, total + delta);
+        setTotal(inventory, shards, newTotal);
+        return newTotal;
+    }
+
+    /**
+     * Evens out a product's shards when they have drifted apart, and moves stock
+     * released to the main row back into them. Returns whether anything changed.
+     */
+    @Transactional
+    public boolean rebalance(String productId) {
+        // Same lock order as configureShards: main row first, then its shards
+        List<Inventory> locked = inventoryRepository.findAllByProductIdInForUpdate(List.of(productId));
+        if (locked.isEmpty() || !isSharded(locked.get(0))) {
+            shardCounts.remove(productId);
+            return false;
+        }
+        Inventory inventory = locked.get(0);
+        List<InventoryShard> shards = lockShards(inventory);
+        shardCounts.put(productId, shards.size());
+
+        int min = shards.stream().mapToInt(InventoryShard::getQuantity).min().orElse(0);
+        int max = shards.stream().mapToInt(InventoryShard::getQuantity).max().orElse(0);
+        if (inventory.getQuantity() == 0 && max - min <= shards.size()) {
+            return false;
+        }
+
+        int total = inventory.getQuantity() + shards.stream().mapToInt(InventoryShard::getQuantity).sum();
+        setTotal(inventory, shards, total);
+        log.debug("Rebalanced {} units over {} shards for product {}", total, shards.size(), productId);
+        return true;
+    }
+
+    /**
+     * Shards a product, or gives it more shards, when it has fewer than
+     * {@code shardCount}. Never reduces them. Returns whether anything changed.
+     */
+    @Transactional
+    public boolean growShards(String productId, int shardCount) {
+        List<Inventory> locked = inventoryRepository.findAllByProductIdInForUpdate(List.of(productId));
+        if (locked.isEmpty()) {
+            return false;
+        }
+        Integer current = locked.get(0).getShardCount();
+        if (current != null && current >= shardCount) {
+            return false;
+        }
+        configureShards(productId, shardCount);
+        return true;
+    }
+
+    public List<String> findShardedProductIds() {
+        return inventoryRepository.findShardedProductIds();
+    }
+
+    /**
+     * Counts a reservation made without {@link #reserve}, for automatic sharding.
+     */
+    public void countReservation(String productId) {
+        reservationCounts.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Reservations per product since the last call.
+     */
+    public Map<String, Long> drainReservationCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : reservationCounts.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            } else {
+                reservationCounts.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return counts;
+    }
+
+    private boolean reserveAcrossShards(String productId, int quantity) {
+        List<Object[]> shards = shardRepository.lockShardQuantities(productId);
+        if (shards.isEmpty()) {
+            // Sharding was turned off by another instance
+            shardCounts.remove(productId);
+            return inventoryRepository.reserveStock(productId, quantity) == 1;
+        }
+
+        int total = shards.stream().mapToInt(row -> ((Number) row[1]).intValue()).sum();
+        if (total < quantity) {
+            return false;
+        }
+
+        // All shards are locked, so every guarded decrement below succeeds
+        int remaining = quantity;
+        for (Object[] row : shards) {
+            int taken = Math.min(remaining, ((Number) row[1]).intValue());
+            if (taken > 0) {
+                shardRepository.reserveFromShard(productId, ((Number) row[0]).intValue(), taken);
+                remaining -= taken;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private Integer lookupShardCount(String productId) {
+        Integer shardCount = inventoryRepository.findByProductId(productId)
+                .map(Inventory::getShardCount)
+                .filter(count -> count > 1)
+                .orElse(null);
+        if (shardCount != null) {
+            shardCounts.put(productId, shardCount);
+        }
+        return shardCount;
+    }
+
+    private Inventory lockInventory(String productId) {
+        List<Inventory> locked = inventoryRepository.findAllByProductIdInForUpdate(List.of(productId));
+        if (!locked.isEmpty()) {
+            return locked.get(0);
+        }
+        return inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(0)
+                .build());
+    }
+
+    /**
+     * Locks the product's shards, creating any missing for its configured count so
+     * that its stock always has somewhere to go.
+     */
+    private List<InventoryShard> lockShards(Inventory inventory) {
+        List<InventoryShard> shards = new ArrayList<>(shardRepository.findByProductIdForUpdate(inventory.getProductId()));
+        if (!isSharded(inventory) || shards.size() >= inventory.getShardCount()) {
+            return shards;
+        }
+        boolean[] present = new boolean[inventory.getShardCount()];
+        for (InventoryShard shard : shards) {
+            if (shard.getShardIndex() < present.length) {
+                present[shard.getShardIndex()] = true;
+            }
+        }
+        for (int index = 0; index < present.length; index++) {
+            if (!present[index]) {
+                shards.add(shardRepository.save(InventoryShard.builder()
+                        .id(UUID.randomUUID().toString())
+                        .productId(inventory.getProductId())
+                        .shardIndex(index)
+                        .quantity(0)
+                        .build()));
+            }
+        }
+        log.warn("Recreated missing stock shards for product {}", inventory.getProductId());
+        return shards;
+    }
+
+    /**
+     * Puts {@code total} on the shards, or on the main row when there are none.
+     */
+    private static void setTotal(Inventory inventory, List<InventoryShard> shards, int total) {
+        if (shards.isEmpty()) {
+            inventory.setQuantity(total);
+            return;
+        }
+        spread(shards, total);
+        inventory.setQuantity(0);
+    }
+
+    private static void spread(List<InventoryShard> shards, int total) {
+        int base = total / shards.size();
+        int remainder = total % shards.size();
+        for (InventoryShard shard : shards) {
+            shard.setQuantity(base + (shard.getShardIndex() < remainder ? 1 : 0));
+        }
+    }
+}
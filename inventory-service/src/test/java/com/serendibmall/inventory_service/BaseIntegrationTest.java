@@ -7,15 +7,16 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.KafkaContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.lifecycle.Startables;
 import org.testcontainers.utility.DockerImageName;
 
+/**
+ * Containers are started once per JVM and shared by every test class, like the cached
+ * Spring context that points at them. Ryuk removes them when the JVM exits.
+ */
 @SpringBootTest
-@Testcontainers
 public abstract class BaseIntegrationTest {
 
-    @Container
     @ServiceConnection
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
             DockerImageName.parse("postgres:16-alpine"))
@@ -23,17 +24,21 @@ public abstract class BaseIntegrationTest {
             .withUsername("postgres")
             .withPassword("password");
 
-    @Container
     static GenericContainer<?> redis = new GenericContainer<>(
             DockerImageName.parse("redis:7-alpine"))
             .withExposedPorts(6379);
 
-    @Container
     static KafkaContainer kafka = new KafkaContainer(
             DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
 
+    static {
+        Startables.deepStart(postgres, redis, kafka).join();
+    }
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
+        // Contexts cached with different properties are alive together, so each needs its own port
+        registry.add("spring.grpc.server.port", () -> 0);
         registry.add("spring.data.redis.host", redis::getHost);
         registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
@@ -0,0 +1,73 @@
+package com.serendibmall.inventory_service;
+
+import com.serendibmall.inventory.v1.BatchStockResponse;
+import com.serendibmall.inventory.v1.GetBatchStockRequest;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * GetBatchStock latency with the IN query versus the previous one-lookup-per-id loop.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class BatchStockBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchStockBenchmark.class);
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @ParameterizedTest(name = "{0} ids")
+    @ValueSource(ints = {1, 10, 100, 1000})
+    void batchStockLatency(int size) {
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String productId = UUID.randomUUID().toString();
+            inventoryRepository.save(Inventory.builder()
+                    .id(UUID.randomUUID().toString())
+                    .productId(productId)
+                    .quantity(10)
+                    .build());
+            productIds.add(productId);
+        }
+        GetBatchStockRequest request = GetBatchStockRequest.newBuilder().addAllProductIds(productIds).build();
+
+        double loopMicros = measure(() -> productIds.forEach(inventoryRepository::findByProductId));
+        double batchMicros = measure(() -> {
+            RecordingStreamObserver<BatchStockResponse> observer = new RecordingStreamObserver<>();
+            inventoryGrpcService.getBatchStock(request, observer);
+            observer.single();
+        });
+
+        log.info("ids={} per-id loop={} us, IN query={} us, speedup={}x",
+                size, Math.round(loopMicros), Math.round(batchMicros),
+                String.format("%.1f", loopMicros / batchMicros));
+    }
+
+    private static double measure(Runnable call) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            call.run();
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - startNanos) / 1_000.0 / MEASURED_ROUNDS;
+    }
+}
@@ -0,0 +1,74 @@
+package com.serendibmall.inventory_service;
+
+import com.serendibmall.inventory.v1.BatchStockResponse;
+import com.serendibmall.inventory.v1.GetBatchStockRequest;
+import com.serendibmall.inventory.v1.StockResponse;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryGrpcServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void batchStockKeepsRequestOrderAndMarksMissingIdsUnavailable() {
+        String inStock = seed(5);
+        String soldOut = seed(0);
+        String missing = UUID.randomUUID().toString();
+
+        BatchStockResponse response = getBatchStock(List.of(missing, inStock, soldOut, inStock));
+
+        assertThat(response.getStocksList())
+                .extracting(StockResponse::getProductId)
+                .containsExactly(missing, inStock, soldOut, inStock);
+        assertThat(response.getStocks(0).getIsAvailable()).isFalse();
+        assertThat(response.getStocks(1).getQuantity()).isEqualTo(5);
+        assertThat(response.getStocks(1).getIsAvailable()).isTrue();
+        assertThat(response.getStocks(2).getIsAvailable()).isFalse();
+    }
+
+    @Test
+    void batchStockSpansMultipleChunks() {
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            productIds.add(seed(i + 1));
+        }
+
+        BatchStockResponse response = getBatchStock(productIds);
+
+        assertThat(response.getStocksCount()).isEqualTo(1200);
+        for (int i = 0; i < productIds.size(); i++) {
+            assertThat(response.getStocks(i).getProductId()).isEqualTo(productIds.get(i));
+            assertThat(response.getStocks(i).getQuantity()).isEqualTo(i + 1);
+        }
+    }
+
+    private BatchStockResponse getBatchStock(List<String> productIds) {
+        RecordingStreamObserver<BatchStockResponse> observer = new RecordingStreamObserver<>();
+        inventoryGrpcService.getBatchStock(
+                GetBatchStockRequest.newBuilder().addAllProductIds(productIds).build(), observer);
+        return observer.single();
+    }
+
+    private String seed(int quantity) {
+        String productId = UUID.randomUUID().toString();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(quantity)
+                .build());
+        return productId;
+    }
+}
@@ -0,0 +1,180 @@
+package com.serendibmall.inventory_service;
+
+import com.serendibmall.inventory.v1.GetStockRequest;
+import com.serendibmall.inventory.v1.InventoryServiceGrpc;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.grpc.test.LocalGrpcPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GetStock throughput and memory with the service in platform versus virtual-thread
+ * mode, when far more requests are in flight than there are platform threads.
+ * <p>
+ * Requests go over a real gRPC connection, so they run on the server's executor and
+ * take their connection from the Hikari pool as configured for each mode. Every call
+ * first waits {@value #DOWNSTREAM_MILLIS} ms on simulated downstream I/O on the
+ * handler thread, as a handler calling another service would. The client side is the
+ * same in both modes. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+abstract class VirtualThreadBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadBenchmark.class);
+
+    private static final long DOWNSTREAM_MILLIS = 20;
+
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    @Import(DownstreamLatency.class)
+    static class Platform extends VirtualThreadBenchmark {
+    }
+
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    @Import(DownstreamLatency.class)
+    static class Virtual extends VirtualThreadBenchmark {
+    }
+
+    @LocalGrpcPort
+    private int port;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @ParameterizedTest(name = "{0} concurrent requests")
+    @ValueSource(ints = {1_000, 5_000, 20_000})
+    void throughputAndMemory(int requests) throws Exception {
+        String productId = UUID.randomUUID().toString();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(100)
+                .build());
+        GetStockRequest request = GetStockRequest.newBuilder().setProductId(productId).build();
+
+        ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build();
+        try {
+            InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+            // Warm up the connection, the pool and the JIT before measuring
+            for (int i = 0; i < 100; i++) {
+                stub.getStock(request);
+            }
+            run(stub, requests, request);
+        } finally {
+            channel.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void run(InventoryServiceGrpc.InventoryServiceBlockingStub stub, int requests,
+                     GetStockRequest request) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger peakWaitingForConnection = new AtomicInteger();
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (sampling.get()) {
+                peakWaitingForConnection.accumulateAndGet(
+                        dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long startNanos = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(clients.submit(() -> {
+                    try {
+                        stub.getStock(request);
+                    } catch (StatusRuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        sampling.set(false);
+        sampler.join();
+
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        log.info("mode={} requests={} throughput={} req/s, failures={}, peak platform threads={}, "
+                        + "hikari pool={} peak waiting for a connection={}, heap growth={} MB",
+                getClass().getSimpleName().toLowerCase(), requests, Math.round(requests / seconds),
+                failures.get(), threads.getPeakThreadCount(), dataSource.getMaximumPoolSize(),
+                peakWaitingForConnection.get(), Math.max(0, (heapAfter - heapBefore) / (1024 * 1024)));
+        assertThat(failures).hasValue(0);
+    }
+
+    /**
+     * Holds the handler thread for {@value #DOWNSTREAM_MILLIS} ms before each call.
+     * Interceptors run on the server executor, so this ties up whichever thread the
+     * mode under test gives the handler.
+     */
+    @TestConfiguration
+    static class DownstreamLatency {
+
+        @Bean
+        @GlobalServerInterceptor
+        ServerInterceptor downstreamLatencyInterceptor() {
+            return new ServerInterceptor() {
+                @Override
+                public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                    try {
+                        Thread.sleep(DOWNSTREAM_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return next.startCall(call, headers);
+                }
+            };
+        }
+    }
+}
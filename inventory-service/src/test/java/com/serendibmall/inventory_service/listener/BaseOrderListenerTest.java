@@ -0,0 +1,76 @@
+package com.serendibmall.inventory_service.listener;
+
+import com.serendibmall.inventory_service.BaseIntegrationTest;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.service.StockShardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stock, order events and outbox reads shared by the OrderCreatedEvent listener tests.
+ * Product ids start with the given prefix, which fixes the order the lines of an
+ * order are reserved in: by product id.
+ */
+abstract class BaseOrderListenerTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockShardService stockShardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    String seed(String prefix, int quantity) {
+        String productId = prefix + "-" + UUID.randomUUID();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(quantity)
+                .build());
+        return productId;
+    }
+
+    String seedSharded(String prefix, int quantity) {
+        String productId = prefix + "-" + UUID.randomUUID();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(0)
+                .shardCount(4)
+                .build());
+        stockShardService.setQuantity(productId, quantity);
+        return productId;
+    }
+
+    int quantity(String productId) {
+        return stockShardService.availableQuantity(inventoryRepository.findByProductId(productId).orElseThrow());
+    }
+
+    List<String> outboxEvents(String orderId) {
+        return jdbcTemplate.queryForList(
+                "SELECT event_type FROM inventory_outbox WHERE aggregate_id = ?", String.class, orderId);
+    }
+
+    /**
+     * An OrderCreatedEvent with one line per product and quantity pair.
+     */
+    static String orderCreated(String orderId, Object... productsAndQuantities) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < productsAndQuantities.length; i += 2) {
+            if (i > 0) {
+                lines.append(',');
+            }
+            lines.append("""
+                    {"productId":"%s","quantity":%d}""".formatted(productsAndQuantities[i], productsAndQuantities[i + 1]));
+        }
+        return """
+                {"type":"OrderCreatedEvent","orderId":"%s","productId":"%s","quantity":%d,"lines":[%s],"status":"PENDING"}"""
+                .formatted(orderId, productsAndQuantities[0], productsAndQuantities[1], lines);
+    }
+}
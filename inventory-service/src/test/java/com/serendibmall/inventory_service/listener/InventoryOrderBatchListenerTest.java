@@ -0,0 +1,82 @@
+package com.serendibmall.inventory_service.listener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@TestPropertySource(properties = "inventory.saga.batch-listener.enabled=true")
+class InventoryOrderBatchListenerTest extends BaseOrderListenerTest {
+
+    @Autowired
+    private InventoryOrderBatchListener listener;
+
+    @Test
+    void unreadableRecordKeepsTheRecordsBeforeIt() {
+        String productId = seed("a", 10);
+        String first = UUID.randomUUID().toString();
+        String last = UUID.randomUUID().toString();
+
+        BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> listener.handleOrderEvents(List.of(
+                        orderCreated(first, productId, 2),
+                        "{not json",
+                        orderCreated(last, productId, 3))));
+
+        assertThat(failure.getIndex()).isEqualTo(1);
+        assertThat(quantity(productId)).isEqualTo(8);
+        assertThat(outboxEvents(first)).containsExactly("InventoryReservedEvent");
+        assertThat(outboxEvents(last)).isEmpty();
+    }
+
+    @Test
+    void reservesEveryLine() {
+        String plain = seed("a", 10);
+        String sharded = seedSharded("b", 10);
+        String orderId = UUID.randomUUID().toString();
+
+        listener.handleOrderEvents(List.of(orderCreated(orderId, plain, 2, sharded, 3)));
+
+        assertThat(quantity(plain)).isEqualTo(8);
+        assertThat(quantity(sharded)).isEqualTo(7);
+        assertThat(outboxEvents(orderId)).containsExactly("InventoryReservedEvent");
+    }
+
+    @Test
+    void shortPlainLineReservesNothingForThatOrderOnly() {
+        String enough = seed("a", 10);
+        String shortOf = seed("b", 1);
+        String failing = UUID.randomUUID().toString();
+        String next = UUID.randomUUID().toString();
+
+        listener.handleOrderEvents(List.of(
+                orderCreated(failing, enough, 2, shortOf, 3),
+                orderCreated(next, enough, 4)));
+
+        assertThat(quantity(enough)).isEqualTo(6);
+        assertThat(quantity(shortOf)).isEqualTo(1);
+        assertThat(outboxEvents(failing)).containsExactly("InventoryFailedEvent");
+        assertThat(outboxEvents(next)).containsExactly("InventoryReservedEvent");
+    }
+
+    @Test
+    void shortShardedLinePutsBackTheLinesTakenBeforeIt() {
+        String sharded = seedSharded("a", 10);
+        String plain = seed("b", 10);
+        String shortOf = seedSharded("c", 1);
+        String orderId = UUID.randomUUID().toString();
+
+        listener.handleOrderEvents(List.of(orderCreated(orderId, sharded, 2, plain, 2, shortOf, 3)));
+
+        assertThat(quantity(sharded)).isEqualTo(10);
+        assertThat(quantity(plain)).isEqualTo(10);
+        assertThat(quantity(shortOf)).isEqualTo(1);
+        assertThat(outboxEvents(orderId)).containsExactly("InventoryFailedEvent");
+    }
+}
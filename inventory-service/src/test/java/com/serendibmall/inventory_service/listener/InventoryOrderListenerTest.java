@@ -0,0 +1,55 @@
+package com.serendibmall.inventory_service.listener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryOrderListenerTest extends BaseOrderListenerTest {
+
+    @Autowired
+    private InventoryOrderListener listener;
+
+    @Test
+    void reservesEveryLine() {
+        String plain = seed("a", 10);
+        String sharded = seedSharded("b", 10);
+        String orderId = UUID.randomUUID().toString();
+
+        listener.handleOrderEvent(orderCreated(orderId, plain, 2, sharded, 3));
+
+        assertThat(quantity(plain)).isEqualTo(8);
+        assertThat(quantity(sharded)).isEqualTo(7);
+        assertThat(outboxEvents(orderId)).containsExactly("InventoryReservedEvent");
+    }
+
+    @Test
+    void shortPlainLineReservesNothing() {
+        String enough = seed("a", 10);
+        String shortOf = seed("b", 1);
+        String orderId = UUID.randomUUID().toString();
+
+        listener.handleOrderEvent(orderCreated(orderId, enough, 2, shortOf, 3));
+
+        assertThat(quantity(enough)).isEqualTo(10);
+        assertThat(quantity(shortOf)).isEqualTo(1);
+        assertThat(outboxEvents(orderId)).containsExactly("InventoryFailedEvent");
+    }
+
+    @Test
+    void shortShardedLinePutsBackTheLinesTakenBeforeIt() {
+        String sharded = seedSharded("a", 10);
+        String plain = seed("b", 10);
+        String shortOf = seedSharded("c", 1);
+        String orderId = UUID.randomUUID().toString();
+
+        listener.handleOrderEvent(orderCreated(orderId, sharded, 2, plain, 2, shortOf, 3));
+
+        assertThat(quantity(sharded)).isEqualTo(10);
+        assertThat(quantity(plain)).isEqualTo(10);
+        assertThat(quantity(shortOf)).isEqualTo(1);
+        assertThat(outboxEvents(orderId)).containsExactly("InventoryFailedEvent");
+    }
+}
@@ -0,0 +1,86 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.entity.Inventory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many threads reserving one unit at a time of a single hot SKU, either with the guarded
+ * UPDATE or with the locked read-modify-write it replaced.
+ */
+class HotSkuWorkload {
+
+    static final int THREADS = 32;
+    static final int ATTEMPTS_PER_THREAD = 50;
+    static final int INITIAL_STOCK = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    HotSkuWorkload(InventoryRepository inventoryRepository, TransactionTemplate transactionTemplate) {
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    String seedProduct() {
+        String productId = UUID.randomUUID().toString();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(INITIAL_STOCK)
+                .build());
+        return productId;
+    }
+
+    boolean guardedReservation(String productId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                inventoryRepository.reserveStock(productId, 1) == 1));
+    }
+
+    boolean lockedReservation(String productId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Inventory inventory = inventoryRepository.findAllByProductIdInForUpdate(List.of(productId)).get(0);
+            if (inventory.getQuantity() < 1) {
+                return false;
+            }
+            inventory.setQuantity(inventory.getQuantity() - 1);
+            inventoryRepository.save(inventory);
+            return true;
+        }));
+    }
+
+    /**
+     * Runs every attempt on every thread and returns how many reservations went through.
+     */
+    int hammer(Callable<Boolean> reservation) throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (Boolean.TRUE.equals(reservation.call())) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return reserved.get();
+    }
+}
@@ -0,0 +1,68 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Predicate;
+
+import static com.serendibmall.inventory_service.repository.HotSkuWorkload.ATTEMPTS_PER_THREAD;
+import static com.serendibmall.inventory_service.repository.HotSkuWorkload.THREADS;
+
+/**
+ * Hot-SKU reservation time with the guarded UPDATE versus the locked read-modify-write
+ * it replaced. The guarded UPDATE holds the row lock for one statement, and does not
+ * take it at all once the stock is gone. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class InventoryReservationBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationBenchmark.class);
+
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private HotSkuWorkload workload;
+
+    @BeforeEach
+    void setUp() {
+        workload = new HotSkuWorkload(inventoryRepository, transactionTemplate);
+    }
+
+    @Test
+    void guardedDecrementVersusLockedReadModifyWrite() throws Exception {
+        long guardedMillis = Long.MAX_VALUE;
+        long lockedMillis = Long.MAX_VALUE;
+        // Interleaved rounds, best of each, so a slow moment on the host hits both alike
+        for (int round = 0; round < ROUNDS; round++) {
+            guardedMillis = Math.min(guardedMillis, run("Guarded UPDATE", workload::guardedReservation));
+            lockedMillis = Math.min(lockedMillis, run("Locked read-modify-write", workload::lockedReservation));
+        }
+
+        log.info("Best of {}: guarded UPDATE {} ms, locked read-modify-write {} ms, speedup={}x",
+                ROUNDS, guardedMillis, lockedMillis,
+                String.format("%.1f", (double) lockedMillis / Math.max(1, guardedMillis)));
+    }
+
+    private long run(String name, Predicate<String> reservation) throws Exception {
+        String productId = workload.seedProduct();
+
+        long startNanos = System.nanoTime();
+        int reserved = workload.hammer(() -> reservation.test(productId));
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        log.info("{}: {} reservations out of {} attempts in {} ms",
+                name, reserved, THREADS * ATTEMPTS_PER_THREAD, elapsedMillis);
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,52 @@
+package com.serendibmall.inventory_service.repository;
+
+import com.serendibmall.inventory_service.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Predicate;
+
+import static com.serendibmall.inventory_service.repository.HotSkuWorkload.INITIAL_STOCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers a single hot SKU from many threads and checks that neither the guarded
+ * UPDATE nor the locked read-modify-write it replaced oversells. How long each takes
+ * is left to {@link InventoryReservationBenchmark}.
+ */
+class InventoryReservationConcurrencyTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private HotSkuWorkload workload;
+
+    @BeforeEach
+    void setUp() {
+        workload = new HotSkuWorkload(inventoryRepository, transactionTemplate);
+    }
+
+    @Test
+    void guardedDecrementNeverOversells() throws Exception {
+        assertSellsExactlyTheStock(workload::guardedReservation);
+    }
+
+    @Test
+    void lockedReadModifyWriteNeverOversells() throws Exception {
+        assertSellsExactlyTheStock(workload::lockedReservation);
+    }
+
+    private void assertSellsExactlyTheStock(Predicate<String> reservation) throws Exception {
+        String productId = workload.seedProduct();
+
+        int reserved = workload.hammer(() -> reservation.test(productId));
+
+        assertThat(reserved).isEqualTo(INITIAL_STOCK);
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getQuantity()).isZero();
+    }
+}
@@ -0,0 +1,87 @@
+package com.serendibmall.inventory_service.service;
+
+import com.serendibmall.inventory_service.BaseIntegrationTest;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reservation throughput on a single SKU as the shard count grows.
+ * Run with {@code ./gradlew benchmark}; shard count 1 is the unsharded main row.
+ * Auto-sharding and the rebalancer are off, so the shard count stays as configured.
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        "inventory.sharding.auto.reservations-per-shard=0",
+        "inventory.sharding.rebalance-interval-ms=3600000"
+})
+class StockShardScalingBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockShardScalingBenchmark.class);
+
+    private static final int THREADS = 32;
+    private static final int RESERVATIONS_PER_THREAD = 200;
+
+    @Autowired
+    private StockShardService stockShardService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @ParameterizedTest(name = "{0} shards")
+    @ValueSource(ints = {1, 2, 4, 8, 16})
+    void reservationThroughput(int shardCount) throws Exception {
+        String productId = UUID.randomUUID().toString();
+        int initialStock = THREADS * RESERVATIONS_PER_THREAD;
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(initialStock)
+                .build());
+        stockShardService.configureShards(productId, shardCount);
+
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long startNanos = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                        if (stockShardService.reserve(productId, UUID.randomUUID().toString(), 1)) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        log.info("shards={} threads={} reservations={} throughput={} ops/s",
+                shardCount, THREADS, reserved.get(), Math.round(reserved.get() / seconds));
+
+        assertThat(reserved.get()).isEqualTo(initialStock);
+    }
+}
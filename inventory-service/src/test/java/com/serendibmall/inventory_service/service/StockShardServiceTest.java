@@ -0,0 +1,98 @@
+package com.serendibmall.inventory_service.service;
+
+import com.serendibmall.inventory_service.BaseIntegrationTest;
+import com.serendibmall.inventory_service.entity.Inventory;
+import com.serendibmall.inventory_service.repository.InventoryRepository;
+import com.serendibmall.inventory_service.repository.InventoryShardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Scheduled runs kept out of the way; the tests drive the rebalancer themselves
+@TestPropertySource(properties = {
+        "inventory.sharding.rebalance-interval-ms=3600000",
+        "inventory.sharding.auto.reservations-per-shard=1",
+        "inventory.sharding.auto.max-shards=4"
+})
+class StockShardServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private StockShardService stockShardService;
+
+    @Autowired
+    private StockShardRebalancer stockShardRebalancer;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryShardRepository shardRepository;
+
+    @Test
+    void setQuantityRecreatesMissingShards() {
+        String productId = seed(0, 4);
+
+        stockShardService.setQuantity(productId, 10);
+
+        assertThat(shardRepository.sumQuantity(productId)).isEqualTo(10);
+        assertThat(shardRepository.findAll().stream().filter(shard -> shard.getProductId().equals(productId)))
+                .hasSize(4);
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getQuantity()).isZero();
+    }
+
+    @Test
+    void setQuantityKeepsAPlainProductOnItsMainRow() {
+        String productId = seed(3, null);
+
+        stockShardService.setQuantity(productId, 10);
+
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getQuantity()).isEqualTo(10);
+        assertThat(shardRepository.sumQuantity(productId)).isZero();
+    }
+
+    @Test
+    void setQuantityFollowsShardsConfiguredSinceTheProductWasRead() {
+        String productId = seed(10, null);
+        Inventory stale = inventoryRepository.findByProductId(productId).orElseThrow();
+        stockShardService.configureShards(productId, 4);
+
+        assertThat(stockShardService.isSharded(stale)).isFalse();
+        stockShardService.setQuantity(productId, 20);
+
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertThat(inventory.getShardCount()).isEqualTo(4);
+        assertThat(inventory.getQuantity()).isZero();
+        assertThat(stockShardService.availableQuantity(inventory)).isEqualTo(20);
+    }
+
+    @Test
+    void hotProductGetsShardsAutomatically() {
+        String hot = seed(1000, null);
+        String cold = seed(1000, null);
+        for (int i = 0; i < 400; i++) {
+            assertThat(stockShardService.reserve(hot, UUID.randomUUID().toString(), 1)).isTrue();
+        }
+
+        stockShardRebalancer.shardHotProducts();
+
+        Inventory inventory = inventoryRepository.findByProductId(hot).orElseThrow();
+        assertThat(inventory.getShardCount()).isEqualTo(4);
+        assertThat(stockShardService.availableQuantity(inventory)).isEqualTo(600);
+        assertThat(inventoryRepository.findByProductId(cold).orElseThrow().getShardCount()).isNull();
+    }
+
+    private String seed(int quantity, Integer shardCount) {
+        String productId = UUID.randomUUID().toString();
+        inventoryRepository.save(Inventory.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(quantity)
+                .shardCount(shardCount)
+                .build());
+        return productId;
+    }
+}
@@ -31,6 +31,16 @@ extra["springGrpcVersion"] = "0.12.0"
 
 sourceSets {
     main {
+        java {
+            srcDir("../saga-events/src/main/java")
+            srcDir("saga-events/src/main/java")
+            srcDir("../outbox-relay/src/main/java")
+            srcDir("outbox-relay/src/main/java")
+            srcDir("../virtual-threads/src/jdbc/java")
+            srcDir("virtual-threads/src/jdbc/java")
+            srcDir("../virtual-threads/src/grpc/java")
+            srcDir("virtual-threads/src/grpc/java")
+        }
         proto {
             srcDir("../proto")
             srcDir("proto")
@@ -90,3 +100,22 @@ protobuf {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+tasks.register<Test>("benchmark") {
+	description = "Runs the benchmark-tagged tests against Testcontainers."
+	group = "verification"
+	testClassesDirs = sourceSets["test"].output.classesDirs
+	classpath = sourceSets["test"].runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	testLogging {
+		showStandardStreams = true
+	}
+}
@@ -3,20 +3,37 @@ package com.serendibmall.order_service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serendibmall.order.v1.CreateOrderRequest;
 import com.serendibmall.order.v1.CreateOrderResponse;
+import com.serendibmall.order.v1.GetOrderRequest;
+import com.serendibmall.order.v1.ListOrdersByUserRequest;
+import com.serendibmall.order.v1.ListOrdersByUserResponse;
+import com.serendibmall.order.v1.OrderResponse;
 import com.serendibmall.order.v1.OrderServiceGrpc;
+import com.serendibmall.order.v1.WatchOrderRequest;
 import com.serendibmall.order_service.entity.Order;
+import com.serendibmall.order_service.entity.OrderLine;
 import com.serendibmall.order_service.entity.OrderOutbox;
 import com.serendibmall.order_service.repository.OrderOutboxRepository;
 import com.serendibmall.order_service.repository.OrderRepository;
+import com.serendibmall.order_service.service.OrderStatusRegistry;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -27,19 +44,39 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
     private final OrderRepository orderRepository;
     private final OrderOutboxRepository outboxRepository;
     private final ObjectMapper objectMapper;
+    private final OrderStatusRegistry statusRegistry;
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_ORDER_LINES = 100;
+
+    /**
+     * Creates one order for all of the request's lines: one row, one outbox event and
+     * one saga, however many products it holds.
+     */
     @Override
     @Transactional
     public void createOrder(CreateOrderRequest request, StreamObserver<CreateOrderResponse> responseObserver) {
+        List<OrderLine> lines;
+        try {
+            lines = orderLines(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
         try {
             String orderId = UUID.randomUUID().toString();
-            log.info("Creating order: {} for product: {}", orderId, request.getProductId());
+            log.info("Creating order: {} with {} line(s), first product: {}",
+                    orderId, lines.size(), lines.get(0).getProductId());
 
             Order order = Order.builder()
                     .id(orderId)
                     .userId(request.getUserId())
-                    .productId(request.getProductId())
-                    .quantity(request.getQuantity())
+                    .productId(lines.get(0).getProductId())
+                    .quantity(lines.get(0).getQuantity())
+                    .lines(lines)
                     .status("PENDING")
                     .createdAt(LocalDateTime.now())
                     .build();
@@ -48,8 +85,7 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
             log.info("Order saved with status PENDING: {}", orderId);
 
             // Write OrderCreatedEvent to outbox (same transaction)
-            saveOutboxEvent("OrderCreatedEvent", orderId, request.getProductId(), 
-                    request.getUserId(), request.getQuantity(), "PENDING");
+            saveOutboxEvent("OrderCreatedEvent", order);
 
             CreateOrderResponse response = CreateOrderResponse.newBuilder()
                     .setOrderId(orderId)
@@ -64,16 +100,163 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
         }
     }
 
-    private void saveOutboxEvent(String eventType, String orderId, String productId, 
-                                  String userId, int quantity, String status) {
+    @Override
+    public void getOrder(GetOrderRequest request, StreamObserver<OrderResponse> responseObserver) {
+        String orderId = request.getOrderId();
+        try {
+            Optional<Order> order = orderRepository.findById(orderId);
+            if (order.isEmpty()) {
+                responseObserver.onError(Status.NOT_FOUND
+                        .withDescription("Order not found with ID: " + orderId)
+                        .asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(toOrderResponse(order.get()));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error fetching order {}", orderId, e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error fetching order: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void listOrdersByUser(ListOrdersByUserRequest request,
+                                 StreamObserver<ListOrdersByUserResponse> responseObserver) {
+        String userId = request.getUserId();
+        int pageSize = request.getPageSize() > 0 ? Math.min(request.getPageSize(), MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+        try {
+            // One extra row tells whether another page follows
+            Limit limit = Limit.of(pageSize + 1);
+            List<Order> orders;
+            if (request.getPageToken().isEmpty()) {
+                orders = orderRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+            } else {
+                PageCursor cursor = decodePageToken(request.getPageToken());
+                orders = orderRepository.findByUserIdBefore(userId, cursor.createdAt(), cursor.id(), limit);
+            }
+
+            ListOrdersByUserResponse.Builder response = ListOrdersByUserResponse.newBuilder();
+            List<Order> page = orders.subList(0, Math.min(pageSize, orders.size()));
+            page.forEach(order -> response.addOrders(toOrderResponse(order)));
+            if (orders.size() > pageSize) {
+                response.setNextPageToken(encodePageToken(page.get(page.size() - 1)));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error listing orders of user {}", userId, e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error listing orders: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void watchOrder(WatchOrderRequest request, StreamObserver<OrderResponse> responseObserver) {
+        String orderId = request.getOrderId();
+        OrderWatchStream stream = new OrderWatchStream(
+                (ServerCallStreamObserver<OrderResponse>) responseObserver, orderId);
+        // Subscribed before the read, so no change can fall between the two
+        stream.subscribe(statusRegistry);
+        try {
+            Optional<Order> order = orderRepository.findById(orderId);
+            if (order.isEmpty()) {
+                stream.fail(Status.NOT_FOUND
+                        .withDescription("Order not found with ID: " + orderId)
+                        .asRuntimeException());
+                return;
+            }
+            stream.start(toOrderResponse(order.get()));
+        } catch (Exception e) {
+            log.error("Error watching order {}", orderId, e);
+            stream.fail(Status.INTERNAL
+                    .withDescription("Error watching order: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    /**
+     * The request's lines, or its single product when it has none, with lines for the
+     * same product merged.
+     */
+    private static List<OrderLine> orderLines(CreateOrderRequest request) {
+        List<com.serendibmall.order.v1.OrderLine> requested = request.getLinesCount() > 0
+                ? request.getLinesList()
+                : List.of(com.serendibmall.order.v1.OrderLine.newBuilder()
+                        .setProductId(request.getProductId())
+                        .setQuantity(request.getQuantity())
+                        .build());
+        if (requested.size() > MAX_ORDER_LINES) {
+            throw new IllegalArgumentException("An order holds at most " + MAX_ORDER_LINES + " lines");
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (com.serendibmall.order.v1.OrderLine line : requested) {
+            if (line.getProductId().isEmpty()) {
+                throw new IllegalArgumentException("Order line without a product_id");
+            }
+            if (line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for product " + line.getProductId());
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        List<OrderLine> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> lines.add(new OrderLine(productId, quantity)));
+        return lines;
+    }
+
+    private static OrderResponse toOrderResponse(Order order) {
+        OrderResponse.Builder response = OrderResponse.newBuilder()
+                .setOrderId(order.getId())
+                .setUserId(order.getUserId() != null ? order.getUserId() : "")
+                .setProductId(order.getProductId() != null ? order.getProductId() : "")
+                .setQuantity(order.getQuantity() != null ? order.getQuantity() : 0)
+                .setStatus(order.getStatus() != null ? order.getStatus() : "")
+                .setCreatedAt(order.getCreatedAt() != null ? order.getCreatedAt().toString() : "");
+        for (OrderLine line : order.effectiveLines()) {
+            response.addLines(com.serendibmall.order.v1.OrderLine.newBuilder()
+                    .setProductId(line.getProductId())
+                    .setQuantity(line.getQuantity() != null ? line.getQuantity() : 0));
+        }
+        return response.build();
+    }
+
+    /**
+     * Cursor after the given order: its created_at and id, URL-safe Base64 encoded.
+     */
+    private static String encodePageToken(Order order) {
+        String cursor = order.getCreatedAt() + "|" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PageCursor decodePageToken(String pageToken) {
+        try {
+            String cursor = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = cursor.indexOf('|');
+            return new PageCursor(LocalDateTime.parse(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+
+    private record PageCursor(LocalDateTime createdAt, String id) {}
+
+    private void saveOutboxEvent(String eventType, Order order) {
+        String orderId = order.getId();
         try {
             Map<String, Object> payloadMap = new HashMap<>();
             payloadMap.put("type", eventType);
             payloadMap.put("orderId", orderId);
-            payloadMap.put("productId", productId);
-            payloadMap.put("userId", userId);
-            payloadMap.put("quantity", quantity);
-            payloadMap.put("status", status);
+            payloadMap.put("productId", order.getProductId());
+            payloadMap.put("userId", order.getUserId());
+            payloadMap.put("quantity", order.getQuantity());
+            payloadMap.put("status", order.getStatus());
+            payloadMap.put("lines", order.getLines());
 
             String payloadJson = objectMapper.writeValueAsString(payloadMap);
 
@@ -86,7 +269,7 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            outboxRepository.save(outboxEvent);
+            outboxRepository.insert(outboxEvent);
             log.info("Outbox event saved: {} for order: {}", eventType, orderId);
         } catch (Exception e) {
             log.error("Error saving outbox event", e);
@@ -0,0 +1,112 @@
+package com.serendibmall.order_service;
+
+import com.serendibmall.order.v1.OrderResponse;
+import com.serendibmall.order_service.service.OrderStatusRegistry;
+import com.serendibmall.order_service.service.OrderStatusRegistry.Subscription;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drives one WatchOrder call: sends the order as loaded, then each new status pushed
+ * by {@link OrderStatusRegistry}, and completes once the order reaches a final status.
+ * It subscribes before the order is loaded, so a change committed in between is
+ * held back and sent right after the loaded state.
+ * <p>
+ * Statuses only move forward: PENDING, then PAYMENT_PENDING, then a final one. The
+ * registry delivers each change twice and the copy read back from order.events can
+ * arrive after a later change, so a status not ahead of the one last sent is dropped.
+ */
+@Slf4j
+class OrderWatchStream {
+
+    static final Set<String> FINAL_STATUSES = Set.of("CONFIRMED", "REJECTED", "CANCELLED");
+
+    private static final Map<String, Integer> STATUS_RANK = Map.of("PENDING", 0, "PAYMENT_PENDING", 1);
+    private static final int FINAL_RANK = 2;
+
+    private final ServerCallStreamObserver<OrderResponse> observer;
+    private final String orderId;
+    private Subscription subscription;
+    private OrderResponse current;
+    private String pendingStatus;
+    private boolean finished;
+
+    OrderWatchStream(ServerCallStreamObserver<OrderResponse> observer, String orderId) {
+        this.observer = observer;
+        this.orderId = orderId;
+    }
+
+    void subscribe(OrderStatusRegistry statusRegistry) {
+        observer.setOnCancelHandler(this::cancel);
+        subscription = statusRegistry.subscribe(orderId, this::onStatus);
+    }
+
+    /**
+     * Sends the order as loaded, followed by any status that arrived while loading.
+     */
+    synchronized void start(OrderResponse order) {
+        if (finished) {
+            return;
+        }
+        send(order);
+        if (pendingStatus != null) {
+            onStatus(pendingStatus);
+        }
+    }
+
+    synchronized void fail(Throwable error) {
+        if (finished) {
+            return;
+        }
+        finish();
+        observer.onError(error);
+    }
+
+    private synchronized void onStatus(String status) {
+        if (finished) {
+            return;
+        }
+        if (current == null) {
+            if (pendingStatus == null || rank(status) > rank(pendingStatus)) {
+                pendingStatus = status;
+            }
+            return;
+        }
+        if (rank(status) > rank(current.getStatus())) {
+            send(current.toBuilder().setStatus(status).build());
+        }
+    }
+
+    private static int rank(String status) {
+        return STATUS_RANK.getOrDefault(status, FINAL_RANK);
+    }
+
+    private void send(OrderResponse order) {
+        current = order;
+        try {
+            observer.onNext(order);
+            if (FINAL_STATUSES.contains(order.getStatus())) {
+                finish();
+                observer.onCompleted();
+            }
+        } catch (Exception e) {
+            // Cancelled under us; the cancel handler cleans up
+            log.debug("Could not send status of order {}: {}", orderId, e.getMessage());
+            finish();
+        }
+    }
+
+    private synchronized void cancel() {
+        finish();
+    }
+
+    private void finish() {
+        finished = true;
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package com.serendibmall.order_service.entity;
 
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Keyset pagination of a user's orders, newest first (see ListOrdersByUser)
+@Table(name = "orders",
+        indexes = @Index(name = "idx_orders_user_id_created_at", columnList = "user_id, created_at, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -19,9 +30,29 @@ import java.time.LocalDateTime;
 public class Order {
     @Id
     private String id;
+    // First line, kept for readers of the single-product columns
     private String productId;
     private String userId;
     private Integer quantity;
     private String status;
     private LocalDateTime createdAt;
+
+    // Every saga step needs the lines, so they load with the order; a page of orders
+    // loads its lines in one query
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "order_lines", joinColumns = @JoinColumn(name = "order_id"))
+    @OrderColumn(name = "line_number")
+    @BatchSize(size = 100)
+    @Builder.Default
+    private List<OrderLine> lines = new ArrayList<>();
+
+    /**
+     * The order's lines; an order placed before orders had lines is its one product.
+     */
+    public List<OrderLine> effectiveLines() {
+        if (lines != null && !lines.isEmpty()) {
+            return lines;
+        }
+        return productId != null ? List.of(new OrderLine(productId, quantity)) : List.of();
+    }
 }
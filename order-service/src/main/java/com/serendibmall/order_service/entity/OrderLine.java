@@ -0,0 +1,15 @@
+package com.serendibmall.order_service.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+    private String productId;
+    private Integer quantity;
+}
@@ -1,11 +1,14 @@
 package com.serendibmall.order_service.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serendibmall.order_service.entity.Order;
 import com.serendibmall.order_service.entity.OrderOutbox;
 import com.serendibmall.order_service.repository.OrderOutboxRepository;
 import com.serendibmall.order_service.repository.OrderRepository;
+import com.serendibmall.order_service.service.OrderStatusRegistry;
+import com.serendibmall.saga_events.InventoryEvent;
+import com.serendibmall.saga_events.PaymentEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -26,21 +29,18 @@ public class OrderSagaListener {
     private final OrderRepository orderRepository;
     private final OrderOutboxRepository outboxRepository;
     private final ObjectMapper objectMapper;
+    private final OrderStatusRegistry statusRegistry;
 
     @KafkaListener(topics = "inventory.events", groupId = "order-service-saga")
     @Transactional
     public void handleInventoryOutboxEvent(String message) {
         try {
-            log.info("Received inventory event: {}", message);
-            
-            // SMT has already extracted the payload - check for double serialization
-            JsonNode payload = objectMapper.readTree(message);
-            if (payload.isTextual()) {
-                payload = objectMapper.readTree(payload.asText());
-            }
+            log.debug("Received inventory event: {}", message);
 
-            String eventType = payload.get("type").asText();
-            String orderId = payload.get("orderId").asText();
+            // SMT has already extracted the payload; the codec also handles double serialization
+            InventoryEvent event = SagaEventCodec.decodeInventoryEvent(message);
+            String eventType = event.type();
+            String orderId = event.orderId();
 
             log.info("Processing inventory event: {} for order: {}", eventType, orderId);
 
@@ -55,11 +55,13 @@ public class OrderSagaListener {
             if ("InventoryReservedEvent".equals(eventType)) {
                 order.setStatus("PAYMENT_PENDING");
                 orderRepository.save(order);
+                statusRegistry.publishAfterCommit(orderId, order.getStatus());
                 saveOutboxEvent("OrderPaymentPendingEvent", order);
                 log.info("Order set to PAYMENT_PENDING: {}", orderId);
             } else if ("InventoryFailedEvent".equals(eventType)) {
                 order.setStatus("REJECTED");
                 orderRepository.save(order);
+                statusRegistry.publishAfterCommit(orderId, order.getStatus());
                 saveOutboxEvent("OrderRejectedEvent", order);
                 log.info("Order rejected: {}", orderId);
             }
@@ -74,13 +76,10 @@ public class OrderSagaListener {
     @Transactional
     public void handlePaymentEvent(String message) {
         try {
-            log.info("Received payment event: {}", message);
-            JsonNode event = objectMapper.readTree(message);
-            if (event.isTextual()) {
-                event = objectMapper.readTree(event.asText());
-            }
+            log.debug("Received payment event: {}", message);
+            PaymentEvent event = SagaEventCodec.decodePaymentEvent(message);
 
-            String orderId = event.has("orderId") ? event.get("orderId").asText() : null;
+            String orderId = event.orderId();
             if (orderId == null) {
                 log.warn("Payment event missing orderId");
                 return;
@@ -95,16 +94,18 @@ public class OrderSagaListener {
             Order order = orderOptional.get();
 
             // Check if this is a success or failure event based on presence of transactionId
-            if (event.has("transactionId")) {
+            if (event.isProcessed()) {
                 // PaymentProcessedEvent - payment successful
                 order.setStatus("CONFIRMED");
                 orderRepository.save(order);
+                statusRegistry.publishAfterCommit(orderId, order.getStatus());
                 saveOutboxEvent("OrderConfirmedEvent", order);
                 log.info("Order confirmed after payment: {}", orderId);
-            } else if (event.has("reason")) {
+            } else if (event.isFailed()) {
                 // PaymentFailedEvent - payment failed
                 order.setStatus("CANCELLED");
                 orderRepository.save(order);
+                statusRegistry.publishAfterCommit(orderId, order.getStatus());
                 saveOutboxEvent("OrderCancelledEvent", order);
                 log.info("Order cancelled due to payment failure: {}", orderId);
             }
@@ -124,6 +125,7 @@ public class OrderSagaListener {
             payloadMap.put("userId", order.getUserId());
             payloadMap.put("quantity", order.getQuantity());
             payloadMap.put("status", order.getStatus());
+            payloadMap.put("lines", order.effectiveLines());
 
             String payloadJson = objectMapper.writeValueAsString(payloadMap);
 
@@ -136,7 +138,7 @@ public class OrderSagaListener {
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            outboxRepository.save(outboxEvent);
+            outboxRepository.insert(outboxEvent);
             log.info("Outbox event saved: {} for order: {}", eventType, order.getId());
         } catch (Exception e) {
             log.error("Error saving outbox event", e);
@@ -0,0 +1,37 @@
+package com.serendibmall.order_service.listener;
+
+import com.serendibmall.order_service.service.OrderStatusRegistry;
+import com.serendibmall.saga_events.OrderEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds order status changes from order.events to this instance's WatchOrder
+ * streams, so a watcher sees changes made by the saga listener on any instance.
+ * Each instance reads the topic in a group of its own, from the latest offset: only
+ * changes from now on matter to live watchers.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderStatusWatchListener {
+
+    private final OrderStatusRegistry statusRegistry;
+
+    @KafkaListener(topics = "order.events", groupId = "order-service-watch-${HOSTNAME:local}",
+            properties = "auto.offset.reset=latest")
+    public void handleOrderEvent(String message) {
+        try {
+            OrderEvent event = SagaEventCodec.decodeOrderEvent(message);
+            if (event.orderId() != null && event.status() != null) {
+                statusRegistry.publish(event.orderId(), event.status());
+            }
+        } catch (Exception e) {
+            // Watchers only; never worth a retry
+            log.debug("Skipping unreadable order event: {}", e.getMessage());
+        }
+    }
+}
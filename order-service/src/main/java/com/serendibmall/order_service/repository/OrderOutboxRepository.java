@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, String> {
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, String>, OrderOutboxRepositoryCustom {
 }
@@ -0,0 +1,12 @@
+package com.serendibmall.order_service.repository;
+
+import com.serendibmall.order_service.entity.OrderOutbox;
+
+public interface OrderOutboxRepositoryCustom {
+
+    /**
+     * Inserts an outbox row with a plain JDBC INSERT, skipping the merge lookup that
+     * {@code save} does for entities with assigned ids. Timed as {@code outbox.insert}.
+     */
+    void insert(OrderOutbox event);
+}
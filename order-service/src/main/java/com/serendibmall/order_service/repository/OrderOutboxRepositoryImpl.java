@@ -0,0 +1,35 @@
+package com.serendibmall.order_service.repository;
+
+import com.serendibmall.order_service.entity.OrderOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+public class OrderOutboxRepositoryImpl implements OrderOutboxRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO order_outbox (id, aggregate_type, aggregate_id, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer insertTimer;
+
+    public OrderOutboxRepositoryImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertTimer = meterRegistry.timer("outbox.insert", "table", "order_outbox");
+    }
+
+    @Override
+    public void insert(OrderOutbox event) {
+        insertTimer.record(() -> jdbcTemplate.update(INSERT_SQL,
+                event.getId(),
+                event.getAggregateType(),
+                event.getAggregateId(),
+                event.getEventType(),
+                event.getPayload(),
+                Timestamp.valueOf(event.getCreatedAt())));
+    }
+}
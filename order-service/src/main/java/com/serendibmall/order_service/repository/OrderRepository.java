@@ -1,9 +1,29 @@
 package com.serendibmall.order_service.repository;
 
 import com.serendibmall.order_service.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
+
+    List<Order> findByUserIdOrderByCreatedAtDescIdDesc(String userId, Limit limit);
+
+    /**
+     * The user's orders after the given one in (created_at, id) descending order;
+     * a range scan on idx_orders_user_id_created_at.
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserIdBefore(@Param("userId") String userId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") String id,
+                                   Limit limit);
 }
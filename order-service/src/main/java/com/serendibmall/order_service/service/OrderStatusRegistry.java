@@ -0,0 +1,89 @@
+package com.serendibmall.order_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory registry of WatchOrder subscriptions, keyed by order id.
+ * <p>
+ * Status changes arrive from two places: {@link #publishAfterCommit} when this
+ * instance's saga listener moves an order, and {@code OrderStatusWatchListener} for
+ * changes made by any instance, read back from order.events. Watchers therefore see
+ * the same change twice and must ignore repeats. Publishing to an order nobody
+ * watches is a single map lookup.
+ * <p>
+ * Metric: {@code orders.watch.subscribers}.
+ */
+@Component
+@Slf4j
+public class OrderStatusRegistry {
+
+    private final Map<String, Set<Consumer<String>>> watchers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public OrderStatusRegistry(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("orders.watch.subscribers", subscriberCount);
+    }
+
+    /**
+     * Calls {@code listener} with the new status on every change to the order until the
+     * returned subscription is closed.
+     */
+    public Subscription subscribe(String orderId, Consumer<String> listener) {
+        watchers.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(listener);
+        subscriberCount.incrementAndGet();
+        return () -> {
+            watchers.computeIfPresent(orderId, (id, listeners) -> {
+                if (listeners.remove(listener)) {
+                    subscriberCount.decrementAndGet();
+                }
+                return listeners.isEmpty() ? null : listeners;
+            });
+        };
+    }
+
+    public void publish(String orderId, String status) {
+        Set<Consumer<String>> listeners = watchers.get(orderId);
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(status);
+            } catch (Exception e) {
+                log.warn("Order watcher for {} failed: {}", orderId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publishes once the current transaction commits, so watchers never see a status
+     * that is rolled back; publishes at once outside a transaction.
+     */
+    public void publishAfterCommit(String orderId, String status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(orderId, status);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(orderId, status);
+            }
+        });
+    }
+
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
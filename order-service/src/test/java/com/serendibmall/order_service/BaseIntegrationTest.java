@@ -6,28 +6,36 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.KafkaContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.lifecycle.Startables;
 import org.testcontainers.utility.DockerImageName;
 
+/**
+ * Containers are started once per JVM and shared by every test class, like the cached
+ * Spring context that points at them. Ryuk removes them when the JVM exits.
+ */
 @SpringBootTest
-@Testcontainers
 public abstract class BaseIntegrationTest {
 
-    @Container
     @ServiceConnection
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
             DockerImageName.parse("postgres:16-alpine"))
             .withDatabaseName("order_db")
             .withUsername("postgres")
-            .withPassword("password");
+            .withPassword("password")
+            // Logical replication slots, as Debezium uses them
+            .withCommand("postgres", "-c", "wal_level=logical");
 
-    @Container
     static KafkaContainer kafka = new KafkaContainer(
             DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
 
+    static {
+        Startables.deepStart(postgres, kafka).join();
+    }
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
+        // Contexts cached with different properties are alive together, so each needs its own port
+        registry.add("spring.grpc.server.port", () -> 0);
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
     }
 }
@@ -0,0 +1,118 @@
+package com.serendibmall.order_service;
+
+import com.serendibmall.order.v1.CreateOrderRequest;
+import com.serendibmall.order.v1.CreateOrderResponse;
+import com.serendibmall.order.v1.GetOrderRequest;
+import com.serendibmall.order.v1.ListOrdersByUserRequest;
+import com.serendibmall.order.v1.ListOrdersByUserResponse;
+import com.serendibmall.order.v1.OrderLine;
+import com.serendibmall.order.v1.OrderResponse;
+import com.serendibmall.order_service.entity.Order;
+import com.serendibmall.order_service.repository.OrderRepository;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderGrpcServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderGrpcService orderGrpcService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void listsOrdersNewestFirstAcrossPages() {
+        String userId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = orderRepository.save(order(userId, now.minusMinutes(i)));
+            expected.add(order.getId());
+        }
+        // Same created_at as the newest, so the id breaks the tie
+        Order twin = orderRepository.save(order(userId, now));
+        orderRepository.save(order(UUID.randomUUID().toString(), now));
+
+        List<String> listed = new ArrayList<>();
+        String pageToken = "";
+        int pages = 0;
+        do {
+            RecordingStreamObserver<ListOrdersByUserResponse> observer = new RecordingStreamObserver<>();
+            orderGrpcService.listOrdersByUser(ListOrdersByUserRequest.newBuilder()
+                    .setUserId(userId)
+                    .setPageSize(2)
+                    .setPageToken(pageToken)
+                    .build(), observer);
+            ListOrdersByUserResponse page = observer.single();
+            page.getOrdersList().forEach(order -> listed.add(order.getOrderId()));
+            pageToken = page.getNextPageToken();
+            pages++;
+        } while (!pageToken.isEmpty());
+
+        assertEquals(3, pages);
+        assertEquals(6, listed.size());
+        assertTrue(listed.subList(0, 2).containsAll(List.of(expected.get(0), twin.getId())));
+        assertEquals(expected.subList(1, 5), listed.subList(2, 6));
+    }
+
+    @Test
+    void getOrderReturnsNotFoundForUnknownId() {
+        Order saved = orderRepository.save(order("user-1", LocalDateTime.now()));
+        RecordingStreamObserver<OrderResponse> found = new RecordingStreamObserver<>();
+        orderGrpcService.getOrder(GetOrderRequest.newBuilder().setOrderId(saved.getId()).build(), found);
+        assertEquals("PENDING", found.single().getStatus());
+
+        RecordingStreamObserver<OrderResponse> missing = new RecordingStreamObserver<>();
+        orderGrpcService.getOrder(GetOrderRequest.newBuilder().setOrderId("missing").build(), missing);
+        assertEquals(Status.Code.NOT_FOUND, Status.fromThrowable(missing.error()).getCode());
+    }
+
+    @Test
+    void createsOneOrderForAllLines() {
+        RecordingStreamObserver<CreateOrderResponse> created = new RecordingStreamObserver<>();
+        orderGrpcService.createOrder(CreateOrderRequest.newBuilder()
+                .setUserId("user-2")
+                .addLines(line("product-1", 2))
+                .addLines(line("product-2", 1))
+                .addLines(line("product-1", 3))
+                .build(), created);
+
+        RecordingStreamObserver<OrderResponse> fetched = new RecordingStreamObserver<>();
+        orderGrpcService.getOrder(GetOrderRequest.newBuilder().setOrderId(created.single().getOrderId()).build(), fetched);
+        OrderResponse order = fetched.single();
+        assertEquals(List.of(line("product-1", 5), line("product-2", 1)), order.getLinesList());
+        assertEquals("product-1", order.getProductId());
+        assertEquals(5, order.getQuantity());
+
+        RecordingStreamObserver<CreateOrderResponse> invalid = new RecordingStreamObserver<>();
+        orderGrpcService.createOrder(CreateOrderRequest.newBuilder()
+                .setUserId("user-2")
+                .addLines(line("product-1", 0))
+                .build(), invalid);
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(invalid.error()).getCode());
+    }
+
+    private static OrderLine line(String productId, int quantity) {
+        return OrderLine.newBuilder().setProductId(productId).setQuantity(quantity).build();
+    }
+
+    private static Order order(String userId, LocalDateTime createdAt) {
+        return Order.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .productId("product-1")
+                .quantity(1)
+                .status("PENDING")
+                .createdAt(createdAt)
+                .build();
+    }
+}
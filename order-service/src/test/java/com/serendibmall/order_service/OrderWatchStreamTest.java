@@ -0,0 +1,118 @@
+package com.serendibmall.order_service;
+
+import com.serendibmall.order.v1.OrderResponse;
+import com.serendibmall.order_service.service.OrderStatusRegistry;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderWatchStreamTest {
+
+    private final OrderStatusRegistry statusRegistry = new OrderStatusRegistry(new SimpleMeterRegistry());
+    private final RecordingServerCallObserver observer = new RecordingServerCallObserver();
+
+    @Test
+    void dropsStatusesArrivingOutOfOrder() {
+        OrderWatchStream stream = watch("o-1");
+        stream.start(order("o-1", "PENDING"));
+
+        statusRegistry.publish("o-1", "PAYMENT_PENDING");
+        // The copy of the first change read back from order.events, after the second
+        statusRegistry.publish("o-1", "PENDING");
+        statusRegistry.publish("o-1", "PAYMENT_PENDING");
+        statusRegistry.publish("o-1", "CONFIRMED");
+        statusRegistry.publish("o-1", "PAYMENT_PENDING");
+
+        assertThat(observer.statuses()).containsExactly("PENDING", "PAYMENT_PENDING", "CONFIRMED");
+        assertThat(observer.completed).isTrue();
+    }
+
+    @Test
+    void keepsTheNewestStatusArrivingWhileLoading() {
+        OrderWatchStream stream = watch("o-2");
+
+        statusRegistry.publish("o-2", "PAYMENT_PENDING");
+        statusRegistry.publish("o-2", "PENDING");
+        stream.start(order("o-2", "PENDING"));
+
+        assertThat(observer.statuses()).containsExactly("PENDING", "PAYMENT_PENDING");
+        assertThat(observer.completed).isFalse();
+    }
+
+    private OrderWatchStream watch(String orderId) {
+        OrderWatchStream stream = new OrderWatchStream(observer, orderId);
+        stream.subscribe(statusRegistry);
+        return stream;
+    }
+
+    private static OrderResponse order(String orderId, String status) {
+        return OrderResponse.newBuilder().setOrderId(orderId).setStatus(status).build();
+    }
+
+    /**
+     * The call side of a WatchOrder stream, recording what is sent on it.
+     */
+    static class RecordingServerCallObserver extends ServerCallStreamObserver<OrderResponse> {
+
+        private final List<OrderResponse> values = new ArrayList<>();
+        private boolean completed;
+
+        List<String> statuses() {
+            return values.stream().map(OrderResponse::getStatus).toList();
+        }
+
+        @Override
+        public void onNext(OrderResponse value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new AssertionError("Stream failed", t);
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.serendibmall.order_service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serendibmall.outbox_relay.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end delay and throughput of order_outbox rows reaching Kafka through the
+ * Debezium connector versus the in-process {@link OutboxRelay}. Rows are inserted one
+ * per transaction, as the saga does, and the delay is taken from insert to consume.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class OutboxRelayBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelayBenchmark.class);
+
+    private static final int EVENTS = 5_000;
+    private static final Duration CONSUME_TIMEOUT = Duration.ofMinutes(3);
+
+    private static final Network network = Network.newNetwork();
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgres:16-alpine"))
+            .withDatabaseName("order_db")
+            .withUsername("postgres")
+            .withPassword("password")
+            .withNetwork(network)
+            .withNetworkAliases("postgres")
+            .withCommand("postgres", "-c", "wal_level=logical");
+
+    private static final KafkaContainer kafka = new KafkaContainer(
+            DockerImageName.parse("confluentinc/cp-kafka:7.5.0"))
+            .withNetwork(network)
+            .withNetworkAliases("kafka");
+
+    private static final GenericContainer<?> connect = new GenericContainer<>(
+            DockerImageName.parse("quay.io/debezium/connect:2.5"))
+            .withNetwork(network)
+            .withExposedPorts(8083)
+            .withEnv("BOOTSTRAP_SERVERS", "kafka:9092")
+            .withEnv("GROUP_ID", "benchmark")
+            .withEnv("CONFIG_STORAGE_TOPIC", "connect_configs")
+            .withEnv("OFFSET_STORAGE_TOPIC", "connect_offsets")
+            .withEnv("STATUS_STORAGE_TOPIC", "connect_status")
+            .waitingFor(Wait.forHttp("/").forStatusCode(200).withStartupTimeout(Duration.ofMinutes(2)))
+            .dependsOn(postgres, kafka);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        connect.start();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // As in infra/postgres/init.sql
+        jdbcTemplate.execute("""
+                CREATE TABLE order_outbox (
+                    id VARCHAR(255) NOT NULL,
+                    aggregate_type VARCHAR(255) NOT NULL,
+                    aggregate_id VARCHAR(255) NOT NULL,
+                    event_type VARCHAR(255) NOT NULL,
+                    payload TEXT NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                    PRIMARY KEY (id, created_at)
+                ) PARTITION BY RANGE (created_at)""");
+        jdbcTemplate.execute("CREATE TABLE order_outbox_default PARTITION OF order_outbox DEFAULT");
+        jdbcTemplate.execute("CREATE PUBLICATION dbz_publication FOR TABLE order_outbox "
+                + "WITH (publish_via_partition_root = true)");
+    }
+
+    @AfterAll
+    static void stop() {
+        connect.stop();
+        kafka.stop();
+        postgres.stop();
+        network.close();
+    }
+
+    @Test
+    void debeziumVersusRelay() throws Exception {
+        registerConnector("bench.cdc");
+        Result cdc = run("bench.cdc");
+        deleteConnector();
+        jdbcTemplate.execute("TRUNCATE order_outbox");
+
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all")));
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                kafkaTemplate, new SimpleMeterRegistry(), new OutboxRelay.Settings("order_outbox", "bench.relay",
+                500, 2, Duration.ofMillis(50), Duration.ofSeconds(10), Duration.ofSeconds(1)));
+        relay.start();
+        Result relayed;
+        try {
+            relayed = run("bench.relay");
+        } finally {
+            relay.stop();
+        }
+
+        log.info("events={} debezium: {}", EVENTS, cdc);
+        log.info("events={} relay:    {}", EVENTS, relayed);
+    }
+
+    private Result run(String topic) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers()))) {
+            admin.createTopics(List.of(new NewTopic(topic, 1, (short) 1))).all().get();
+        }
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class))) {
+            // Assigned rather than subscribed, so no group join falls into the measurement
+            TopicPartition partition = new TopicPartition(topic, 0);
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            consumer.position(partition);
+
+            Thread writer = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < EVENTS; i++) {
+                    String orderId = UUID.randomUUID().toString();
+                    String payload = "{\"type\":\"OrderCreatedEvent\",\"orderId\":\"" + orderId
+                            + "\",\"insertedAtMillis\":" + System.currentTimeMillis() + "}";
+                    jdbcTemplate.update("INSERT INTO order_outbox (id, aggregate_type, aggregate_id, event_type, "
+                                    + "payload, created_at) VALUES (?, 'Order', ?, 'OrderCreatedEvent', ?, ?)",
+                            UUID.randomUUID().toString(), orderId, payload, Timestamp.valueOf(LocalDateTime.now()));
+                }
+            });
+            long startMillis = System.currentTimeMillis();
+
+            List<Long> delays = new ArrayList<>(EVENTS);
+            long deadline = startMillis + CONSUME_TIMEOUT.toMillis();
+            while (delays.size() < EVENTS && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                    delays.add(System.currentTimeMillis() - insertedAtMillis(record.value()));
+                }
+            }
+            long elapsedMillis = System.currentTimeMillis() - startMillis;
+            writer.join();
+
+            assertEquals(EVENTS, delays.size(), "events consumed from " + topic);
+            Collections.sort(delays);
+            return new Result(EVENTS * 1000.0 / elapsedMillis, delays.get(delays.size() / 2),
+                    delays.get(delays.size() * 99 / 100), delays.get(delays.size() - 1));
+        }
+    }
+
+    private static long insertedAtMillis(String value) throws Exception {
+        JsonNode payload = objectMapper.readTree(value);
+        // The connector emits the TEXT payload as a JSON string
+        if (payload.isTextual()) {
+            payload = objectMapper.readTree(payload.asText());
+        }
+        return payload.get("insertedAtMillis").asLong();
+    }
+
+    private static void registerConnector(String topic) throws Exception {
+        // Same settings as infra/debezium/register-order-connector.sh, routed to the benchmark topic
+        String config = """
+                {
+                  "name": "benchmark-outbox",
+                  "config": {
+                    "connector.class": "io.debezium.connector.postgresql.PostgresConnector",
+                    "database.hostname": "postgres",
+                    "database.port": "5432",
+                    "database.user": "postgres",
+                    "database.password": "password",
+                    "database.dbname": "order_db",
+                    "topic.prefix": "benchmark",
+                    "table.include.list": "public.order_outbox",
+                    "plugin.name": "pgoutput",
+                    "publication.name": "dbz_publication",
+                    "publication.autocreate.mode": "disabled",
+                    "slot.name": "benchmark_slot",
+                    "snapshot.mode": "never",
+                    "key.converter": "org.apache.kafka.connect.json.JsonConverter",
+                    "value.converter": "org.apache.kafka.connect.json.JsonConverter",
+                    "key.converter.schemas.enable": "false",
+                    "value.converter.schemas.enable": "false",
+                    "transforms": "outbox",
+                    "transforms.outbox.type": "io.debezium.transforms.outbox.EventRouter",
+                    "transforms.outbox.table.field.event.key": "aggregate_id",
+                    "transforms.outbox.table.field.event.type": "event_type",
+                    "transforms.outbox.table.field.event.payload": "payload",
+                    "transforms.outbox.route.by.field": "aggregate_type",
+                    "transforms.outbox.route.topic.replacement": "%s"
+                  }
+                }""".formatted(topic);
+        send(HttpRequest.newBuilder(connectUri("/connectors"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(config))
+                .build());
+
+        // Streaming starts once the task runs and the slot exists
+        long deadline = System.currentTimeMillis() + Duration.ofMinutes(1).toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            JsonNode tasks = objectMapper.readTree(send(HttpRequest.newBuilder(
+                    connectUri("/connectors/benchmark-outbox/status")).build())).path("tasks");
+            Integer slots = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_replication_slots WHERE slot_name = 'benchmark_slot' AND active",
+                    Integer.class);
+            if ("RUNNING".equals(tasks.path(0).path("state").asText()) && slots != null && slots == 1) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Debezium connector did not start");
+    }
+
+    private static void deleteConnector() throws Exception {
+        send(HttpRequest.newBuilder(connectUri("/connectors/benchmark-outbox")).DELETE().build());
+    }
+
+    private static String send(HttpRequest request) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        }
+    }
+
+    private static URI connectUri(String path) {
+        return URI.create("http://" + connect.getHost() + ":" + connect.getMappedPort(8083) + path);
+    }
+
+    private record Result(double eventsPerSecond, long p50Millis, long p99Millis, long maxMillis) {
+        @Override
+        public String toString() {
+            return String.format("%.0f events/s, delay p50=%d ms p99=%d ms max=%d ms",
+                    eventsPerSecond, p50Millis, p99Millis, maxMillis);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.serendibmall.order_service;
+
+import com.serendibmall.outbox_relay.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link OutboxRelay} against a table and topic of its own, so the service's relay
+ * settings and saga listeners stay out of the way.
+ */
+class OutboxRelayTest extends BaseIntegrationTest {
+
+    private static final String TABLE = "relay_test_outbox";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProducerFactory<String, String> producerFactory;
+
+    private final String topic = "relay-test-" + UUID.randomUUID();
+    private final List<OutboxRelay> relays = new ArrayList<>();
+
+    @BeforeEach
+    void createOutbox() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("""
+                CREATE TABLE relay_test_outbox (
+                    id VARCHAR(255) NOT NULL,
+                    aggregate_type VARCHAR(255) NOT NULL,
+                    aggregate_id VARCHAR(255) NOT NULL,
+                    event_type VARCHAR(255) NOT NULL,
+                    payload TEXT NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                    PRIMARY KEY (id, created_at)
+                )""");
+    }
+
+    @AfterEach
+    void stopRelays() {
+        relays.forEach(OutboxRelay::stop);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+    }
+
+    @Test
+    void deletesRowsOnlyOnceKafkaHasAckedThem() throws Exception {
+        GatedKafkaTemplate kafkaTemplate = new GatedKafkaTemplate(producerFactory);
+        OutboxRelay relay = relay(kafkaTemplate, 10);
+        String id = insert();
+
+        CompletableFuture<Integer> batch = CompletableFuture.supplyAsync(relay::relayBatch);
+        assertThat(kafkaTemplate.sent.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(countRows()).isEqualTo(1);
+
+        kafkaTemplate.ack.complete(null);
+        assertThat(batch.get(30, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(countRows()).isZero();
+        assertThat(consumeIds(1)).containsExactly(id);
+    }
+
+    @Test
+    void failedSendRollsBackTheClaimAndTheRowsAreSentAgain() {
+        GatedKafkaTemplate kafkaTemplate = new GatedKafkaTemplate(producerFactory);
+        kafkaTemplate.ack.complete(null);
+        kafkaTemplate.failures.set(1);
+        OutboxRelay relay = relay(kafkaTemplate, 10);
+        String first = insert();
+        String second = insert();
+
+        assertThatThrownBy(relay::relayBatch).isInstanceOf(IllegalStateException.class);
+        assertThat(countRows()).isEqualTo(2);
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+        assertThat(countRows()).isZero();
+        // The send that succeeded before the rollback went again: at least once
+        assertThat(consumeIds(3)).hasSize(3).containsOnly(first, second);
+    }
+
+    @Test
+    void workersOnTwoInstancesNeverPublishARowTwice() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ids.add(insert());
+        }
+
+        for (int instance = 0; instance < 2; instance++) {
+            GatedKafkaTemplate kafkaTemplate = new GatedKafkaTemplate(producerFactory);
+            kafkaTemplate.ack.complete(null);
+            relay(kafkaTemplate, 20).start();
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (countRows() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertThat(countRows()).isZero();
+        assertThat(consumeIds(ids.size())).hasSize(ids.size()).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    private OutboxRelay relay(KafkaTemplate<String, String> kafkaTemplate, int batchSize) {
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, transactionManager, kafkaTemplate, new SimpleMeterRegistry(),
+                new OutboxRelay.Settings(TABLE, topic, batchSize, 2, Duration.ofMillis(20),
+                        Duration.ofSeconds(10), Duration.ofMillis(100)));
+        relays.add(relay);
+        return relay;
+    }
+
+    private String insert() {
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (id, aggregate_type, aggregate_id, event_type, payload) "
+                + "VALUES (?, 'Order', ?, 'OrderCreatedEvent', '{}')", id, id);
+        return id;
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + TABLE, Long.class);
+    }
+
+    /**
+     * The id headers on the topic, read until {@code expected} arrived and then a little
+     * longer, so duplicates would show.
+     */
+    private List<String> consumeIds(int expected) {
+        List<String> ids = new ArrayList<>();
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "relay-test-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class))) {
+            consumer.subscribe(List.of(topic));
+            long deadline = System.currentTimeMillis() + 30_000;
+            long quietUntil = Long.MAX_VALUE;
+            while (System.currentTimeMillis() < Math.min(deadline, quietUntil)) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                    ids.add(new String(record.headers().lastHeader("id").value(), StandardCharsets.UTF_8));
+                }
+                if (ids.size() >= expected && quietUntil == Long.MAX_VALUE) {
+                    quietUntil = System.currentTimeMillis() + 1_000;
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Sends for real, but completes each send only once {@link #ack} has, and fails the
+     * first {@link #failures} sends without reaching Kafka.
+     */
+    static class GatedKafkaTemplate extends KafkaTemplate<String, String> {
+
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CompletableFuture<Void> ack = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        GatedKafkaTemplate(ProducerFactory<String, String> producerFactory) {
+            super(producerFactory);
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, String>> send(ProducerRecord<String, String> record) {
+            sent.countDown();
+            if (failures.getAndDecrement() > 0) {
+                return CompletableFuture.failedFuture(new KafkaException("Simulated broker failure"));
+            }
+            return super.send(record).thenCombine(ack, (result, acked) -> result);
+        }
+    }
+}
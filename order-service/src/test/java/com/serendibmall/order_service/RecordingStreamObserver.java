@@ -0,0 +1,49 @@
+package com.serendibmall.order_service;
+
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects what a gRPC service method emits when it is called directly in a test.
+ */
+public class RecordingStreamObserver<T> implements StreamObserver<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onNext(T value) {
+        values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+    }
+
+    @Override
+    public void onCompleted() {
+        completed = true;
+    }
+
+    public T single() {
+        if (error != null) {
+            throw new AssertionError("Call failed", error);
+        }
+        if (!completed || values.size() != 1) {
+            throw new AssertionError("Expected one value and completion, got " + values.size());
+        }
+        return values.get(0);
+    }
+
+    public List<T> values() {
+        return values;
+    }
+
+    public Throwable error() {
+        return error;
+    }
+}
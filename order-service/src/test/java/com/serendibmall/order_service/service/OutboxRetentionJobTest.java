@@ -0,0 +1,129 @@
+package com.serendibmall.order_service.service;
+
+import com.serendibmall.order_service.BaseIntegrationTest;
+import com.serendibmall.outbox_relay.OutboxRetentionJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {
+        "outbox.retention.slot-name=outbox_retention_test",
+        "outbox.retention.days=3",
+        // Runs only when the test calls it
+        "outbox.retention.initial-delay-ms=3600000"
+})
+class OutboxRetentionJobTest extends BaseIntegrationTest {
+
+    private static final String SLOT = "outbox_retention_test";
+
+    @Autowired
+    private OutboxRetentionJob retentionJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private final String oldPartition = "order_outbox_p" + today.minusDays(10).format(DateTimeFormatter.BASIC_ISO_DATE);
+
+    @BeforeEach
+    void createSlot() {
+        jdbcTemplate.queryForObject("SELECT pg_create_logical_replication_slot(?, 'pgoutput')::text", String.class, SLOT);
+    }
+
+    @AfterEach
+    void dropSlot() {
+        jdbcTemplate.queryForObject("SELECT pg_drop_replication_slot(?)::text", String.class, SLOT);
+        // Leaves a plain table, as Hibernate creates it, for the other test classes
+        createOutbox("");
+    }
+
+    @Test
+    void dropsOldPartitionsOnlyOnceTheSlotHasReadThem() {
+        // Same layout as infra/postgres/init.sql
+        createOutbox(" PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("CREATE TABLE order_outbox_default PARTITION OF order_outbox DEFAULT");
+        jdbcTemplate.execute("CREATE TABLE " + oldPartition + " PARTITION OF order_outbox FOR VALUES FROM ('"
+                + today.minusDays(10) + "') TO ('" + today.minusDays(9) + "')");
+        insert(today.minusDays(10).atTime(12, 0));
+        insert(today.minusDays(10).atTime(13, 0));
+        // No partition for that day: lands in the default partition
+        insert(today.minusDays(20).atStartOfDay());
+
+        // First run creates today's and the coming partitions, then only records a cutoff
+        retentionJob.run();
+        assertTrue(tableExists("order_outbox_p" + today.format(DateTimeFormatter.BASIC_ISO_DATE)));
+        assertTrue(tableExists("order_outbox_p" + today.plusDays(3).format(DateTimeFormatter.BASIC_ISO_DATE)));
+        insert(LocalDateTime.now());
+
+        // The slot has not confirmed anything since it was created
+        retentionJob.run();
+        assertTrue(tableExists(oldPartition));
+        assertEquals(4, countRows());
+
+        jdbcTemplate.queryForObject("SELECT pg_replication_slot_advance(?, pg_current_wal_lsn())::text",
+                String.class, SLOT);
+        retentionJob.run();
+        assertFalse(tableExists(oldPartition));
+        assertEquals(1, countRows());
+        // The row outside every day partition was deleted from the default one
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM order_outbox_default", Long.class));
+    }
+
+    @Test
+    void trimsAPlainTableWithDeletes() {
+        // An outbox created before the tables were partitioned
+        createOutbox("");
+        insert(today.minusDays(10).atStartOfDay());
+        insert(today.minusDays(4).atTime(23, 59));
+        insert(today.minusDays(2).atStartOfDay());
+
+        retentionJob.run();
+        assertFalse(tableExists("order_outbox_p" + today.format(DateTimeFormatter.BASIC_ISO_DATE)));
+
+        jdbcTemplate.queryForObject("SELECT pg_replication_slot_advance(?, pg_current_wal_lsn())::text",
+                String.class, SLOT);
+        retentionJob.run();
+        assertEquals(1, countRows());
+    }
+
+    private void createOutbox(String partitioning) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS order_outbox CASCADE");
+        jdbcTemplate.execute("""
+                CREATE TABLE order_outbox (
+                    id VARCHAR(255) NOT NULL,
+                    aggregate_type VARCHAR(255) NOT NULL,
+                    aggregate_id VARCHAR(255) NOT NULL,
+                    event_type VARCHAR(255) NOT NULL,
+                    payload TEXT NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                    PRIMARY KEY (id, created_at)
+                )""" + partitioning);
+    }
+
+    private void insert(LocalDateTime createdAt) {
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO order_outbox (id, aggregate_type, aggregate_id, event_type, payload, created_at) "
+                + "VALUES (?, 'Order', ?, 'OrderCreatedEvent', '{}', ?)", id, id, Timestamp.valueOf(createdAt));
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM order_outbox", Long.class);
+    }
+}
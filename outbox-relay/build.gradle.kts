@@ -0,0 +1,29 @@
+plugins {
+	`java-library`
+}
+
+group = "com.serendibmall"
+version = "0.0.1-SNAPSHOT"
+description = "In-process outbox-to-Kafka relay shared by the saga services"
+
+java {
+	toolchain {
+		languageVersion = JavaLanguageVersion.of(21)
+	}
+}
+
+repositories {
+	mavenCentral()
+}
+
+// Keep in line with the Spring Boot version of the services
+val springBootVersion = "3.5.8"
+
+dependencies {
+	api(platform("org.springframework.boot:spring-boot-dependencies:$springBootVersion"))
+	api("org.springframework.boot:spring-boot-autoconfigure")
+	api("org.springframework:spring-jdbc")
+	api("org.springframework.kafka:spring-kafka")
+	api("io.micrometer:micrometer-core")
+	api("org.slf4j:slf4j-api")
+}
@@ -0,0 +1 @@
+rootProject.name = "outbox-relay"
@@ -0,0 +1,210 @@
+package com.serendibmall.outbox_relay;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a service's outbox table to Kafka from inside the service, in place of the
+ * Debezium connector.
+ * <p>
+ * Each worker claims the oldest rows with {@code FOR UPDATE SKIP LOCKED}, sends them
+ * and waits for the acks, then deletes them in the same transaction. Workers on any
+ * number of replicas skip each other's rows, so they need no coordination. A failed
+ * send rolls the claim back and the rows are sent again: delivery is at least once, as
+ * with the connector. Records look like the connector's outbox router output: key
+ * {@code aggregate_id}, value {@code payload}, and {@code id} and {@code event_type}
+ * headers.
+ * <p>
+ * Rows of one batch are sent in {@code created_at} order. Batches claimed by different
+ * workers may overlap in time, which is safe for saga events: the next event of an
+ * order is only written after the previous one was consumed, so it was published.
+ * <p>
+ * Metrics, tagged with the table: {@code outbox.relay.published},
+ * {@code outbox.relay.failures}, {@code outbox.relay.delay} (from {@code created_at}
+ * to the Kafka ack, per row) and {@code outbox.relay.lag} (age of the oldest row in
+ * the last claim, 0 when the table was empty).
+ */
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final Settings settings;
+    private final String claimSql;
+    private final String deleteSql;
+
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Timer delayTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry, Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.kafkaTemplate = kafkaTemplate;
+        this.settings = settings;
+        // Table name comes from configuration, never from input
+        this.claimSql = "SELECT id, aggregate_id, event_type, payload, created_at FROM " + settings.table()
+                + " ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED";
+        this.deleteSql = "DELETE FROM " + settings.table() + " WHERE id = ANY (?)";
+
+        String table = settings.table();
+        this.publishedCounter = meterRegistry.counter("outbox.relay.published", "table", table);
+        this.failureCounter = meterRegistry.counter("outbox.relay.failures", "table", table);
+        this.delayTimer = Timer.builder("outbox.relay.delay")
+                .tag("table", table)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", lagMillis, AtomicLong::get)
+                .tag("table", table)
+                .baseUnit(BaseUnits.MILLISECONDS)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims, publishes and deletes one batch. Returns the number of rows published.
+     */
+    public int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxRow> rows = jdbcTemplate.query(claimSql, (rs, rowNum) -> new OutboxRow(
+                    rs.getString("id"),
+                    rs.getString("aggregate_id"),
+                    rs.getString("event_type"),
+                    rs.getString("payload"),
+                    rs.getTimestamp("created_at").toLocalDateTime()), settings.batchSize());
+            if (rows.isEmpty()) {
+                lagMillis.set(0);
+                return 0;
+            }
+            lagMillis.set(Math.max(0, Duration.between(rows.get(0).createdAt(), LocalDateTime.now()).toMillis()));
+
+            List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(rows.size());
+            for (OutboxRow row : rows) {
+                sends.add(kafkaTemplate.send(toRecord(row)));
+            }
+            kafkaTemplate.flush();
+            try {
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                        .get(settings.sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Rolls back the claim; the rows are picked up again
+                throw new IllegalStateException("Could not publish " + rows.size() + " outbox rows to "
+                        + settings.topic(), e);
+            }
+
+            LocalDateTime ackedAt = LocalDateTime.now();
+            for (OutboxRow row : rows) {
+                delayTimer.record(Duration.between(row.createdAt(), ackedAt));
+            }
+            jdbcTemplate.update(deleteSql, ps -> {
+                Array ids = ps.getConnection().createArrayOf("varchar",
+                        rows.stream().map(OutboxRow::id).toArray());
+                ps.setArray(1, ids);
+            });
+            return rows.size();
+        });
+        int count = published != null ? published : 0;
+        publishedCounter.increment(count);
+        return count;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < settings.workers(); i++) {
+            workers.add(Thread.ofVirtual().name("outbox-relay-" + settings.table() + "-", i).start(this::poll));
+        }
+        log.info("Outbox relay started: {} -> {} with {} workers", settings.table(), settings.topic(), settings.workers());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(settings.sendTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                // A full batch means more is waiting: go again at once
+                if (relayBatch() < settings.batchSize()) {
+                    Thread.sleep(settings.pollInterval());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failureCounter.increment();
+                log.warn("Outbox relay for {} failed: {}", settings.table(), e.getMessage());
+                try {
+                    Thread.sleep(settings.retryBackoff());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private ProducerRecord<String, String> toRecord(OutboxRow row) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(settings.topic(), row.aggregateId(), row.payload());
+        record.headers().add("id", row.id().getBytes(StandardCharsets.UTF_8));
+        record.headers().add("event_type", row.eventType().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private record OutboxRow(String id, String aggregateId, String eventType, String payload,
+                             LocalDateTime createdAt) {}
+
+    /**
+     * Where and how fast to relay: the outbox table, the topic its rows go to, rows per
+     * claim, concurrent workers per instance, the sleep after a partial batch, the wait
+     * for Kafka acks and the sleep after a failure.
+     */
+    public record Settings(String table, String topic, int batchSize, int workers, Duration pollInterval,
+                           Duration sendTimeout, Duration retryBackoff) {}
+}
@@ -0,0 +1,38 @@
+package com.serendibmall.outbox_relay;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Publishes the service's {@code outbox.table} to {@code outbox.relay.topic}, switched
+ * on with {@code outbox.relay.enabled}. The Debezium connector for the table must not
+ * be registered at the same time, or every event is published twice.
+ */
+@Configuration
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+public class OutboxRelayConfig {
+
+    @Bean
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry,
+                                   @Value("${outbox.table}") String table,
+                                   @Value("${outbox.relay.topic}") String topic,
+                                   @Value("${outbox.relay.batch-size:500}") int batchSize,
+                                   @Value("${outbox.relay.workers:2}") int workers,
+                                   @Value("${outbox.relay.poll-interval-ms:50}") long pollIntervalMs,
+                                   @Value("${outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+                                   @Value("${outbox.relay.retry-backoff-ms:1000}") long retryBackoffMs) {
+        return new OutboxRelay(jdbcTemplate, transactionManager, kafkaTemplate, meterRegistry,
+                new OutboxRelay.Settings(table, topic, batchSize, workers,
+                        Duration.ofMillis(pollIntervalMs), Duration.ofMillis(sendTimeoutMs),
+                        Duration.ofMillis(retryBackoffMs)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.serendibmall.outbox_relay;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs {@link OutboxRetentionJob} on the service's {@code outbox.table}. The service
+ * must have scheduling enabled.
+ */
+@Configuration
+public class OutboxRetentionConfig {
+
+    @Bean
+    public OutboxRetentionJob outboxRetentionJob(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                                 @Value("${outbox.table}") String table,
+                                                 @Value("${outbox.retention.slot-name}") String slotName,
+                                                 @Value("${outbox.retention.days:3}") int retentionDays,
+                                                 @Value("${outbox.retention.premake-days:3}") int premakeDays,
+                                                 @Value("${outbox.relay.enabled:false}") boolean relayEnabled) {
+        return new OutboxRetentionJob(jdbcTemplate, meterRegistry,
+                new OutboxRetentionJob.Settings(table, slotName, retentionDays, premakeDays, relayEnabled));
+    }
+}
@@ -0,0 +1,237 @@
+package com.serendibmall.outbox_relay;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a service's outbox table from growing without bound.
+ * <p>
+ * The table is range-partitioned by day on {@code created_at} (see
+ * infra/postgres/init.sql). Each run creates the partitions for the coming
+ * {@code premake-days}, then removes rows older than {@code retention-days}: whole
+ * partitions are dropped, and the default partition is trimmed with a DELETE. A plain,
+ * unpartitioned table left from before is trimmed with batched DELETEs instead.
+ * <p>
+ * Nothing is removed until the Debezium slot has confirmed it read past it. A run
+ * records the cutoff together with the current WAL position; a later run purges up to
+ * that cutoff once the slot's {@code confirmed_flush_lsn} has passed the position. The
+ * first run after a start therefore only records. With several instances, an advisory
+ * lock lets one of them do the work.
+ * <p>
+ * With the in-process relay ({@code outbox.relay.enabled}) there is no slot: the relay
+ * deletes what it has published, so any row left is still pending. Only partitions
+ * that are already empty are dropped then, and nothing is deleted.
+ * <p>
+ * Metrics, tagged with the table: {@code outbox.size} (bytes), {@code outbox.rows}
+ * (estimated), {@code outbox.partitions} and {@code outbox.retention.purged} (by kind).
+ */
+public class OutboxRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRetentionJob.class);
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Settings settings;
+    // Table name comes from configuration, never from input
+    private final String table;
+    private final Pattern dayPartition;
+
+    private final AtomicLong sizeBytes = new AtomicLong();
+    private final AtomicLong estimatedRows = new AtomicLong();
+    private final AtomicLong partitions = new AtomicLong();
+    private final Counter droppedPartitions;
+    private final Counter deletedRows;
+
+    // Cutoff waiting for the slot to pass the WAL position recorded with it
+    private Checkpoint checkpoint;
+
+    public OutboxRetentionJob(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.table = settings.table();
+        this.dayPartition = Pattern.compile(Pattern.quote(table) + "_p(\\d{8})");
+        Gauge.builder("outbox.size", sizeBytes, AtomicLong::get)
+                .tag("table", table)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("outbox.rows", estimatedRows, AtomicLong::get)
+                .tag("table", table)
+                .register(meterRegistry);
+        Gauge.builder("outbox.partitions", partitions, AtomicLong::get)
+                .tag("table", table)
+                .register(meterRegistry);
+        this.droppedPartitions = meterRegistry.counter("outbox.retention.purged", "table", table, "kind", "partitions");
+        this.deletedRows = meterRegistry.counter("outbox.retention.purged", "table", table, "kind", "rows");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.retention.interval-ms:600000}",
+            initialDelayString = "${outbox.retention.initial-delay-ms:30000}")
+    public void run() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // Pinned to one connection for the session-level advisory lock
+                JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                if (!Boolean.TRUE.equals(session.queryForObject(
+                        "SELECT pg_try_advisory_lock(hashtext(?))", Boolean.class, table))) {
+                    log.debug("Outbox retention for {} is running elsewhere", table);
+                    return null;
+                }
+                try {
+                    // DDL on a partition briefly locks the parent; never queue behind inserts for long
+                    session.execute("SET lock_timeout = '5s'");
+                    runLocked(session);
+                } finally {
+                    session.execute("RESET lock_timeout");
+                    session.queryForObject("SELECT pg_advisory_unlock(hashtext(?))", Boolean.class, table);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Outbox retention for {} failed: {}", table, e.getMessage());
+        }
+    }
+
+    private void runLocked(JdbcTemplate session) {
+        Boolean partitioned = session.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)", Boolean.class, table);
+        if (partitioned == null) {
+            return;
+        }
+        if (partitioned) {
+            createPartitions(session);
+        }
+
+        if (checkpoint != null && slotHasPassed(session, checkpoint.walPosition())) {
+            purge(session, partitioned, checkpoint.cutoff());
+            checkpoint = null;
+        }
+        if (checkpoint == null) {
+            checkpoint = new Checkpoint(LocalDate.now().minusDays(settings.retentionDays()).atStartOfDay(),
+                    session.queryForObject("SELECT pg_current_wal_lsn()::text", String.class));
+        }
+
+        refreshMetrics(session);
+    }
+
+    private void createPartitions(JdbcTemplate session) {
+        session.execute("CREATE TABLE IF NOT EXISTS " + table + "_default PARTITION OF " + table + " DEFAULT");
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i <= settings.premakeDays(); i++) {
+            LocalDate day = today.plusDays(i);
+            try {
+                session.execute("CREATE TABLE IF NOT EXISTS " + table + "_p" + day.format(DAY)
+                        + " PARTITION OF " + table
+                        + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+            } catch (DataAccessException e) {
+                // The default partition already holds rows for that day; they stay there
+                log.warn("Could not create outbox partition for {}: {}", day, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether the replication slot has confirmed everything up to the given WAL position.
+     * Always true when no slot is configured or the relay publishes instead.
+     */
+    private boolean slotHasPassed(JdbcTemplate session, String walPosition) {
+        if (settings.slotName().isBlank() || settings.relayEnabled()) {
+            return true;
+        }
+        List<Boolean> passed = session.queryForList(
+                "SELECT confirmed_flush_lsn >= ?::pg_lsn FROM pg_replication_slots WHERE slot_name = ?",
+                Boolean.class, walPosition, settings.slotName());
+        if (passed.isEmpty()) {
+            log.warn("Replication slot {} not found; keeping all of {}", settings.slotName(), table);
+            return false;
+        }
+        return Boolean.TRUE.equals(passed.get(0));
+    }
+
+    private void purge(JdbcTemplate session, boolean partitioned, LocalDateTime cutoff) {
+        int dropped = 0;
+        long deleted = 0;
+        if (partitioned) {
+            List<String> names = session.queryForList(
+                    "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                            + "WHERE i.inhparent = to_regclass(?)", String.class, table);
+            for (String name : names) {
+                Matcher matcher = dayPartition.matcher(name);
+                if (matcher.matches()
+                        && !LocalDate.parse(matcher.group(1), DAY).plusDays(1).atStartOfDay().isAfter(cutoff)
+                        && (!settings.relayEnabled() || isEmpty(session, name))) {
+                    session.execute("DROP TABLE IF EXISTS " + name);
+                    dropped++;
+                }
+            }
+            if (!settings.relayEnabled()) {
+                deleted = deleteOlderThan(session, table + "_default", cutoff);
+            }
+        } else if (!settings.relayEnabled()) {
+            deleted = deleteOlderThan(session, table, cutoff);
+        }
+        droppedPartitions.increment(dropped);
+        deletedRows.increment(deleted);
+        if (dropped > 0 || deleted > 0) {
+            log.info("Purged {} before {}: {} partitions dropped, {} rows deleted", table, cutoff, dropped, deleted);
+        }
+    }
+
+    private static boolean isEmpty(JdbcTemplate session, String table) {
+        return Boolean.TRUE.equals(session.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM " + table + ")", Boolean.class));
+    }
+
+    private static long deleteOlderThan(JdbcTemplate session, String table, LocalDateTime cutoff) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = session.update("DELETE FROM " + table + " WHERE ctid IN (SELECT ctid FROM " + table
+                    + " WHERE created_at < ? LIMIT " + DELETE_BATCH_SIZE + ")", Timestamp.valueOf(cutoff));
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        return total;
+    }
+
+    private void refreshMetrics(JdbcTemplate session) {
+        session.query("SELECT count(*) FILTER (WHERE c.oid <> to_regclass(?)), "
+                        + "coalesce(sum(pg_total_relation_size(c.oid)), 0), "
+                        + "coalesce(sum(greatest(c.reltuples, 0)), 0)::bigint "
+                        + "FROM pg_class c WHERE c.oid = to_regclass(?) "
+                        + "OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass(?))",
+                rs -> {
+                    partitions.set(rs.getLong(1));
+                    sizeBytes.set(rs.getLong(2));
+                    estimatedRows.set(rs.getLong(3));
+                }, table, table, table);
+    }
+
+    private record Checkpoint(LocalDateTime cutoff, String walPosition) {}
+
+    /**
+     * The outbox table, the Debezium slot that reads it (blank for none), days of rows
+     * to keep, days of partitions to create ahead, and whether the in-process relay
+     * publishes the table instead of the slot.
+     */
+    public record Settings(String table, String slotName, int retentionDays, int premakeDays,
+                           boolean relayEnabled) {}
+}
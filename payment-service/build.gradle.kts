@@ -24,6 +24,19 @@ repositories {
 	mavenCentral()
 }
 
+sourceSets {
+    main {
+        java {
+            srcDir("../saga-events/src/main/java")
+            srcDir("saga-events/src/main/java")
+            srcDir("../outbox-relay/src/main/java")
+            srcDir("outbox-relay/src/main/java")
+            srcDir("../virtual-threads/src/jdbc/java")
+            srcDir("virtual-threads/src/jdbc/java")
+        }
+    }
+}
+
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-web")
@@ -1,9 +1,16 @@
 package com.serendibmall.payment_service;
 
+import com.serendibmall.outbox_relay.OutboxRelayConfig;
+import com.serendibmall.outbox_relay.OutboxRetentionConfig;
+import com.serendibmall.virtual_threads.VirtualThreadJdbcConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import({VirtualThreadJdbcConfig.class, OutboxRelayConfig.class, OutboxRetentionConfig.class})
+@EnableScheduling
 public class PaymentServiceApplication {
 
 	public static void main(String[] args) {
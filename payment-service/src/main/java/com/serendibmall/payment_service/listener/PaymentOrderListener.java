@@ -1,11 +1,12 @@
 package com.serendibmall.payment_service.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serendibmall.payment_service.entity.Payment;
 import com.serendibmall.payment_service.entity.PaymentOutbox;
 import com.serendibmall.payment_service.repository.PaymentOutboxRepository;
 import com.serendibmall.payment_service.repository.PaymentRepository;
+import com.serendibmall.saga_events.OrderEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -33,22 +34,17 @@ public class PaymentOrderListener {
     @Transactional
     public void handleOrderEvent(String message) {
         try {
-            log.info("Received order event: {}", message);
+            log.debug("Received order event: {}", message);
             
-            // SMT has already extracted the payload - check for double serialization
-            JsonNode payload = objectMapper.readTree(message);
-            if (payload.isTextual()) {
-                payload = objectMapper.readTree(payload.asText());
-            }
-
-            String eventType = payload.get("type").asText();
+            // SMT has already extracted the payload; the codec also handles double serialization
+            OrderEvent event = SagaEventCodec.decodeOrderEvent(message);
             
             // Only process OrderPaymentPendingEvent
-            if (!"OrderPaymentPendingEvent".equals(eventType)) {
+            if (!event.isType("OrderPaymentPendingEvent")) {
                 return;
             }
 
-            String orderId = payload.get("orderId").asText();
+            String orderId = event.orderId();
             
             // Idempotency check: Skip if payment already exists for this order
             if (paymentRepository.existsByOrderId(orderId)) {
@@ -98,7 +94,7 @@ public class PaymentOrderListener {
                     .createdAt(LocalDateTime.now())
                     .build();
             
-            outboxRepository.save(outboxEvent);
+            outboxRepository.insert(outboxEvent);
             
             if (paymentSuccessful) {
                 log.info("Payment successful for order: {}, transactionId: {}", orderId, transactionId);
@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PaymentOutboxRepository extends JpaRepository<PaymentOutbox, String> {
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutbox, String>, PaymentOutboxRepositoryCustom {
 }
@@ -0,0 +1,12 @@
+package com.serendibmall.payment_service.repository;
+
+import com.serendibmall.payment_service.entity.PaymentOutbox;
+
+public interface PaymentOutboxRepositoryCustom {
+
+    /**
+     * Inserts an outbox row with a plain JDBC INSERT, skipping the merge lookup that
+     * {@code save} does for entities with assigned ids. Timed as {@code outbox.insert}.
+     */
+    void insert(PaymentOutbox event);
+}
@@ -0,0 +1,35 @@
+package com.serendibmall.payment_service.repository;
+
+import com.serendibmall.payment_service.entity.PaymentOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+public class PaymentOutboxRepositoryImpl implements PaymentOutboxRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO payment_outbox (id, aggregate_type, aggregate_id, event_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer insertTimer;
+
+    public PaymentOutboxRepositoryImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertTimer = meterRegistry.timer("outbox.insert", "table", "payment_outbox");
+    }
+
+    @Override
+    public void insert(PaymentOutbox event) {
+        insertTimer.record(() -> jdbcTemplate.update(INSERT_SQL,
+                event.getId(),
+                event.getAggregateType(),
+                event.getAggregateId(),
+                event.getEventType(),
+                event.getPayload(),
+                Timestamp.valueOf(event.getCreatedAt())));
+    }
+}
@@ -1,71 +1,373 @@
 package com.serendibmall.product_command_service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serendibmall.product.v1.ChangeProductPriceRequest;
 import com.serendibmall.product.v1.CreateProductRequest;
 import com.serendibmall.product.v1.CreateProductResponse;
+import com.serendibmall.product.v1.CreateProductResult;
+import com.serendibmall.product.v1.CreateProductsRequest;
+import com.serendibmall.product.v1.CreateProductsResponse;
+import com.serendibmall.product.v1.DeleteProductRequest;
+import com.serendibmall.product.v1.DeleteProductResponse;
+import com.serendibmall.product.v1.ProductResponse;
 import com.serendibmall.product.v1.ProductServiceGrpc;
-import com.serendibmall.product_command_service.entity.ProductEventEntity;
-import com.serendibmall.product_command_service.repository.ProductEventRepository;
+import com.serendibmall.product.v1.StreamProductsRequest;
+import com.serendibmall.product.v1.UpdateProductRequest;
+import com.serendibmall.product_command_service.domain.ProductAggregate;
+import com.serendibmall.product_command_service.service.ProductEventStore;
+import com.serendibmall.product_command_service.service.ProductEventStore.ProductNotFoundException;
+import com.serendibmall.product_command_service.service.ProductEventStore.VersionConflictException;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ProductCommandGrpcService extends ProductServiceGrpc.ProductServiceImplBase {
 
-    private final ProductEventRepository productEventRepository;
-    private final ObjectMapper objectMapper;
+    private final ProductEventStore productEventStore;
+    private final int batchChunkSize;
+    private final int streamPageSize;
+
+    public ProductCommandGrpcService(ProductEventStore productEventStore,
+                                     @Value("${product.batch.chunk-size:1000}") int batchChunkSize,
+                                     @Value("${product.stream.page-size:1000}") int streamPageSize) {
+        this.productEventStore = productEventStore;
+        this.batchChunkSize = batchChunkSize;
+        this.streamPageSize = streamPageSize;
+    }
 
     @Override
-    @Transactional
     public void createProduct(CreateProductRequest request, StreamObserver<CreateProductResponse> responseObserver) {
+        ProductAggregate product;
         try {
-            // Generate new product ID
-            UUID productId = UUID.randomUUID();
-            log.info("Creating product with ID: {}", productId);
-
-            // Build event payload
-            Map<String, Object> eventPayload = new HashMap<>();
-            eventPayload.put("product_id", productId.toString());
-            eventPayload.put("name", request.getName());
-            eventPayload.put("description", request.getDescription());
-            eventPayload.put("price", request.getPrice());
-            eventPayload.put("currency", request.getCurrency().isEmpty() ? "USD" : request.getCurrency());
-            eventPayload.put("category", request.getCategory());
-
-            // Serialize to JSON
-            String payloadJson = objectMapper.writeValueAsString(eventPayload);
-
-            // Create and save event
-            ProductEventEntity event = ProductEventEntity.builder()
-                    .aggregateId(productId)
-                    .eventType("ProductCreated")
-                    .payload(payloadJson)
-                    .build();
+            // Use the caller's ID when given so it can write related state against it
+            product = toProduct(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
 
-            productEventRepository.save(event);
+        try {
+            log.info("Creating product with ID: {}", product.getProductId());
 
-            log.info("Product event saved: {}", event.getId());
+            productEventStore.create(product);
+
+            log.info("Product event saved for: {}", product.getProductId());
 
             // Return response
             CreateProductResponse response = CreateProductResponse.newBuilder()
-                    .setProductId(productId.toString())
+                    .setProductId(product.getProductId())
                     .build();
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
+        } catch (VersionConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS
+                    .withDescription("Product already exists: " + request.getProductId())
+                    .asRuntimeException());
         } catch (Exception e) {
             log.error("Error creating product", e);
             responseObserver.onError(e);
         }
     }
+
+    @Override
+    public void createProducts(CreateProductsRequest request, StreamObserver<CreateProductsResponse> responseObserver) {
+        List<CreateProductRequest> products = request.getProductsList();
+        log.info("Creating {} products", products.size());
+
+        try {
+            CreateProductsResponse.Builder response = CreateProductsResponse.newBuilder();
+            for (int from = 0; from < products.size(); from += batchChunkSize) {
+                response.addAllResults(createChunk(products.subList(from, Math.min(products.size(), from + batchChunkSize))));
+            }
+            responseObserver.onNext(withCreatedCount(response));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error creating products", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error creating products: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public StreamObserver<CreateProductRequest> createProductsStream(StreamObserver<CreateProductsResponse> responseObserver) {
+        return new StreamObserver<>() {
+
+            private final List<CreateProductRequest> chunk = new ArrayList<>(batchChunkSize);
+            private final CreateProductsResponse.Builder response = CreateProductsResponse.newBuilder();
+            private boolean failed;
+
+            @Override
+            public void onNext(CreateProductRequest request) {
+                if (failed) {
+                    return;
+                }
+                chunk.add(request);
+                if (chunk.size() >= batchChunkSize) {
+                    flush();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Chunks written so far stay committed
+                log.warn("CreateProductsStream aborted by client after {} products: {}",
+                        response.getResultsCount(), t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                flush();
+                if (!failed) {
+                    log.info("Created {} of {} streamed products",
+                            withCreatedCount(response).getCreatedCount(), response.getResultsCount());
+                    responseObserver.onNext(withCreatedCount(response));
+                    responseObserver.onCompleted();
+                }
+            }
+
+            private void flush() {
+                try {
+                    response.addAllResults(createChunk(chunk));
+                    chunk.clear();
+                } catch (Exception e) {
+                    log.error("Error creating streamed products after {}", response.getResultsCount(), e);
+                    failed = true;
+                    responseObserver.onError(Status.INTERNAL
+                            .withDescription("Error creating products after " + response.getResultsCount()
+                                    + ": " + e.getMessage())
+                            .asRuntimeException());
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates one chunk of products with a single batched write, returning a result per
+     * request in order. Invalid requests and ids that are repeated or already taken are
+     * reported individually and do not hold up the rest.
+     */
+    private List<CreateProductResult> createChunk(List<CreateProductRequest> requests) {
+        CreateProductResult[] results = new CreateProductResult[requests.size()];
+        Map<UUID, Integer> positions = new LinkedHashMap<>();
+        Map<UUID, ProductAggregate> products = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            ProductAggregate product;
+            try {
+                product = toProduct(requests.get(i));
+            } catch (IllegalArgumentException e) {
+                results[i] = failure(Status.Code.INVALID_ARGUMENT, e.getMessage());
+                continue;
+            }
+            UUID productId = UUID.fromString(product.getProductId());
+            if (positions.putIfAbsent(productId, i) != null) {
+                results[i] = failure(Status.Code.ALREADY_EXISTS, "Duplicate product_id in request: " + productId);
+                continue;
+            }
+            products.put(productId, product);
+        }
+
+        if (!products.isEmpty()) {
+            for (UUID productId : productEventStore.findExisting(products.keySet())) {
+                results[positions.get(productId)] = failure(Status.Code.ALREADY_EXISTS, "Product already exists: " + productId);
+                products.remove(productId);
+            }
+        }
+
+        if (!products.isEmpty()) {
+            try {
+                for (ProductAggregate product : productEventStore.createAll(new ArrayList<>(products.values()))) {
+                    results[positions.get(UUID.fromString(product.getProductId()))] = success(product.getProductId());
+                }
+            } catch (VersionConflictException e) {
+                // A concurrent create took one of the ids after the check; settle them one by one
+                log.warn("Batch create conflicted, retrying {} products individually", products.size());
+                for (Map.Entry<UUID, ProductAggregate> entry : products.entrySet()) {
+                    int position = positions.get(entry.getKey());
+                    try {
+                        productEventStore.create(entry.getValue());
+                        results[position] = success(entry.getValue().getProductId());
+                    } catch (VersionConflictException conflict) {
+                        results[position] = failure(Status.Code.ALREADY_EXISTS, "Product already exists: " + entry.getKey());
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validates a create request into the new product's state, assigning an id when
+     * the caller did not.
+     */
+    private static ProductAggregate toProduct(CreateProductRequest request) {
+        UUID productId;
+        try {
+            productId = request.getProductId().isEmpty()
+                    ? UUID.randomUUID()
+                    : UUID.fromString(request.getProductId());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid product_id: " + request.getProductId(), e);
+        }
+        if (request.getName().isBlank()) {
+            throw new IllegalArgumentException("Product name is required");
+        }
+        if (request.getPrice() < 0) {
+            throw new IllegalArgumentException("Price must not be negative: " + request.getPrice());
+        }
+        return ProductAggregate.builder()
+                .productId(productId.toString())
+                .name(request.getName())
+                .description(request.getDescription())
+                .price(request.getPrice())
+                .currency(request.getCurrency().isEmpty() ? "USD" : request.getCurrency())
+                .category(request.getCategory())
+                .build();
+    }
+
+    private static CreateProductResult success(String productId) {
+        return CreateProductResult.newBuilder().setProductId(productId).build();
+    }
+
+    private static CreateProductResult failure(Status.Code code, String message) {
+        return CreateProductResult.newBuilder()
+                .setErrorCode(code.name())
+                .setErrorMessage(message)
+                .build();
+    }
+
+    private static CreateProductsResponse withCreatedCount(CreateProductsResponse.Builder response) {
+        int created = (int) response.getResultsList().stream()
+                .filter(result -> !result.getProductId().isEmpty())
+                .count();
+        return response.setCreatedCount(created).build();
+    }
+
+    @Override
+    public void updateProduct(UpdateProductRequest request, StreamObserver<ProductResponse> responseObserver) {
+        log.info("Updating product: {}", request.getProductId());
+        handleCommand(request.getProductId(), responseObserver, productId -> productEventStore.update(
+                productId, ProductEventStore.PRODUCT_UPDATED, product -> {
+                    if (request.hasName()) {
+                        product.setName(request.getName());
+                    }
+                    if (request.hasDescription()) {
+                        product.setDescription(request.getDescription());
+                    }
+                    if (request.hasCategory()) {
+                        product.setCategory(request.getCategory());
+                    }
+                }), ProductCommandGrpcService::toProductResponse);
+    }
+
+    @Override
+    public void changeProductPrice(ChangeProductPriceRequest request, StreamObserver<ProductResponse> responseObserver) {
+        if (request.getPrice() < 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Price must not be negative: " + request.getPrice())
+                    .asRuntimeException());
+            return;
+        }
+
+        log.info("Changing price of product {} to {}", request.getProductId(), request.getPrice());
+        handleCommand(request.getProductId(), responseObserver, productId -> productEventStore.update(
+                productId, ProductEventStore.PRODUCT_PRICE_CHANGED, product -> {
+                    product.setPrice(request.getPrice());
+                    if (!request.getCurrency().isEmpty()) {
+                        product.setCurrency(request.getCurrency());
+                    }
+                }), ProductCommandGrpcService::toProductResponse);
+    }
+
+    @Override
+    public void deleteProduct(DeleteProductRequest request, StreamObserver<DeleteProductResponse> responseObserver) {
+        log.info("Deleting product: {}", request.getProductId());
+        handleCommand(request.getProductId(), responseObserver,
+                productId -> productEventStore.update(productId, ProductEventStore.PRODUCT_DELETED, product -> {}),
+                product -> DeleteProductResponse.newBuilder().setProductId(product.getProductId()).build());
+    }
+
+    /**
+     * Streams the current state of every live product, or those in one category, from
+     * the event store, and on request the tombstones of deleted ones. Product-query-service
+     * rebuilds its index from this.
+     */
+    @Override
+    public void streamProducts(StreamProductsRequest request, StreamObserver<ProductResponse> responseObserver) {
+        log.info("Streaming products from the event store: category='{}', includeDeleted={}",
+                request.getCategory(), request.getIncludeDeleted());
+        new ProductStateStream(productEventStore, (ServerCallStreamObserver<ProductResponse>) responseObserver,
+                ProductCommandGrpcService::toProductResponse, request.getCategory(), request.getIncludeDeleted(),
+                streamPageSize).start();
+    }
+
+    /**
+     * Runs a command against an existing product and replies with a response built
+     * from its new state, mapping the event store's failures to gRPC statuses.
+     */
+    private <T> void handleCommand(String productIdValue, StreamObserver<T> responseObserver,
+                                   Function<UUID, ProductAggregate> command,
+                                   Function<ProductAggregate, T> toResponse) {
+        UUID productId;
+        try {
+            productId = UUID.fromString(productIdValue);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid product_id: " + productIdValue)
+                    .asRuntimeException());
+            return;
+        }
+
+        try {
+            responseObserver.onNext(toResponse.apply(command.apply(productId)));
+            responseObserver.onCompleted();
+        } catch (ProductNotFoundException e) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (VersionConflictException e) {
+            // Another command on the same product won the race; the caller may retry
+            responseObserver.onError(Status.ABORTED
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error handling command for product {}", productId, e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error updating product: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    private static ProductResponse toProductResponse(ProductAggregate product) {
+        return ProductResponse.newBuilder()
+                .setId(product.getProductId())
+                .setName(product.getName() != null ? product.getName() : "")
+                .setDescription(product.getDescription() != null ? product.getDescription() : "")
+                .setPrice(product.getPrice() != null ? product.getPrice() : 0.0)
+                .setCurrency(product.getCurrency() != null ? product.getCurrency() : "USD")
+                .setCategory(product.getCategory() != null ? product.getCategory() : "")
+                .setVersion(product.getVersion())
+                .setDeleted(product.isDeleted())
+                .build();
+    }
 }
@@ -1,9 +1,13 @@
 package com.serendibmall.product_command_service;
 
+import com.serendibmall.virtual_threads.VirtualThreadJdbcConfig;
+import com.serendibmall.virtual_threads.VirtualThreadGrpcConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import({VirtualThreadJdbcConfig.class, VirtualThreadGrpcConfig.class})
 public class ProductCommandServiceApplication {
 
 	public static void main(String[] args) {
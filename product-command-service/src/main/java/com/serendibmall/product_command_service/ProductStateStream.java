@@ -0,0 +1,96 @@
+package com.serendibmall.product_command_service;
+
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product_command_service.domain.ProductAggregate;
+import com.serendibmall.product_command_service.service.ProductEventStore;
+import com.serendibmall.product_command_service.service.ProductEventStore.LatestStatesPage;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Feeds one StreamProducts call with the current state of every live product in the
+ * event store, a page at a time and only while the client is ready for more. Used to
+ * rebuild read models without depending on topic retention. With {@code includeDeleted}
+ * the tombstones of deleted products go along too, category or not, so a rebuilt read
+ * model keeps refusing older events for them.
+ */
+@Slf4j
+class ProductStateStream {
+
+    // Above every UUID, so the first page starts at the top of the index
+    private static final UUID START = new UUID(-1L, -1L);
+
+    private final ProductEventStore productEventStore;
+    private final ServerCallStreamObserver<ProductResponse> observer;
+    private final Function<ProductAggregate, ProductResponse> mapper;
+    private final String category;
+    private final boolean includeDeleted;
+    private final int pageSize;
+    private final Queue<ProductAggregate> buffer = new ArrayDeque<>();
+    private UUID next = START;
+    private boolean finished;
+    private long sent;
+
+    ProductStateStream(ProductEventStore productEventStore, ServerCallStreamObserver<ProductResponse> observer,
+                       Function<ProductAggregate, ProductResponse> mapper, String category, boolean includeDeleted,
+                       int pageSize) {
+        this.productEventStore = productEventStore;
+        this.observer = observer;
+        this.mapper = mapper;
+        this.category = category;
+        this.includeDeleted = includeDeleted;
+        this.pageSize = pageSize;
+    }
+
+    void start() {
+        observer.setOnCancelHandler(this::cancel);
+        observer.setOnReadyHandler(this::drain);
+    }
+
+    private synchronized void drain() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (observer.isReady()) {
+                while (buffer.isEmpty() && next != null) {
+                    LatestStatesPage page = productEventStore.latestStates(next, pageSize, includeDeleted);
+                    for (ProductAggregate product : page.products()) {
+                        if (product.isDeleted() || category.isEmpty() || category.equals(product.getCategory())) {
+                            buffer.add(product);
+                        }
+                    }
+                    next = page.next();
+                }
+                if (buffer.isEmpty()) {
+                    finished = true;
+                    observer.onCompleted();
+                    log.info("Streamed {} products from the event store", sent);
+                    return;
+                }
+                observer.onNext(mapper.apply(buffer.poll()));
+                sent++;
+            }
+        } catch (Exception e) {
+            log.error("Error streaming products after {} sent", sent, e);
+            finished = true;
+            observer.onError(Status.INTERNAL
+                    .withDescription("Error streaming products: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    private synchronized void cancel() {
+        if (!finished) {
+            log.info("Product stream cancelled by client after {} products", sent);
+            finished = true;
+            buffer.clear();
+        }
+    }
+}
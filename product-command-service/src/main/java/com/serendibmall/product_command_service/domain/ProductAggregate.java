@@ -0,0 +1,34 @@
+package com.serendibmall.product_command_service.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Current state of a product, folded from its events. Uses the snake_case names of
+ * the event payloads so a payload can be read straight onto it; the same JSON form
+ * is stored in {@code product_snapshots}.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductAggregate {
+
+    private String productId;
+    private String name;
+    private String description;
+    private Double price;
+    private String currency;
+    private String category;
+    private boolean deleted;
+
+    // Version of the last event applied
+    private long version;
+}
@@ -19,8 +19,10 @@ import java.util.UUID;
 @AllArgsConstructor
 public class ProductEventEntity {
 
+    // Pooled sequence ids rather than IDENTITY, which would disable JDBC insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_events_id")
+    @SequenceGenerator(name = "product_events_id", sequenceName = "product_events_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "aggregate_id", nullable = false)
@@ -30,6 +32,10 @@ public class ProductEventEntity {
     @Builder.Default
     private String aggregateType = "Product";
 
+    // Position of the event in its aggregate's history, starting at 1
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "event_type", nullable = false, length = 100)
     private String eventType;
 
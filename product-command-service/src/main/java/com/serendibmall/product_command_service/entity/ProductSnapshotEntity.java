@@ -0,0 +1,36 @@
+package com.serendibmall.product_command_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "product_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshotEntity {
+
+    @Id
+    @Column(name = "aggregate_id")
+    private UUID aggregateId;
+
+    // Version of the last event folded into the state
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "state", nullable = false, columnDefinition = "jsonb")
+    private String state;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
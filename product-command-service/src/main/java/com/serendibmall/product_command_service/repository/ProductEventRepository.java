@@ -2,13 +2,27 @@ package com.serendibmall.product_command_service.repository;
 
 import com.serendibmall.product_command_service.entity.ProductEventEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ProductEventRepository extends JpaRepository<ProductEventEntity, Long> {
-    
-    List<ProductEventEntity> findByAggregateIdOrderByCreatedAtAsc(UUID aggregateId);
+
+    // Tail of an aggregate's history after a snapshot; 0 reads it all
+    List<ProductEventEntity> findByAggregateIdAndVersionGreaterThanOrderByVersionAsc(UUID aggregateId, long version);
+
+    // Last event of each product with an id below :before, walking the (aggregate_id, version) index backwards
+    @Query(value = "SELECT DISTINCT ON (aggregate_id) * FROM product_events WHERE aggregate_id < :before " +
+            "ORDER BY aggregate_id DESC, version DESC LIMIT :limit",
+            nativeQuery = true)
+    List<ProductEventEntity> findLatestEventsBefore(@Param("before") UUID before, @Param("limit") int limit);
+
+    // Ids among the given ones that already have a first event
+    @Query("SELECT e.aggregateId FROM ProductEventEntity e WHERE e.aggregateId IN :aggregateIds AND e.version = 1")
+    List<UUID> findCreatedAggregateIds(@Param("aggregateIds") Collection<UUID> aggregateIds);
 }
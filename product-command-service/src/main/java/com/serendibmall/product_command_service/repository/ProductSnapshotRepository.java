@@ -0,0 +1,24 @@
+package com.serendibmall.product_command_service.repository;
+
+import com.serendibmall.product_command_service.entity.ProductSnapshotEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ProductSnapshotRepository extends JpaRepository<ProductSnapshotEntity, UUID> {
+
+    // Replaces the stored snapshot unless it is already at or past this version
+    @Modifying
+    @Query(value = "INSERT INTO product_snapshots (aggregate_id, version, state, created_at) " +
+            "VALUES (:aggregateId, :version, CAST(:state AS jsonb), CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (aggregate_id) DO UPDATE " +
+            "SET version = EXCLUDED.version, state = EXCLUDED.state, created_at = EXCLUDED.created_at " +
+            "WHERE product_snapshots.version < EXCLUDED.version",
+            nativeQuery = true)
+    int upsert(@Param("aggregateId") UUID aggregateId, @Param("version") long version, @Param("state") String state);
+}
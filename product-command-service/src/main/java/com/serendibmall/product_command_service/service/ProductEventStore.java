@@ -0,0 +1,274 @@
+package com.serendibmall.product_command_service.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.serendibmall.product_command_service.domain.ProductAggregate;
+import com.serendibmall.product_command_service.entity.ProductEventEntity;
+import com.serendibmall.product_command_service.repository.ProductEventRepository;
+import com.serendibmall.product_command_service.repository.ProductSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Event-sourced persistence for products.
+ * <p>
+ * A product is rehydrated from its latest row in {@code product_snapshots} plus the
+ * events recorded after it, read in version order off the
+ * {@code (aggregate_id, version)} index. A snapshot is written every
+ * {@code product.snapshot.every} events, so a rehydration reads at most that many
+ * events however long the product's history is.
+ * <p>
+ * Each event carries the product's full state after it, so read models can upsert
+ * without rehydrating. Appends take the next version, and the unique
+ * {@code (aggregate_id, version)} index rejects a concurrent writer with
+ * {@link VersionConflictException} instead of letting it fork the history.
+ */
+@Service
+@Slf4j
+public class ProductEventStore {
+
+    public static final String PRODUCT_CREATED = "ProductCreated";
+    public static final String PRODUCT_UPDATED = "ProductUpdated";
+    public static final String PRODUCT_PRICE_CHANGED = "ProductPriceChanged";
+    public static final String PRODUCT_DELETED = "ProductDeleted";
+
+    private final ProductEventRepository eventRepository;
+    private final ProductSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter payloadWriter;
+    private final int snapshotEvery;
+
+    public ProductEventStore(ProductEventRepository eventRepository,
+                             ProductSnapshotRepository snapshotRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${product.snapshot.every:50}") int snapshotEvery) {
+        this.eventRepository = eventRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.payloadWriter = objectMapper.writerFor(ProductPayload.class);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    /**
+     * Returns the product's current state, or empty if it never existed or was deleted.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductAggregate> load(UUID productId) {
+        return Optional.ofNullable(rehydrate(productId)).filter(product -> !product.isDeleted());
+    }
+
+    /**
+     * Records a ProductCreated event. Fails with {@link VersionConflictException} if the
+     * id is already taken.
+     */
+    @Transactional
+    public ProductAggregate create(ProductAggregate product) {
+        return append(product.toBuilder().version(0).deleted(false).build(), PRODUCT_CREATED);
+    }
+
+    /**
+     * Records a ProductCreated event for each product in one transaction, as batched
+     * inserts. Fails as a whole with {@link VersionConflictException} if any id is
+     * already taken.
+     */
+    @Transactional
+    public List<ProductAggregate> createAll(List<ProductAggregate> products) {
+        List<ProductEventEntity> events = new ArrayList<>(products.size());
+        List<ProductAggregate> created = new ArrayList<>(products.size());
+        for (ProductAggregate product : products) {
+            ProductAggregate state = product.toBuilder().version(1).deleted(false).build();
+            events.add(ProductEventEntity.builder()
+                    .aggregateId(UUID.fromString(state.getProductId()))
+                    .version(1L)
+                    .eventType(PRODUCT_CREATED)
+                    .payload(writePayload(state, PRODUCT_CREATED, 1))
+                    .build());
+            created.add(state);
+        }
+        try {
+            eventRepository.saveAll(events);
+            eventRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new VersionConflictException("A product in the batch already exists", e);
+        }
+        if (snapshotEvery == 1) {
+            created.forEach(state -> snapshotRepository.upsert(UUID.fromString(state.getProductId()), 1, write(state)));
+        }
+        return created;
+    }
+
+    /**
+     * Returns which of the given ids already belong to a product, deleted or not.
+     */
+    @Transactional(readOnly = true)
+    public Set<UUID> findExisting(Collection<UUID> productIds) {
+        return new HashSet<>(eventRepository.findCreatedAggregateIds(productIds));
+    }
+
+    /**
+     * Reads the current state of up to {@code limit} products with ids below
+     * {@code before}, in descending id order, without rehydrating them: the last event
+     * of each product already carries its full state. Deleted products are left out,
+     * or with {@code includeDeleted} come as tombstones holding only the id, the
+     * deleted flag and the version. Pass the returned {@code next} id to continue; it
+     * is null after the last page.
+     */
+    @Transactional(readOnly = true)
+    public LatestStatesPage latestStates(UUID before, int limit, boolean includeDeleted) {
+        List<ProductEventEntity> events = eventRepository.findLatestEventsBefore(before, limit);
+        List<ProductAggregate> products = new ArrayList<>(events.size());
+        for (ProductEventEntity event : events) {
+            if (!PRODUCT_DELETED.equals(event.getEventType())) {
+                products.add(apply(null, event));
+            } else if (includeDeleted) {
+                ProductAggregate tombstone = apply(null, event);
+                tombstone.setProductId(event.getAggregateId().toString());
+                products.add(tombstone);
+            }
+        }
+        UUID next = events.size() < limit ? null : events.get(events.size() - 1).getAggregateId();
+        return new LatestStatesPage(products, next);
+    }
+
+    /**
+     * Applies {@code change} to the current state of a live product and records it as
+     * an {@code eventType} event.
+     */
+    @Transactional
+    public ProductAggregate update(UUID productId, String eventType, Consumer<ProductAggregate> change) {
+        ProductAggregate product = load(productId).orElseThrow(() -> new ProductNotFoundException(productId));
+        change.accept(product);
+        if (PRODUCT_DELETED.equals(eventType)) {
+            product.setDeleted(true);
+        }
+        return append(product, eventType);
+    }
+
+    private ProductAggregate rehydrate(UUID productId) {
+        ProductAggregate product = snapshotRepository.findById(productId)
+                .map(snapshot -> read(snapshot.getState()))
+                .orElse(null);
+
+        List<ProductEventEntity> events = eventRepository.findByAggregateIdAndVersionGreaterThanOrderByVersionAsc(
+                productId, product != null ? product.getVersion() : 0);
+        for (ProductEventEntity event : events) {
+            product = apply(product, event);
+        }
+        return product;
+    }
+
+    private ProductAggregate apply(ProductAggregate product, ProductEventEntity event) {
+        if (product == null) {
+            product = new ProductAggregate();
+        }
+        if (PRODUCT_DELETED.equals(event.getEventType())) {
+            product.setDeleted(true);
+        } else {
+            try {
+                objectMapper.readerForUpdating(product).readValue(event.getPayload());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable payload in product event " + event.getId(), e);
+            }
+        }
+        product.setVersion(event.getVersion());
+        return product;
+    }
+
+    private ProductAggregate append(ProductAggregate product, String eventType) {
+        long version = product.getVersion() + 1;
+        UUID productId = UUID.fromString(product.getProductId());
+
+        ProductEventEntity event = ProductEventEntity.builder()
+                .aggregateId(productId)
+                .version(version)
+                .eventType(eventType)
+                .payload(writePayload(product, eventType, version))
+                .build();
+        try {
+            eventRepository.saveAndFlush(event);
+        } catch (DataIntegrityViolationException e) {
+            throw new VersionConflictException(productId, version, e);
+        }
+        product.setVersion(version);
+
+        if (version % snapshotEvery == 0) {
+            snapshotRepository.upsert(productId, version, write(product));
+            log.debug("Snapshot of product {} taken at version {}", productId, version);
+        }
+        return product;
+    }
+
+    private String writePayload(ProductAggregate product, String eventType, long version) {
+        ProductPayload payload = PRODUCT_DELETED.equals(eventType)
+                ? new ProductPayload(product.getProductId(), null, null, null, null, null, version)
+                : new ProductPayload(product.getProductId(), product.getName(), product.getDescription(),
+                        product.getPrice(), product.getCurrency(), product.getCategory(), version);
+        try {
+            return payloadWriter.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product event payload", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product state", e);
+        }
+    }
+
+    private ProductAggregate read(String state) {
+        try {
+            return objectMapper.readValue(state, ProductAggregate.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable product snapshot", e);
+        }
+    }
+
+    /**
+     * Event payload, written through a cached {@link ObjectWriter} rather than a map.
+     * ProductDeleted carries only the id. Every event carries its version, which
+     * consumers use to drop stale and redelivered events.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    private record ProductPayload(String productId, String name, String description, Double price,
+                                  String currency, String category, Long version) {}
+
+    public record LatestStatesPage(List<ProductAggregate> products, UUID next) {}
+
+    public static class ProductNotFoundException extends RuntimeException {
+
+        public ProductNotFoundException(UUID productId) {
+            super("Product not found with ID: " + productId);
+        }
+    }
+
+    public static class VersionConflictException extends RuntimeException {
+
+        public VersionConflictException(UUID productId, long version, Throwable cause) {
+            this("Product " + productId + " already has an event at version " + version, cause);
+        }
+
+        public VersionConflictException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
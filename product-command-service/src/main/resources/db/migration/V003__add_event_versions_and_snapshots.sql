@@ -0,0 +1,26 @@
+-- Per-aggregate event version: orders an aggregate's events and rejects concurrent appends
+ALTER TABLE product_events ADD COLUMN IF NOT EXISTS version BIGINT;
+
+UPDATE product_events e
+SET version = v.version
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY aggregate_id ORDER BY created_at, id) AS version
+    FROM product_events
+) v
+WHERE e.id = v.id;
+
+ALTER TABLE product_events ALTER COLUMN version SET NOT NULL;
+
+-- Rehydration reads "aggregate_id = ? AND version > ? ORDER BY version" straight off this index
+CREATE UNIQUE INDEX IF NOT EXISTS uq_product_events_aggregate_version ON product_events(aggregate_id, version);
+
+-- Covered by the composite index above
+DROP INDEX IF EXISTS idx_product_events_aggregate_id;
+
+-- Latest snapshot of each product, taken every N events
+CREATE TABLE IF NOT EXISTS product_snapshots (
+    aggregate_id UUID PRIMARY KEY,
+    version BIGINT NOT NULL,
+    state JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
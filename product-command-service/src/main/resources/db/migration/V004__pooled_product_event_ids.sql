@@ -0,0 +1,2 @@
+-- Hands out ids in blocks of 50 so Hibernate can batch event inserts (allocationSize = 50)
+ALTER SEQUENCE product_events_id_seq INCREMENT BY 50;
@@ -0,0 +1,74 @@
+package com.serendibmall.product_command_service;
+
+import com.serendibmall.product.v1.CreateProductRequest;
+import com.serendibmall.product.v1.CreateProductsResponse;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of CreateProductsStream into {@code product_events}, against a target
+ * of 10k products/sec on one instance. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ProductBatchCreateBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBatchCreateBenchmark.class);
+
+    private static final int WARMUP_PRODUCTS = 20_000;
+    private static final int PRODUCTS = 200_000;
+
+    @Autowired
+    private ProductCommandGrpcService grpcService;
+
+    @Test
+    void streamedCreateThroughput() throws Exception {
+        stream(WARMUP_PRODUCTS);
+
+        long startNanos = System.nanoTime();
+        CreateProductsResponse response = stream(PRODUCTS);
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        assertEquals(PRODUCTS, response.getCreatedCount());
+        log.info("Created {} products in {} s: {} products/s",
+                PRODUCTS, String.format("%.2f", seconds), String.format("%.0f", PRODUCTS / seconds));
+    }
+
+    private CreateProductsResponse stream(int products) throws Exception {
+        CompletableFuture<CreateProductsResponse> result = new CompletableFuture<>();
+        StreamObserver<CreateProductRequest> requests = grpcService.createProductsStream(new StreamObserver<>() {
+            @Override
+            public void onNext(CreateProductsResponse value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        for (int i = 0; i < products; i++) {
+            requests.onNext(CreateProductRequest.newBuilder()
+                    .setName("Benchmark product " + i)
+                    .setDescription("Generated for the batch create benchmark")
+                    .setPrice(1 + i % 500)
+                    .setCurrency("USD")
+                    .setCategory("benchmark")
+                    .build());
+        }
+        requests.onCompleted();
+        return result.get(5, TimeUnit.MINUTES);
+    }
+}
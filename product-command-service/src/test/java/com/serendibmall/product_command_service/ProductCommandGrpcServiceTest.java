@@ -0,0 +1,104 @@
+package com.serendibmall.product_command_service;
+
+import com.serendibmall.product.v1.CreateProductRequest;
+import com.serendibmall.product.v1.CreateProductResult;
+import com.serendibmall.product.v1.CreateProductsRequest;
+import com.serendibmall.product.v1.CreateProductsResponse;
+import com.serendibmall.product_command_service.service.ProductEventStore;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCommandGrpcServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProductCommandGrpcService grpcService;
+
+    @Autowired
+    private ProductEventStore productEventStore;
+
+    @Test
+    void createProductsReportsEachItemInOrder() throws Exception {
+        String existing = UUID.randomUUID().toString();
+        String repeated = UUID.randomUUID().toString();
+        call(request(existing, "Existing"));
+
+        CreateProductsResponse response = call(
+                request("", "Generated id"),
+                request(existing, "Taken id"),
+                request("not-a-uuid", "Bad id"),
+                request(repeated, "First"),
+                request(repeated, "Second"),
+                request("", ""));
+
+        List<CreateProductResult> results = response.getResultsList();
+        assertEquals(6, results.size());
+        assertEquals(2, response.getCreatedCount());
+        assertTrue(productEventStore.load(UUID.fromString(results.get(0).getProductId())).isPresent());
+        assertEquals("ALREADY_EXISTS", results.get(1).getErrorCode());
+        assertEquals("INVALID_ARGUMENT", results.get(2).getErrorCode());
+        assertEquals(repeated, results.get(3).getProductId());
+        assertEquals("ALREADY_EXISTS", results.get(4).getErrorCode());
+        assertEquals("INVALID_ARGUMENT", results.get(5).getErrorCode());
+        assertEquals("First", productEventStore.load(UUID.fromString(repeated)).orElseThrow().getName());
+    }
+
+    @Test
+    void createProductsStreamWritesEveryChunk() throws Exception {
+        CompletableFuture<CreateProductsResponse> result = new CompletableFuture<>();
+        StreamObserver<CreateProductRequest> requests = grpcService.createProductsStream(observer(result));
+        for (int i = 0; i < 2_500; i++) {
+            requests.onNext(request("", "Streamed " + i));
+        }
+        requests.onCompleted();
+
+        CreateProductsResponse response = result.get(10, TimeUnit.SECONDS);
+        assertEquals(2_500, response.getResultsCount());
+        assertEquals(2_500, response.getCreatedCount());
+        assertEquals("Streamed 2499", productEventStore.load(
+                UUID.fromString(response.getResults(2_499).getProductId())).orElseThrow().getName());
+    }
+
+    private CreateProductsResponse call(CreateProductRequest... products) throws Exception {
+        CompletableFuture<CreateProductsResponse> result = new CompletableFuture<>();
+        grpcService.createProducts(CreateProductsRequest.newBuilder().addAllProducts(List.of(products)).build(),
+                observer(result));
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    private static StreamObserver<CreateProductsResponse> observer(CompletableFuture<CreateProductsResponse> result) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(CreateProductsResponse value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+    }
+
+    private static CreateProductRequest request(String productId, String name) {
+        return CreateProductRequest.newBuilder()
+                .setProductId(productId)
+                .setName(name)
+                .setDescription("Batch test product")
+                .setPrice(12.5)
+                .setCategory("home")
+                .build();
+    }
+}
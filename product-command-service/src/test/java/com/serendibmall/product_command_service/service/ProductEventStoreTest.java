@@ -0,0 +1,92 @@
+package com.serendibmall.product_command_service.service;
+
+import com.serendibmall.product_command_service.BaseIntegrationTest;
+import com.serendibmall.product_command_service.domain.ProductAggregate;
+import com.serendibmall.product_command_service.repository.ProductSnapshotRepository;
+import com.serendibmall.product_command_service.service.ProductEventStore.ProductNotFoundException;
+import com.serendibmall.product_command_service.service.ProductEventStore.VersionConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "product.snapshot.every=3")
+class ProductEventStoreTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProductEventStore productEventStore;
+
+    @Autowired
+    private ProductSnapshotRepository snapshotRepository;
+
+    @Test
+    void rehydratesFromSnapshotAndTail() {
+        UUID productId = createProduct();
+        for (int i = 1; i <= 4; i++) {
+            double price = 10.0 + i;
+            productEventStore.update(productId, ProductEventStore.PRODUCT_PRICE_CHANGED, p -> p.setPrice(price));
+        }
+        productEventStore.update(productId, ProductEventStore.PRODUCT_UPDATED, p -> p.setName("Teak Bowl"));
+
+        // Versions 1-6: the snapshot is at 6, so nothing is left to replay
+        assertEquals(6L, snapshotRepository.findById(productId).orElseThrow().getVersion());
+
+        ProductAggregate product = productEventStore.load(productId).orElseThrow();
+        assertEquals(6L, product.getVersion());
+        assertEquals("Teak Bowl", product.getName());
+        assertEquals(14.0, product.getPrice());
+        assertEquals("A carved bowl", product.getDescription());
+        assertEquals("home", product.getCategory());
+    }
+
+    @Test
+    void replaysEverythingWithoutSnapshot() {
+        UUID productId = createProduct();
+        productEventStore.update(productId, ProductEventStore.PRODUCT_UPDATED, p -> p.setCategory("crafts"));
+
+        assertFalse(snapshotRepository.existsById(productId));
+        ProductAggregate product = productEventStore.load(productId).orElseThrow();
+        assertEquals(2L, product.getVersion());
+        assertEquals("crafts", product.getCategory());
+    }
+
+    @Test
+    void deletedProductIsGoneForReadsAndCommands() {
+        UUID productId = createProduct();
+        productEventStore.update(productId, ProductEventStore.PRODUCT_DELETED, p -> {});
+
+        assertTrue(productEventStore.load(productId).isEmpty());
+        assertThrows(ProductNotFoundException.class, () -> productEventStore.update(
+                productId, ProductEventStore.PRODUCT_PRICE_CHANGED, p -> p.setPrice(1.0)));
+    }
+
+    @Test
+    void rejectsSecondCreateWithSameId() {
+        UUID productId = createProduct();
+
+        assertThrows(VersionConflictException.class, () -> productEventStore.create(product(productId)));
+    }
+
+    private UUID createProduct() {
+        UUID productId = UUID.randomUUID();
+        productEventStore.create(product(productId));
+        return productId;
+    }
+
+    private static ProductAggregate product(UUID productId) {
+        return ProductAggregate.builder()
+                .productId(productId.toString())
+                .name("Wooden Bowl")
+                .description("A carved bowl")
+                .price(10.0)
+                .currency("USD")
+                .category("home")
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.serendibmall.product_command_service.service;
+
+import com.serendibmall.product_command_service.BaseIntegrationTest;
+import com.serendibmall.product_command_service.domain.ProductAggregate;
+import com.serendibmall.product_command_service.repository.ProductSnapshotRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Rehydration latency against events per aggregate, from the latest snapshot plus
+ * the tail and by replaying every event (the same product with its snapshot
+ * removed). Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ProductRehydrationBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRehydrationBenchmark.class);
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 200;
+
+    @Autowired
+    private ProductEventStore productEventStore;
+
+    @Autowired
+    private ProductSnapshotRepository snapshotRepository;
+
+    @ParameterizedTest(name = "{0} events")
+    @ValueSource(ints = {1, 10, 100, 1_000, 5_000})
+    void rehydrationLatency(int events) {
+        UUID withSnapshot = createProductWithEvents(events);
+        UUID fullReplay = createProductWithEvents(events);
+        snapshotRepository.deleteById(fullReplay);
+
+        double[] snapshot = measure(withSnapshot);
+        double[] replay = measure(fullReplay);
+
+        log.info("events={} | snapshot+tail p50={} p99={} ms | full replay p50={} p99={} ms",
+                events, format(snapshot[0]), format(snapshot[1]), format(replay[0]), format(replay[1]));
+    }
+
+    private UUID createProductWithEvents(int events) {
+        UUID productId = UUID.randomUUID();
+        productEventStore.create(ProductAggregate.builder()
+                .productId(productId.toString())
+                .name("Benchmark product")
+                .description("Rehydration benchmark")
+                .price(1.0)
+                .currency("USD")
+                .category("benchmark")
+                .build());
+        for (int i = 1; i < events; i++) {
+            double price = 1.0 + i;
+            productEventStore.update(productId, ProductEventStore.PRODUCT_PRICE_CHANGED, p -> p.setPrice(price));
+        }
+        return productId;
+    }
+
+    /**
+     * Returns {p50, p99} in milliseconds.
+     */
+    private double[] measure(UUID productId) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            productEventStore.load(productId);
+        }
+        double[] millis = new double[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long startNanos = System.nanoTime();
+            productEventStore.load(productId);
+            millis[i] = (System.nanoTime() - startNanos) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return new double[] {
+                millis[(int) Math.ceil(0.50 * MEASURED_ROUNDS) - 1],
+                millis[(int) Math.ceil(0.99 * MEASURED_ROUNDS) - 1]
+        };
+    }
+
+    private static String format(double millis) {
+        return String.format("%.2f", millis);
+    }
+}
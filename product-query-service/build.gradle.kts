@@ -31,6 +31,12 @@ extra["springGrpcVersion"] = "0.12.0"
 
 sourceSets {
     main {
+        java {
+            srcDir("../saga-events/src/main/java")
+            srcDir("saga-events/src/main/java")
+            srcDir("../virtual-threads/src/grpc/java")
+            srcDir("virtual-threads/src/grpc/java")
+        }
         proto {
             srcDir("../proto")
             srcDir("proto")
@@ -46,7 +52,9 @@ dependencies {
 	implementation("io.zipkin.reporter2:zipkin-reporter-brave")
 	implementation("io.grpc:grpc-services")
 	implementation("org.springframework.grpc:spring-grpc-server-spring-boot-starter")
+	implementation("org.springframework.grpc:spring-grpc-client-spring-boot-starter")
 	implementation("org.springframework.kafka:spring-kafka")
+	implementation("org.rocksdb:rocksdbjni:7.9.2")
 	compileOnly("org.projectlombok:lombok")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -89,3 +97,25 @@ protobuf {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+tasks.register<Test>("benchmark") {
+	description = "Runs the benchmark-tagged tests against Testcontainers."
+	group = "verification"
+	testClassesDirs = sourceSets["test"].output.classesDirs
+	classpath = sourceSets["test"].runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	// Forward -Dbenchmark.* settings, e.g. -Dbenchmark.documents=100000
+	systemProperties(System.getProperties().filterKeys { it.toString().startsWith("benchmark.") }
+		.mapKeys { it.key.toString() })
+	testLogging {
+		showStandardStreams = true
+	}
+}
@@ -0,0 +1,81 @@
+package com.serendibmall.product_query_service;
+
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductExportService.ExportCursor;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * Feeds one StreamProducts call from an {@link ExportCursor} under gRPC flow control.
+ * Products are written only while the transport reports the client ready; when it
+ * stops, draining pauses until the next on-ready callback. At most one page is
+ * buffered, and the cursor is closed on completion, error or cancellation.
+ */
+@Slf4j
+class ProductExportStream {
+
+    private final ExportCursor cursor;
+    private final ServerCallStreamObserver<ProductResponse> observer;
+    private final Function<ProductDocument, ProductResponse> mapper;
+    private final Queue<ProductDocument> buffer = new ArrayDeque<>();
+    private boolean finished;
+    private long sent;
+
+    ProductExportStream(ExportCursor cursor, ServerCallStreamObserver<ProductResponse> observer,
+                        Function<ProductDocument, ProductResponse> mapper) {
+        this.cursor = cursor;
+        this.observer = observer;
+        this.mapper = mapper;
+    }
+
+    void start() {
+        observer.setOnCancelHandler(this::cancel);
+        observer.setOnReadyHandler(this::drain);
+    }
+
+    private synchronized void drain() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (observer.isReady()) {
+                if (buffer.isEmpty()) {
+                    buffer.addAll(cursor.nextPage());
+                    if (buffer.isEmpty()) {
+                        finish();
+                        observer.onCompleted();
+                        log.info("Streamed {} products", sent);
+                        return;
+                    }
+                }
+                observer.onNext(mapper.apply(buffer.poll()));
+                sent++;
+            }
+        } catch (Exception e) {
+            log.error("Error streaming products after {} sent", sent, e);
+            finish();
+            observer.onError(Status.INTERNAL
+                    .withDescription("Error streaming products: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    private synchronized void cancel() {
+        if (!finished) {
+            log.info("Product stream cancelled by client after {} products", sent);
+            finish();
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        buffer.clear();
+        cursor.close();
+    }
+}
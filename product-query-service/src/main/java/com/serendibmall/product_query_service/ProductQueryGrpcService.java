@@ -1,22 +1,42 @@
 package com.serendibmall.product_query_service;
 
+import com.serendibmall.product.v1.FacetBucket;
 import com.serendibmall.product.v1.GetProductRequest;
+import com.serendibmall.product.v1.GetProductsRequest;
+import com.serendibmall.product.v1.GetProductsResponse;
 import com.serendibmall.product.v1.ProductResponse;
 import com.serendibmall.product.v1.ProductServiceGrpc;
 import com.serendibmall.product.v1.SearchProductsRequest;
 import com.serendibmall.product.v1.SearchProductsResponse;
+import com.serendibmall.product.v1.StreamProductsRequest;
+import com.serendibmall.product.v1.SuggestProductsRequest;
+import com.serendibmall.product.v1.SuggestProductsResponse;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import com.serendibmall.product_query_service.document.ProductDocument;
 import com.serendibmall.product_query_service.repository.ProductRepository;
+import com.serendibmall.product_query_service.service.ProductExportService;
+import com.serendibmall.product_query_service.service.ProductExportService.ExportCursor;
+import com.serendibmall.product_query_service.service.ProductLocalStore;
+import com.serendibmall.product_query_service.service.ProductSearchService;
+import com.serendibmall.product_query_service.service.ProductSearchService.PriceBucket;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchFilters;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchPage;
+import com.serendibmall.product_query_service.service.ProductSearchService.TermBucket;
+import com.serendibmall.product_query_service.service.ProductSuggestService;
+import com.serendibmall.product_query_service.service.ProductSuggestService.ProductSuggestion;
 import io.grpc.Status;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 @Service
 @Slf4j
@@ -24,13 +44,29 @@ import java.util.Optional;
 public class ProductQueryGrpcService extends ProductServiceGrpc.ProductServiceImplBase {
 
     private final ProductRepository productRepository;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductExportService productExportService;
+    private final ProductLocalStore productLocalStore;
 
     @Override
     public void getProduct(GetProductRequest request, StreamObserver<ProductResponse> responseObserver) {
         String productId = request.getProductId();
-        log.info("Fetching product with ID: {}", productId);
+        log.debug("Fetching product with ID: {}", productId);
+
+        // Served from the local store when it has the product, else from Elasticsearch
+        if (productLocalStore.isReady()) {
+            ProductResponse local = productLocalStore.get(productId);
+            if (local != null) {
+                responseObserver.onNext(local);
+                responseObserver.onCompleted();
+                return;
+            }
+        }
 
-        Optional<ProductDocument> productOptional = productRepository.findById(productId);
+        // A tombstone left by ProductDeleted reads as not found
+        Optional<ProductDocument> productOptional = productRepository.findById(productId)
+                .filter(product -> !product.isDeleted());
 
         if (productOptional.isPresent()) {
             ProductDocument product = productOptional.get();
@@ -53,6 +89,50 @@ public class ProductQueryGrpcService extends ProductServiceGrpc.ProductServiceIm
         }
     }
 
+    @Override
+    public void getProducts(GetProductsRequest request, StreamObserver<GetProductsResponse> responseObserver) {
+        List<String> productIds = request.getProductIdsList();
+        log.debug("Fetching {} products by ID", productIds.size());
+
+        try {
+            Map<String, ProductResponse> local = productLocalStore.isReady()
+                    ? productLocalStore.getAll(productIds)
+                    : Map.of();
+            List<String> remaining = new ArrayList<>();
+            for (String productId : productIds) {
+                if (!local.containsKey(productId)) {
+                    remaining.add(productId);
+                }
+            }
+
+            // findAllById is a single Elasticsearch _mget, whatever the catalog size
+            Map<String, ProductDocument> products = remaining.isEmpty() ? Map.of() : StreamSupport
+                    .stream(productRepository.findAllById(remaining).spliterator(), false)
+                    .collect(Collectors.toMap(ProductDocument::getId, Function.identity(), (a, b) -> a));
+
+            GetProductsResponse.Builder responseBuilder = GetProductsResponse.newBuilder();
+            for (String productId : productIds) {
+                ProductResponse localProduct = local.get(productId);
+                if (localProduct != null) {
+                    responseBuilder.addProducts(localProduct);
+                    continue;
+                }
+                ProductDocument product = products.get(productId);
+                if (product != null && !product.isDeleted()) {
+                    responseBuilder.addProducts(toProductResponse(product));
+                }
+            }
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error fetching products", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error fetching products: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
     @Override
     public void searchProducts(SearchProductsRequest request, StreamObserver<SearchProductsResponse> responseObserver) {
         String query = request.getQuery();
@@ -62,34 +142,40 @@ public class ProductQueryGrpcService extends ProductServiceGrpc.ProductServiceIm
         log.info("Searching products: query='{}', page={}, size={}", query, page, size);
 
         try {
-            Page<ProductDocument> productPage;
-
-            if (query == null || query.isBlank()) {
-                // Return all products when no query
-                productPage = productRepository.findAll(PageRequest.of(page, size));
-            } else {
-                // Search by name or description
-                productPage = productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-                        query, query, PageRequest.of(page, size));
-            }
+            ProductSearchFilters filters = new ProductSearchFilters(
+                    request.getCategoriesList(),
+                    request.getCurrenciesList(),
+                    request.hasMinPrice() ? request.getMinPrice() : null,
+                    request.hasMaxPrice() ? request.getMaxPrice() : null);
+            ProductSearchPage result = productSearchService.search(query, filters, page, size, request.getPageToken());
 
             SearchProductsResponse.Builder responseBuilder = SearchProductsResponse.newBuilder()
-                    .setTotalCount((int) productPage.getTotalElements())
-                    .setTotalPages(productPage.getTotalPages());
-
-            for (ProductDocument product : productPage.getContent()) {
-                responseBuilder.addProducts(ProductResponse.newBuilder()
-                        .setId(product.getId())
-                        .setName(product.getName() != null ? product.getName() : "")
-                        .setDescription(product.getDescription() != null ? product.getDescription() : "")
-                        .setPrice(product.getPrice() != null ? product.getPrice() : 0.0)
-                        .setCurrency(product.getCurrency() != null ? product.getCurrency() : "USD")
-                        .setCategory(product.getCategory() != null ? product.getCategory() : "")
-                        .build());
+                    .setTotalCount((int) result.totalCount())
+                    .setTotalPages((int) ((result.totalCount() + size - 1) / size))
+                    .setNextPageToken(result.nextPageToken());
+
+            for (ProductDocument product : result.products()) {
+                responseBuilder.addProducts(toProductResponse(product));
+            }
+            for (TermBucket bucket : result.facets().categories()) {
+                responseBuilder.addCategoryFacets(toFacetBucket(bucket));
+            }
+            for (TermBucket bucket : result.facets().currencies()) {
+                responseBuilder.addCurrencyFacets(toFacetBucket(bucket));
+            }
+            for (PriceBucket bucket : result.facets().prices()) {
+                responseBuilder.addPriceFacets(com.serendibmall.product.v1.PriceBucket.newBuilder()
+                        .setFrom(bucket.from())
+                        .setTo(bucket.to())
+                        .setCount(bucket.count()));
             }
 
             responseObserver.onNext(responseBuilder.build());
             responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
             log.error("Error searching products", e);
             responseObserver.onError(Status.INTERNAL
@@ -97,5 +183,73 @@ public class ProductQueryGrpcService extends ProductServiceGrpc.ProductServiceIm
                     .asRuntimeException());
         }
     }
-}
 
+    @Override
+    public void suggestProducts(SuggestProductsRequest request, StreamObserver<SuggestProductsResponse> responseObserver) {
+        String prefix = request.getPrefix().strip();
+        int limit = request.getLimit() > 0 ? Math.min(request.getLimit(), 20) : 10;
+
+        log.debug("Suggesting products: prefix='{}', limit={}", prefix, limit);
+
+        if (prefix.isEmpty()) {
+            responseObserver.onNext(SuggestProductsResponse.getDefaultInstance());
+            responseObserver.onCompleted();
+            return;
+        }
+
+        try {
+            SuggestProductsResponse.Builder responseBuilder = SuggestProductsResponse.newBuilder();
+            for (ProductSuggestion suggestion : productSuggestService.suggest(prefix, limit)) {
+                responseBuilder.addSuggestionsBuilder()
+                        .setId(suggestion.id())
+                        .setName(suggestion.name() != null ? suggestion.name() : "");
+            }
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error suggesting products", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error suggesting products: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void streamProducts(StreamProductsRequest request, StreamObserver<ProductResponse> responseObserver) {
+        String category = request.getCategory();
+        log.info("Streaming products: category='{}'", category);
+
+        ExportCursor cursor;
+        try {
+            cursor = productExportService.open(category);
+        } catch (Exception e) {
+            log.error("Error opening product stream", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Error streaming products: " + e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
+
+        new ProductExportStream(cursor, (ServerCallStreamObserver<ProductResponse>) responseObserver,
+                this::toProductResponse).start();
+    }
+
+    private FacetBucket toFacetBucket(TermBucket bucket) {
+        return FacetBucket.newBuilder()
+                .setValue(bucket.value())
+                .setCount(bucket.count())
+                .build();
+    }
+
+    private ProductResponse toProductResponse(ProductDocument product) {
+        return ProductResponse.newBuilder()
+                .setId(product.getId())
+                .setName(product.getName() != null ? product.getName() : "")
+                .setDescription(product.getDescription() != null ? product.getDescription() : "")
+                .setPrice(product.getPrice() != null ? product.getPrice() : 0.0)
+                .setCurrency(product.getCurrency() != null ? product.getCurrency() : "USD")
+                .setCategory(product.getCategory() != null ? product.getCategory() : "")
+                .build();
+    }
+}
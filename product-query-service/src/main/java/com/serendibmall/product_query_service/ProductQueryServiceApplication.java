@@ -1,9 +1,12 @@
 package com.serendibmall.product_query_service;
 
+import com.serendibmall.virtual_threads.VirtualThreadGrpcConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import(VirtualThreadGrpcConfig.class)
 public class ProductQueryServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,15 @@
+package com.serendibmall.product_query_service.config;
+
+import io.grpc.ManagedChannel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.grpc.client.GrpcChannelFactory;
+
+@Configuration
+public class GrpcClientConfig {
+
+    @Bean
+    public ManagedChannel productCommandServiceChannel(GrpcChannelFactory factory) {
+        return factory.createChannel("product-command-service");
+    }
+}
@@ -5,24 +5,40 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.CompletionField;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 
-@Document(indexName = "products")
+// Writes carry the event version as an external version (see ProductBulkIndexer)
+@Document(indexName = "products", versionType = Document.VersionType.EXTERNAL)
+@Setting(settingPath = "/elasticsearch/product-settings.json")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductDocument {
 
+    // Also mapped as a keyword so it can break ties in search_after sorting
     @Id
+    @Field(type = FieldType.Keyword)
     private String id;
 
-    @Field(type = FieldType.Text)
+    // name.prefix holds edge n-grams so partial words match as the user types
+    @MultiField(
+            mainField = @Field(type = FieldType.Text, analyzer = "product_text"),
+            otherFields = {
+                    @InnerField(suffix = "prefix", type = FieldType.Text,
+                            analyzer = "product_prefix", searchAnalyzer = "product_prefix_search"),
+                    @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256)
+            })
     private String name;
 
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, analyzer = "product_text")
     private String description;
 
     @Field(type = FieldType.Double)
@@ -33,4 +49,25 @@ public class ProductDocument {
 
     @Field(type = FieldType.Keyword)
     private String category;
+
+    // Set on the tombstone a ProductDeleted event leaves, which readers filter out
+    @Field(type = FieldType.Boolean)
+    private Boolean deleted;
+
+    // Completion suggester input for typeahead, filled from the name when indexing
+    @CompletionField(analyzer = "product_prefix_search", maxInputLength = 100)
+    private Completion suggest;
+
+    /**
+     * Stands in for a deleted product. Kept instead of an Elasticsearch delete so its
+     * version keeps refusing older events for the product; a real delete forgets the
+     * version once {@code index.gc_deletes} has passed.
+     */
+    public static ProductDocument tombstone(String id) {
+        return ProductDocument.builder().id(id).deleted(true).build();
+    }
+
+    public boolean isDeleted() {
+        return Boolean.TRUE.equals(deleted);
+    }
 }
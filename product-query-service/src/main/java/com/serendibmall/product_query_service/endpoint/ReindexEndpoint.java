@@ -0,0 +1,50 @@
+package com.serendibmall.product_query_service.endpoint;
+
+import com.serendibmall.product_query_service.service.ProductReindexService;
+import com.serendibmall.product_query_service.service.ProductReindexService.ReindexStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * {@code GET /actuator/reindex} reports the current or last rebuild on this replica;
+ * {@code POST /actuator/reindex} starts one and {@code DELETE /actuator/reindex}
+ * abandons the one in progress on any replica.
+ * <p>
+ * The actuator port is not authenticated, so only the read operation is enabled by
+ * default. Set {@code PRODUCT_REINDEX_ENDPOINT_ACCESS=unrestricted} on a replica, e.g.
+ * for the duration of a maintenance window, to allow the other two.
+ */
+@Component
+@Endpoint(id = "reindex")
+@RequiredArgsConstructor
+public class ReindexEndpoint {
+
+    private final ProductReindexService reindexService;
+
+    @ReadOperation
+    public ReindexStatus status() {
+        return reindexService.status();
+    }
+
+    @WriteOperation
+    public ReindexStatus start() {
+        if (!reindexService.start()) {
+            throw new IllegalStateException("A rebuild is already running");
+        }
+        return reindexService.status();
+    }
+
+    @DeleteOperation
+    public ReindexStatus abandon() throws IOException {
+        if (!reindexService.abandon()) {
+            throw new IllegalStateException("No rebuild is running");
+        }
+        return reindexService.status();
+    }
+}
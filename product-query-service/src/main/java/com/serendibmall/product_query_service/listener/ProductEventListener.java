@@ -1,86 +1,177 @@
 package com.serendibmall.product_query_service.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serendibmall.product_query_service.document.ProductDocument;
-import com.serendibmall.product_query_service.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.serendibmall.product_query_service.service.ProductBulkIndexer;
+import com.serendibmall.product_query_service.service.ProductBulkIndexer.BulkIndexingException;
+import com.serendibmall.product_query_service.service.ProductBulkIndexer.PendingDocument;
+import com.serendibmall.product_query_service.service.ProductSuggestService;
+import com.serendibmall.saga_events.ProductEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes product.events into Elasticsearch a poll at a time through
+ * {@link ProductBulkIndexer}. A poll holds up to {@code max-poll-records} events. By
+ * default the broker hands over whatever is ready, so a quiet topic is indexed without
+ * delay; raising {@code fetch-min-bytes} makes it wait for that many bytes or
+ * {@code flush-interval-ms}, trading latency for fuller bulk requests during a
+ * backfill. Offsets are committed only after the poll's
+ * bulk requests succeed; on failure the batch is redelivered from the first record
+ * that was not indexed.
+ * <p>
+ * Events carry their product's version. Within a poll only the newest event per
+ * product is kept, and Elasticsearch's external versioning drops the rest of the
+ * stale or redelivered ones, so a replay after a rebalance costs little more than
+ * reading it. Dropped events count as {@code products.indexing.documents{result=skipped}}.
+ * A ProductDeleted event indexes a tombstone with its version rather than removing
+ * the document, so older events that arrive after it are dropped the same way.
+ */
 @Component
 @Slf4j
 public class ProductEventListener {
 
-    public ProductEventListener(ProductRepository productRepository, ObjectMapper objectMapper) {
-        this.productRepository = productRepository;
-        this.objectMapper = objectMapper;
+    public ProductEventListener(ProductBulkIndexer bulkIndexer, MeterRegistry meterRegistry) {
+        this.bulkIndexer = bulkIndexer;
+        this.skippedCounter = meterRegistry.counter("products.indexing.documents", "result", "skipped");
         log.info("ProductEventListener initialized! Ready to consume events.");
     }
 
-    private final ProductRepository productRepository;
-    private final ObjectMapper objectMapper;
-
-    @KafkaListener(topics = "product.events", groupId = "product-query-service")
-    public void handleProductEvent(String message, @Header(value = "event_type", required = false) String eventTypeHeader) {
-        try {
-            log.info("Received event: {}", message);
-
-            // SMT has already extracted the payload - check for double serialization
-            JsonNode payload = objectMapper.readTree(message);
-            if (payload.isTextual()) {
-                payload = objectMapper.readTree(payload.asText());
+    // Every event but ProductDeleted carries the product's full state after it
+    private static final Set<String> INDEXED_EVENT_TYPES =
+            Set.of("ProductCreated", "ProductUpdated", "ProductPriceChanged", "ProductDeleted");
+
+    private final ProductBulkIndexer bulkIndexer;
+    private final Counter skippedCounter;
+
+    @KafkaListener(topics = "product.events", groupId = "product-query-service",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            properties = {
+                    "max.poll.records=${product.indexing.max-poll-records:2000}",
+                    "fetch.min.bytes=${product.indexing.fetch-min-bytes:1}",
+                    "fetch.max.wait.ms=${product.indexing.flush-interval-ms:500}"
+            })
+    public void handleProductEvents(List<ConsumerRecord<String, String>> records) {
+        // Newest event per product, in the order of the records they came from
+        Map<String, Integer> latest = new LinkedHashMap<>();
+        List<ProductEvent> events = new ArrayList<>(records.size());
+        int superseded = 0;
+        for (int i = 0; i < records.size(); i++) {
+            ProductEvent event = decode(records.get(i));
+            events.add(event);
+            if (event == null) {
+                continue;
             }
-
-            if (payload == null) {
-                log.warn("Event is null");
-                return;
+            Integer previous = latest.get(event.productId());
+            if (previous != null) {
+                superseded++;
+                if (!supersedes(event, events.get(previous))) {
+                    continue;
+                }
+                latest.remove(event.productId());
             }
+            latest.put(event.productId(), i);
+        }
+        if (superseded > 0) {
+            skippedCounter.increment(superseded);
+        }
 
-            // Get the event type from the payload
-            String eventType = payload.has("event_type") ? payload.get("event_type").asText() : null;
-            
-            // Also check for "type" field for consistency with other services
-            if (eventType == null && payload.has("type")) {
-                eventType = payload.get("type").asText();
+        List<PendingDocument> documents = new ArrayList<>(latest.size());
+        for (int i : latest.values()) {
+            ConsumerRecord<String, String> record = records.get(i);
+            ProductEvent event = events.get(i);
+            ProductDocument productDoc = "ProductDeleted".equals(event.eventType())
+                    ? ProductDocument.tombstone(event.productId())
+                    : toDocument(event);
+            if (productDoc != null) {
+                documents.add(new PendingDocument(i, productDoc, event.version(),
+                        record.serializedValueSize(), record.timestamp()));
             }
+        }
 
-            // Fallback to header
-            if (eventType == null) {
-                eventType = eventTypeHeader;
+        if (!documents.isEmpty()) {
+            try {
+                bulkIndexer.index(documents);
+                log.info("Indexed {} products and tombstones from {} events", documents.size(), records.size());
+            } catch (BulkIndexingException e) {
+                log.error("Bulk indexing failed at record {} of {}", e.getRecordIndex(), records.size(), e);
+                throw new BatchListenerFailedException("Failed to index product events", e, e.getRecordIndex());
             }
+        }
+    }
 
-            log.info("Processing event type: {}", eventType);
+    /**
+     * Whether {@code event} is newer than {@code previous} for the same product. Without
+     * versions on both, the later record wins.
+     */
+    private static boolean supersedes(ProductEvent event, ProductEvent previous) {
+        return event.version() == null || previous.version() == null || event.version() > previous.version();
+    }
 
-            if ("ProductCreated".equals(eventType)) {
-                // Extract product data directly from the clean payload
-                String productId = payload.has("product_id") ? payload.get("product_id").asText() : null;
-                
-                if (productId == null) {
-                    log.warn("ProductCreated event missing product_id");
-                    return;
-                }
+    /**
+     * Decodes an event the read models act on, or returns null to skip the record.
+     */
+    static ProductEvent decode(ConsumerRecord<String, String> record) {
+        try {
+            log.debug("Received event: {}", record.value());
 
-                ProductDocument productDoc = ProductDocument.builder()
-                        .id(productId)
-                        .name(payload.get("name").asText())
-                        .description(payload.has("description") ? payload.get("description").asText() : "")
-                        .price(payload.get("price").asDouble())
-                        .currency(payload.has("currency") ? payload.get("currency").asText() : "USD")
-                        .category(payload.has("category") ? payload.get("category").asText() : "")
-                        .build();
-
-                productRepository.save(productDoc);
-                log.info("Product indexed in Elasticsearch: {}", productDoc.getId());
-            }
+            // SMT has already extracted the payload; the codec also handles double serialization
+            ProductEvent event = SagaEventCodec.decodeProductEvent(record.value());
+
+            // Event type from the payload, falling back to the header
+            String eventType = event.eventType() != null ? event.eventType() : headerValue(record, "event_type");
 
+            if (!INDEXED_EVENT_TYPES.contains(eventType)) {
+                return null;
+            }
+            if (event.productId() == null) {
+                log.warn("{} event missing product_id", eventType);
+                return null;
+            }
+            return new ProductEvent(eventType, event.productId(), event.name(), event.description(),
+                    event.price(), event.currency(), event.category(), event.version());
         } catch (Exception e) {
-            log.error("Error processing product event", e);
+            log.error("Error processing product event at offset {}", record.offset(), e);
+            return null;
         }
     }
-}
 
+    /**
+     * Builds the document from an event carrying the product's full state.
+     */
+    private ProductDocument toDocument(ProductEvent event) {
+        String productId = event.productId();
+        if (event.name() == null || event.price() == null) {
+            log.warn("{} event {} missing name or price", event.eventType(), productId);
+            return null;
+        }
+
+        return ProductDocument.builder()
+                .id(productId)
+                .name(event.name())
+                .description(event.description() != null ? event.description() : "")
+                .price(event.price())
+                .currency(event.currency() != null ? event.currency() : "USD")
+                .category(event.category() != null ? event.category() : "")
+                .suggest(ProductSuggestService.completionFor(event.name()))
+                .build();
+    }
+
+    private static String headerValue(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.serendibmall.product_query_service.listener;
+
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product_query_service.service.ProductLocalStore;
+import com.serendibmall.product_query_service.service.ProductLocalStore.ProductChange;
+import com.serendibmall.saga_events.ProductEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fills {@link ProductLocalStore} from product.events. Every pod needs the whole
+ * topic, so each consumes it in a group of its own, and positions come from the
+ * offsets the store keeps with its data, not from the group's committed offsets.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "product.local-store.enabled", havingValue = "true")
+public class ProductLocalStoreListener implements ConsumerSeekAware {
+
+    private final ProductLocalStore localStore;
+
+    @KafkaListener(id = "product-local-store", topics = "product.events",
+            groupId = "product-query-local-${HOSTNAME:local}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            properties = {
+                    "max.poll.records=${product.indexing.max-poll-records:2000}",
+                    "auto.offset.reset=earliest"
+            })
+    public void handleProductEvents(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        List<ProductChange> changes = new ArrayList<>(records.size());
+        Map<String, Long> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            nextOffsets.put(record.topic() + "-" + record.partition(), record.offset() + 1);
+            ProductEvent event = ProductEventListener.decode(record);
+            if (event == null) {
+                continue;
+            }
+            if (event.isType("ProductDeleted")) {
+                changes.add(new ProductChange(event.productId(), event.version(), null));
+            } else if (event.name() != null && event.price() != null) {
+                changes.add(new ProductChange(event.productId(), event.version(), toProductResponse(event)));
+            }
+        }
+        localStore.apply(changes, nextOffsets);
+        log.debug("Applied {} product changes to the local store", changes.size());
+
+        if (!localStore.isReady() && caughtUp(consumer)) {
+            localStore.markReady();
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<String, Long> stored = localStore.offsets();
+        for (TopicPartition partition : assignments.keySet()) {
+            Long next = stored.get(partition.toString());
+            if (next != null) {
+                callback.seek(partition.topic(), partition.partition(), next);
+            } else {
+                callback.seekToBeginning(partition.topic(), partition.partition());
+            }
+        }
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer) {
+        Set<TopicPartition> assignment = consumer.assignment();
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assignment);
+        for (TopicPartition partition : assignment) {
+            if (consumer.position(partition) < endOffsets.getOrDefault(partition, 0L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ProductResponse toProductResponse(ProductEvent event) {
+        ProductResponse.Builder product = ProductResponse.newBuilder()
+                .setId(event.productId())
+                .setName(event.name())
+                .setDescription(event.description() != null ? event.description() : "")
+                .setPrice(event.price())
+                .setCurrency(event.currency() != null ? event.currency() : "USD")
+                .setCategory(event.category() != null ? event.category() : "");
+        if (event.version() != null) {
+            product.setVersion(event.version());
+        }
+        return product.build();
+    }
+}
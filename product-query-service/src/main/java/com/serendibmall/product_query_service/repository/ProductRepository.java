@@ -10,8 +10,5 @@ import org.springframework.stereotype.Repository;
 public interface ProductRepository extends ElasticsearchRepository<ProductDocument, String> {
 
     Page<ProductDocument> findAll(Pageable pageable);
-
-    Page<ProductDocument> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-            String name, String description, Pageable pageable);
 }
 
@@ -0,0 +1,275 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.VersionType;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes product documents to Elasticsearch in {@code _bulk} requests.
+ * <p>
+ * A batch is split into bulk requests of at most {@code max-actions} documents and
+ * {@code max-bytes} of source. Items rejected with a retryable status (429 or 5xx)
+ * are resent on their own with exponential backoff; items rejected for good (e.g.
+ * a mapping error) are logged and counted. When retries run out a
+ * {@link BulkIndexingException} names the first record that was not indexed, so the
+ * caller can hold back its offset.
+ * <p>
+ * Writes carry the event's version as an Elasticsearch external version, so a write
+ * older than the indexed document is refused with a 409 and counted as skipped
+ * instead of overwriting newer data. Deletes are written the same way, as
+ * {@link ProductDocument#tombstone tombstones}, so the version outlives the product.
+ * <p>
+ * Metrics: {@code products.indexing.documents} (by result), {@code products.indexing.retries},
+ * {@code products.indexing.bulk} (request timer) and {@code products.indexing.lag}, the
+ * milliseconds between the newest indexed event being produced and it being indexed.
+ * <p>
+ * While {@link ProductReindexService} builds a new index, on this replica or another,
+ * every chunk is first mirrored into it through the {@code products_building} alias.
+ * Mirroring first means a chunk either reached the new index or was written before
+ * the alias moved; written after, it would land in the old index only. A rejected
+ * mirror write fails the rebuild rather than the batch.
+ */
+@Service
+@Slf4j
+public class ProductBulkIndexer {
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductReindexService reindexService;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private final Counter indexedCounter;
+    private final Counter rejectedCounter;
+    private final Counter deletedCounter;
+    private final Counter skippedCounter;
+    private final Counter retryCounter;
+    private final Timer bulkTimer;
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public ProductBulkIndexer(ElasticsearchOperations elasticsearchOperations,
+                              ElasticsearchClient elasticsearchClient,
+                              ProductReindexService reindexService,
+                              MeterRegistry meterRegistry,
+                              @Value("${product.indexing.bulk.max-actions:1000}") int maxActions,
+                              @Value("${product.indexing.bulk.max-bytes:5242880}") long maxBytes,
+                              @Value("${product.indexing.bulk.max-retries:3}") int maxRetries,
+                              @Value("${product.indexing.bulk.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.reindexService = reindexService;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.indexedCounter = meterRegistry.counter("products.indexing.documents", "result", "indexed");
+        this.rejectedCounter = meterRegistry.counter("products.indexing.documents", "result", "rejected");
+        this.deletedCounter = meterRegistry.counter("products.indexing.documents", "result", "deleted");
+        this.skippedCounter = meterRegistry.counter("products.indexing.documents", "result", "skipped");
+        this.retryCounter = meterRegistry.counter("products.indexing.retries");
+        this.bulkTimer = meterRegistry.timer("products.indexing.bulk");
+        meterRegistry.gauge("products.indexing.lag", lagMs);
+    }
+
+    /**
+     * Indexes the documents in order, one bulk request per chunk.
+     */
+    public void index(List<PendingDocument> documents) {
+        List<PendingDocument> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        for (PendingDocument document : documents) {
+            if (!chunk.isEmpty() && (chunk.size() >= maxActions || chunkBytes + document.sizeBytes() > maxBytes)) {
+                indexChunk(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(document);
+            chunkBytes += document.sizeBytes();
+        }
+        if (!chunk.isEmpty()) {
+            indexChunk(chunk);
+        }
+    }
+
+    private void indexChunk(List<PendingDocument> chunk) {
+        mirrorToBuildingIndex(chunk);
+        List<PendingDocument> pending = chunk;
+        for (int attempt = 0; ; attempt++) {
+            List<IndexQuery> queries = toQueries(pending);
+            try {
+                bulkTimer.record(() -> elasticsearchOperations.bulkIndex(
+                        queries, BulkOptions.defaultOptions(), ProductDocument.class));
+                recordIndexed(pending);
+                return;
+            } catch (BulkFailureException e) {
+                pending = handlePartialFailure(pending, e.getFailedDocuments());
+                if (pending.isEmpty()) {
+                    return;
+                }
+                if (attempt >= maxRetries) {
+                    throw new BulkIndexingException(pending.get(0).recordIndex(),
+                            pending.size() + " documents still failing after " + attempt + " retries", e);
+                }
+            } catch (DataAccessException e) {
+                if (attempt >= maxRetries) {
+                    throw new BulkIndexingException(pending.get(0).recordIndex(),
+                            "Bulk request failed after " + attempt + " retries", e);
+                }
+                log.warn("Bulk request of {} documents failed, retrying: {}", pending.size(), e.getMessage());
+            }
+            retryCounter.increment(pending.size());
+            backOff(attempt);
+        }
+    }
+
+    private void mirrorToBuildingIndex(List<PendingDocument> chunk) {
+        try {
+            if (!reindexService.rebuildInProgress()) {
+                return;
+            }
+            BulkResponse response = elasticsearchClient.bulk(b -> {
+                // Without the alias every item fails with a 404 instead of creating an index
+                b.index(ProductReindexService.BUILDING_ALIAS).requireAlias(true);
+                for (PendingDocument document : chunk) {
+                    b.operations(op -> op.index(i -> {
+                        i.id(document.document().getId())
+                                .document(elasticsearchOperations.getElasticsearchConverter()
+                                        .mapObject(document.document()));
+                        if (document.version() != null) {
+                            i.version(document.version()).versionType(VersionType.External);
+                        }
+                        return i;
+                    }));
+                }
+                return b;
+            });
+            for (BulkResponseItem item : response.items()) {
+                // 409: the load already wrote a newer version; 404: the rebuild finished or failed
+                if (item.error() != null && item.status() != 409 && item.status() != 404) {
+                    reindexService.failBuild("write of product " + item.id() + " failed: " + item.error().reason());
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Neither mirrored nor able to fail the rebuild: hold the batch back instead
+            throw new BulkIndexingException(chunk.get(0).recordIndex(),
+                    "Could not mirror " + chunk.size() + " documents into the rebuilt index", e);
+        }
+    }
+
+    /**
+     * Counts the items that went through and returns the ones worth retrying, in order.
+     */
+    private List<PendingDocument> handlePartialFailure(List<PendingDocument> pending,
+                                                       Map<String, BulkFailureException.FailureDetails> failures) {
+        List<PendingDocument> succeeded = new ArrayList<>();
+        List<PendingDocument> retryable = new ArrayList<>();
+        for (PendingDocument document : pending) {
+            BulkFailureException.FailureDetails failure = failures.get(document.document().getId());
+            if (failure == null) {
+                succeeded.add(document);
+            } else if (isVersionConflict(failure.status())) {
+                // Stale or redelivered: the index already holds this version or a newer one
+                skippedCounter.increment();
+            } else if (isRetryable(failure.status())) {
+                retryable.add(document);
+            } else {
+                rejectedCounter.increment();
+                log.error("Product {} rejected by Elasticsearch ({}): {}",
+                        document.document().getId(), failure.status(), failure.errorMessage());
+            }
+        }
+        recordIndexed(succeeded);
+        if (!retryable.isEmpty()) {
+            log.warn("{} of {} bulk items failed with a retryable status", retryable.size(), pending.size());
+        }
+        return retryable;
+    }
+
+    private void recordIndexed(List<PendingDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        long tombstones = documents.stream().filter(document -> document.document().isDeleted()).count();
+        indexedCounter.increment(documents.size() - tombstones);
+        deletedCounter.increment(tombstones);
+        long newestEvent = documents.stream().mapToLong(PendingDocument::eventTimestamp).max().getAsLong();
+        lagMs.set(Math.max(0, System.currentTimeMillis() - newestEvent));
+    }
+
+    private static List<IndexQuery> toQueries(List<PendingDocument> documents) {
+        List<IndexQuery> queries = new ArrayList<>(documents.size());
+        for (PendingDocument document : documents) {
+            queries.add(new IndexQueryBuilder()
+                    .withId(document.document().getId())
+                    .withObject(document.document())
+                    .withVersion(document.version())
+                    .build());
+        }
+        return queries;
+    }
+
+    private static boolean isVersionConflict(Integer status) {
+        return status != null && status == 409;
+    }
+
+    private static boolean isRetryable(Integer status) {
+        return status == null || status == 429 || status >= 500;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off a bulk retry", e);
+        }
+    }
+
+    /**
+     * A document to index along with the position of the record it came from, the
+     * event's version (null if it has none), its approximate source size and the
+     * record's timestamp.
+     */
+    public record PendingDocument(int recordIndex, ProductDocument document, Long version, int sizeBytes,
+                                  long eventTimestamp) {}
+
+    public static class BulkIndexingException extends RuntimeException {
+
+        private final int recordIndex;
+
+        public BulkIndexingException(int recordIndex, String message, Throwable cause) {
+            super(message, cause);
+            this.recordIndex = recordIndex;
+        }
+
+        /**
+         * Index in the consumed batch of the first record that was not indexed.
+         */
+        public int getRecordIndex() {
+            return recordIndex;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Query.PointInTime;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Walks the product index for catalog exports.
+ * <p>
+ * A cursor opens a point in time, so the export sees one consistent snapshot of the
+ * index however long the client takes, and pages through it with {@code search_after}
+ * on {@code id}. Every page costs the same, there is no result window limit, and only
+ * one page is held in memory at a time. The point in time is kept alive by each page
+ * request and released when the cursor is closed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${product.export.page-size:1000}")
+    private int pageSize;
+
+    @Value("${product.export.keep-alive:1m}")
+    private Duration keepAlive;
+
+    /**
+     * Opens a cursor over all products, or only those in {@code category} when it is
+     * not empty. The caller must close it.
+     */
+    public ExportCursor open(String category) {
+        String pitId = elasticsearchOperations.openPointInTime(
+                elasticsearchOperations.getIndexCoordinatesFor(ProductDocument.class), keepAlive);
+        return new ExportCursor(pitId, category);
+    }
+
+    public class ExportCursor implements AutoCloseable {
+
+        private final String category;
+        private String pitId;
+        private List<Object> searchAfter;
+        private boolean exhausted;
+
+        private ExportCursor(String pitId, String category) {
+            this.pitId = pitId;
+            this.category = category;
+        }
+
+        /**
+         * Returns the next page, or an empty list once every product has been read.
+         */
+        public List<ProductDocument> nextPage() {
+            if (exhausted) {
+                return List.of();
+            }
+
+            NativeQueryBuilder builder = NativeQuery.builder()
+                    .withPointInTime(new PointInTime(pitId, keepAlive))
+                    .withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)))
+                    .withPageable(PageRequest.of(0, pageSize))
+                    .withTrackTotalHits(false);
+            if (category != null && !category.isEmpty()) {
+                builder.withQuery(ProductSearchService.excludingDeleted(Query.of(q -> q.bool(b -> b
+                        .filter(f -> f.term(t -> t.field("category").value(category)))))));
+            } else {
+                builder.withQuery(ProductSearchService.excludingDeleted(Query.of(q -> q.matchAll(m -> m))));
+            }
+            if (searchAfter != null) {
+                builder.withSearchAfter(searchAfter);
+            }
+
+            SearchHits<ProductDocument> hits = elasticsearchOperations.search(builder.build(), ProductDocument.class);
+            if (hits.getPointInTimeId() != null) {
+                // Elasticsearch may hand back a new id for the same point in time
+                pitId = hits.getPointInTimeId();
+            }
+
+            List<SearchHit<ProductDocument>> searchHits = hits.getSearchHits();
+            if (searchHits.size() < pageSize) {
+                exhausted = true;
+            }
+            if (!searchHits.isEmpty()) {
+                searchAfter = searchHits.get(searchHits.size() - 1).getSortValues();
+            }
+            return searchHits.stream().map(SearchHit::getContent).toList();
+        }
+
+        @Override
+        public void close() {
+            try {
+                elasticsearchOperations.closePointInTime(pitId);
+            } catch (Exception e) {
+                // It expires on its own after keep-alive
+                log.warn("Could not close point in time: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.serendibmall.product_query_service.service;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.serendibmall.product.v1.ProductResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product-by-id read model in an embedded RocksDB, next to the Elasticsearch index.
+ * <p>
+ * Off unless {@code product.local-store.enabled} is set. When on,
+ * {@code ProductLocalStoreListener} fills it from product.events, and GetProduct and
+ * GetProducts read from it instead of Elasticsearch. Values are the serialized
+ * {@link ProductResponse}, so a hit is one key lookup and one parse. Blocks are cached
+ * off-heap, in a {@code block-cache-mb} LRU cache outside the Java heap.
+ * <p>
+ * Each write batch stores the next offset of every partition it read along with the
+ * products, so data and offsets always match on disk. A restarted pod resumes from
+ * those offsets instead of re-reading the topic, and serves reads right away. An empty
+ * store is not ready until it has caught up with the topic; until then, and on any
+ * miss, callers fall back to Elasticsearch.
+ * <p>
+ * Metrics: {@code products.local-store.reads} (by result) and
+ * {@code products.local-store.ready}.
+ */
+@Service
+@Slf4j
+public class ProductLocalStore {
+
+    private static final byte[] OFFSETS_FAMILY = "offsets".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final Path path;
+    private final long blockCacheMb;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private DBOptions dbOptions;
+    private ColumnFamilyOptions productOptions;
+    private ColumnFamilyOptions offsetOptions;
+    private final List<ColumnFamilyHandle> handles = new ArrayList<>();
+    private RocksDB db;
+    private ColumnFamilyHandle products;
+    private ColumnFamilyHandle offsets;
+    private volatile boolean ready;
+
+    public ProductLocalStore(MeterRegistry meterRegistry,
+                             @Value("${product.local-store.enabled:false}") boolean enabled,
+                             @Value("${product.local-store.path:/var/lib/product-query/local-store}") String path,
+                             @Value("${product.local-store.block-cache-mb:64}") long blockCacheMb) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.blockCacheMb = blockCacheMb;
+        this.hitCounter = meterRegistry.counter("products.local-store.reads", "result", "hit");
+        this.missCounter = meterRegistry.counter("products.local-store.reads", "result", "miss");
+        meterRegistry.gauge("products.local-store.ready", this, store -> store.isReady() ? 1 : 0);
+    }
+
+    @PostConstruct
+    public void open() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        RocksDB.loadLibrary();
+        Files.createDirectories(path);
+        dbOptions = new DBOptions()
+                .setCreateIfMissing(true)
+                .setCreateMissingColumnFamilies(true);
+        // Bloom filters and a hashed block index for single-key gets
+        productOptions = new ColumnFamilyOptions().optimizeForPointLookup(blockCacheMb);
+        offsetOptions = new ColumnFamilyOptions();
+        db = RocksDB.open(dbOptions, path.toString(), List.of(
+                new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, productOptions),
+                new ColumnFamilyDescriptor(OFFSETS_FAMILY, offsetOptions)), handles);
+        products = handles.get(0);
+        offsets = handles.get(1);
+
+        // Offsets on disk mean the store was filled before: warm start
+        ready = !offsets().isEmpty();
+        log.info("Opened product local store at {} ({}, ~{} products)", path, ready ? "warm" : "empty",
+                db.getLongProperty(products, "rocksdb.estimate-num-keys"));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (db == null) {
+            return;
+        }
+        ready = false;
+        handles.forEach(ColumnFamilyHandle::close);
+        db.close();
+        productOptions.close();
+        offsetOptions.close();
+        dbOptions.close();
+        db = null;
+    }
+
+    /**
+     * Whether reads may be served from the store.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks an initially empty store as caught up with the topic.
+     */
+    public void markReady() {
+        if (!ready) {
+            ready = true;
+            log.info("Product local store caught up with product.events");
+        }
+    }
+
+    /**
+     * The product with the given id, or null if the store does not hold it.
+     */
+    public ProductResponse get(String productId) {
+        try {
+            byte[] value = db.get(products, key(productId));
+            (value != null ? hitCounter : missCounter).increment();
+            return value != null ? ProductResponse.parseFrom(value) : null;
+        } catch (RocksDBException | InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not read product " + productId + " from the local store", e);
+        }
+    }
+
+    /**
+     * The products the store holds among the given ids, keyed by id, in one multi-get.
+     */
+    public Map<String, ProductResponse> getAll(List<String> productIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<String, ProductResponse> found = new HashMap<>();
+        try {
+            List<byte[]> values = multiGet(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                if (values.get(i) != null) {
+                    found.put(ids.get(i), ProductResponse.parseFrom(values.get(i)));
+                }
+            }
+        } catch (RocksDBException | InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not read products from the local store", e);
+        }
+        hitCounter.increment(found.size());
+        missCounter.increment(ids.size() - found.size());
+        return found;
+    }
+
+    /**
+     * Applies a poll's changes in order together with the next offset of each partition
+     * read, in one atomic write. A change older than the stored version of its product
+     * is ignored.
+     */
+    public void apply(List<ProductChange> changes, Map<String, Long> nextOffsets) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(changes.stream().map(ProductChange::productId).toList()));
+        try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+            // Latest version per product, as stored and then as written by this batch
+            Map<String, Long> versions = new HashMap<>();
+            List<byte[]> stored = multiGet(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                if (stored.get(i) != null) {
+                    versions.put(ids.get(i), ProductResponse.parseFrom(stored.get(i)).getVersion());
+                }
+            }
+
+            for (ProductChange change : changes) {
+                Long current = versions.get(change.productId());
+                if (change.version() != null && current != null && current > 0 && change.version() <= current) {
+                    continue;
+                }
+                if (change.product() == null) {
+                    batch.delete(products, key(change.productId()));
+                    // Still guards the rest of this batch against older events
+                    versions.put(change.productId(), change.version() != null ? change.version() : 0L);
+                } else {
+                    batch.put(products, key(change.productId()), change.product().toByteArray());
+                    versions.put(change.productId(), change.product().getVersion());
+                }
+            }
+            for (Map.Entry<String, Long> offset : nextOffsets.entrySet()) {
+                batch.put(offsets, key(offset.getKey()), ByteBuffer.allocate(Long.BYTES).putLong(offset.getValue()).array());
+            }
+            db.write(writeOptions, batch);
+        } catch (RocksDBException | InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not write " + changes.size() + " product changes to the local store", e);
+        }
+    }
+
+    /**
+     * Next offset to read per topic-partition, as {@code <topic>-<partition>}.
+     */
+    public Map<String, Long> offsets() {
+        Map<String, Long> result = new HashMap<>();
+        try (RocksIterator iterator = db.newIterator(offsets)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                result.put(new String(iterator.key(), StandardCharsets.UTF_8), ByteBuffer.wrap(iterator.value()).getLong());
+            }
+        }
+        return result;
+    }
+
+    private List<byte[]> multiGet(List<String> ids) throws RocksDBException {
+        List<byte[]> keys = new ArrayList<>(ids.size());
+        List<ColumnFamilyHandle> families = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(key(id));
+            families.add(products);
+        }
+        return db.multiGetAsList(families, keys);
+    }
+
+    private static byte[] key(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A product's state after an event, or a delete when {@code product} is null.
+     * {@code version} is the event's version, or null if it has none.
+     */
+    public record ProductChange(String productId, Long version, ProductResponse product) {}
+}
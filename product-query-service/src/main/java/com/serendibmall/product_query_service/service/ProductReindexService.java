@@ -0,0 +1,391 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product.v1.ProductServiceGrpc;
+import com.serendibmall.product.v1.StreamProductsRequest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rebuilds the product index from the event store without interrupting reads.
+ * <p>
+ * Reads and writes go through the {@code products} alias. A rebuild creates a fresh
+ * {@code products_v<timestamp>} index with replicas and refresh turned off, points the
+ * {@code products_building} alias at it, streams the current state of every product
+ * from product-command-service's StreamProducts, and bulk-loads it with
+ * {@code concurrency} writers. Meanwhile {@link ProductBulkIndexer} on every replica
+ * mirrors live events into the index behind {@code products_building}. Loaded
+ * documents carry their latest event version as an external version, so the load
+ * and live writes converge on the newest state whichever lands first; a product
+ * deleted during the build loses to its newer tombstone. Products deleted before the
+ * build are streamed as tombstones too and loaded at their delete's version, so a
+ * late older event cannot bring them back in the new index. Finally replicas and refresh
+ * are restored, and one atomic {@code _aliases} call moves {@code products} to the new
+ * index and removes {@code products_building}. The old index, or a pre-alias concrete
+ * {@code products} index, is removed.
+ * <p>
+ * A replica that fails to mirror a write removes {@code products_building}. The swap
+ * requires that alias to still exist, so the build then fails instead of publishing an
+ * index that missed the write. Replicas look the alias up at most every
+ * {@code building-check-interval-ms} and a rebuild waits that out before loading, so a
+ * write that skipped the mirror on a stale answer is still in what the load reads.
+ * A rebuild is refused while the alias exists; one left behind by a replica that died
+ * mid-build is cleared with {@link #abandon()}.
+ * <p>
+ * Metrics: {@code products.reindex.documents}, {@code products.reindex.progress}
+ * (documents loaded by the current or last run), {@code products.reindex.running}
+ * and {@code products.reindex.duration} (by result).
+ */
+@Service
+@Slf4j
+public class ProductReindexService {
+
+    public static final String ALIAS = "products";
+    public static final String BUILDING_ALIAS = "products_building";
+    private static final DateTimeFormatter VERSION_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductServiceGrpc.ProductServiceBlockingStub productCommandStub;
+    private final MeterRegistry meterRegistry;
+    private final int bulkSize;
+    private final int concurrency;
+    private final int replicas;
+    private final String refreshInterval;
+    private final long buildingCheckIntervalMs;
+
+    private final Counter documentsCounter;
+    private final AtomicLong progress = new AtomicLong();
+    private final AtomicInteger runningGauge = new AtomicInteger();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReindexStatus status = ReindexStatus.NEVER_RUN;
+    private volatile boolean buildingSeen;
+    private volatile long buildingCheckedAtNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public ProductReindexService(ElasticsearchOperations elasticsearchOperations,
+                                 ElasticsearchClient elasticsearchClient,
+                                 @Qualifier("productCommandServiceChannel") ManagedChannel productCommandServiceChannel,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${product.reindex.bulk-size:2000}") int bulkSize,
+                                 @Value("${product.reindex.concurrency:4}") int concurrency,
+                                 @Value("${product.reindex.replicas:1}") int replicas,
+                                 @Value("${product.reindex.refresh-interval:1s}") String refreshInterval,
+                                 @Value("${product.reindex.building-check-interval-ms:1000}") long buildingCheckIntervalMs) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.productCommandStub = ProductServiceGrpc.newBlockingStub(productCommandServiceChannel);
+        this.meterRegistry = meterRegistry;
+        this.bulkSize = bulkSize;
+        this.concurrency = concurrency;
+        this.replicas = replicas;
+        this.refreshInterval = refreshInterval;
+        this.buildingCheckIntervalMs = buildingCheckIntervalMs;
+        this.documentsCounter = meterRegistry.counter("products.reindex.documents");
+        meterRegistry.gauge("products.reindex.progress", progress);
+        meterRegistry.gauge("products.reindex.running", runningGauge);
+    }
+
+    /**
+     * Starts a rebuild in the background. Returns false if one is already running here
+     * or on another replica.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (buildingAliasExists()) {
+                running.set(false);
+                return false;
+            }
+        } catch (IOException e) {
+            running.set(false);
+            throw new UncheckedIOException(e);
+        }
+        runningGauge.set(1);
+        Thread.ofVirtual().name("product-reindex").start(this::rebuild);
+        return true;
+    }
+
+    public ReindexStatus status() {
+        return status;
+    }
+
+    /**
+     * Deletes the index behind {@code products_building}, stopping the rebuild that
+     * owns it at its swap. Returns false if no rebuild was in progress.
+     */
+    public boolean abandon() throws IOException {
+        if (!buildingAliasExists()) {
+            return false;
+        }
+        for (String index : elasticsearchClient.indices().getAlias(g -> g.name(BUILDING_ALIAS)).result().keySet()) {
+            log.warn("Abandoning rebuild into {}", index);
+            deleteQuietly(index);
+        }
+        return true;
+    }
+
+    /**
+     * Whether a rebuild may be in progress on any replica, so live writes must be
+     * mirrored into {@code products_building}. The answer is at most
+     * {@code building-check-interval-ms} old.
+     */
+    public boolean rebuildInProgress() throws IOException {
+        long now = System.nanoTime();
+        if (now - buildingCheckedAtNanos < TimeUnit.MILLISECONDS.toNanos(buildingCheckIntervalMs)) {
+            return buildingSeen;
+        }
+        // Timed from before the lookup, which is when the answer may already be stale
+        buildingSeen = buildingAliasExists();
+        buildingCheckedAtNanos = now;
+        return buildingSeen;
+    }
+
+    /**
+     * Fails the rebuild in progress, on whichever replica runs it, because a live
+     * write could not be mirrored into the new index.
+     */
+    public void failBuild(String reason) throws IOException {
+        log.error("Failing the product index rebuild: {}", reason);
+        try {
+            elasticsearchClient.indices().deleteAlias(d -> d.index("*").name(BUILDING_ALIAS));
+        } catch (ElasticsearchException e) {
+            // 404: already removed, by another failure or an abandon
+            if (e.status() != 404) {
+                throw e;
+            }
+        }
+    }
+
+    private void rebuild() {
+        String index = ALIAS + "_v" + VERSION_FORMAT.format(Instant.now());
+        Instant startedAt = Instant.now();
+        progress.set(0);
+        status = new ReindexStatus(true, index, 0, startedAt, null, null);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failure";
+        try {
+            createBuildIndex(index);
+            // From here on live writes on every replica are mirrored into the new index
+            claimBuildingAlias(index);
+            // Every replica has seen the alias by now, or wrote before it existed
+            Thread.sleep(2 * buildingCheckIntervalMs);
+            load(index);
+            finishBuildIndex(index);
+            swapAlias(index);
+            result = "success";
+            log.info("Rebuilt {} with {} products in {} s and moved the {} alias to it",
+                    index, progress.get(), (Instant.now().toEpochMilli() - startedAt.toEpochMilli()) / 1000, ALIAS);
+            status = new ReindexStatus(false, index, progress.get(), startedAt, Instant.now(), null);
+        } catch (Exception e) {
+            log.error("Rebuild of {} failed after {} products", index, progress.get(), e);
+            status = new ReindexStatus(false, index, progress.get(), startedAt, Instant.now(), e.getMessage());
+            // Takes products_building with it when it still points here
+            deleteQuietly(index);
+        } finally {
+            sample.stop(meterRegistry.timer("products.reindex.duration", "result", result));
+            runningGauge.set(0);
+            running.set(false);
+        }
+    }
+
+    private boolean buildingAliasExists() throws IOException {
+        return elasticsearchClient.indices().existsAlias(e -> e.name(BUILDING_ALIAS)).value();
+    }
+
+    private void claimBuildingAlias(String index) throws IOException {
+        elasticsearchClient.indices().updateAliases(u -> u
+                .actions(a -> a.add(add -> add.index(index).alias(BUILDING_ALIAS))));
+        // Two replicas started at once: both give up rather than share the alias
+        Set<String> building = elasticsearchClient.indices().getAlias(g -> g.name(BUILDING_ALIAS)).result().keySet();
+        if (!building.equals(Set.of(index))) {
+            throw new IllegalStateException("Another rebuild started at the same time: " + building);
+        }
+    }
+
+    private void createBuildIndex(String index) {
+        IndexOperations productOps = elasticsearchOperations.indexOps(ProductDocument.class);
+        Settings settings = productOps.createSettings(ProductDocument.class).flatten();
+        // Restored before the alias moves over
+        settings.put("index.number_of_replicas", 0);
+        settings.put("index.refresh_interval", "-1");
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index))
+                .create(settings, productOps.createMapping(ProductDocument.class));
+    }
+
+    private void load(String index) throws InterruptedException {
+        IndexCoordinates target = IndexCoordinates.of(index);
+        Semaphore writers = new Semaphore(concurrency);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Context.CancellableContext context = Context.current().withCancellation();
+        try {
+            context.run(() -> {
+                Iterator<ProductResponse> products = productCommandStub.streamProducts(
+                        StreamProductsRequest.newBuilder().setIncludeDeleted(true).build());
+                List<ProductResponse> chunk = new ArrayList<>(bulkSize);
+                while (products.hasNext() && failure.get() == null) {
+                    chunk.add(products.next());
+                    if (chunk.size() == bulkSize) {
+                        submit(target, chunk, writers, failure);
+                        chunk = new ArrayList<>(bulkSize);
+                    }
+                }
+                if (!chunk.isEmpty() && failure.get() == null) {
+                    submit(target, chunk, writers, failure);
+                }
+            });
+        } finally {
+            // Stops the stream early on failure; a no-op once it has completed
+            context.cancel(null);
+        }
+
+        writers.acquire(concurrency);
+        if (failure.get() != null) {
+            throw new IllegalStateException("Bulk load into " + index + " failed", failure.get());
+        }
+    }
+
+    private void submit(IndexCoordinates target, List<ProductResponse> chunk, Semaphore writers,
+                        AtomicReference<Exception> failure) {
+        // Blocks the stream reader, and so the stream, while every writer is busy
+        writers.acquireUninterruptibly();
+        Thread.ofVirtual().start(() -> {
+            try {
+                writeChunk(target, chunk);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                writers.release();
+            }
+        });
+    }
+
+    private void writeChunk(IndexCoordinates target, List<ProductResponse> chunk) {
+        List<IndexQuery> queries = new ArrayList<>(chunk.size());
+        for (ProductResponse product : chunk) {
+            queries.add(new IndexQueryBuilder()
+                    .withId(product.getId())
+                    .withObject(product.getDeleted() ? ProductDocument.tombstone(product.getId()) : toDocument(product))
+                    .withVersion(product.getVersion())
+                    .build());
+        }
+
+        int written = queries.size();
+        try {
+            elasticsearchOperations.bulkIndex(queries, BulkOptions.defaultOptions(), target);
+        } catch (BulkFailureException e) {
+            for (BulkFailureException.FailureDetails details : e.getFailedDocuments().values()) {
+                // 409: a live write got there first with the same or a newer version
+                if (details.status() == null || details.status() != 409) {
+                    throw e;
+                }
+            }
+            written -= e.getFailedDocuments().size();
+        }
+        progress.addAndGet(written);
+        documentsCounter.increment(written);
+    }
+
+    private void finishBuildIndex(String index) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .numberOfReplicas(String.valueOf(replicas))
+                        .refreshInterval(t -> t.time(refreshInterval))));
+        elasticsearchClient.indices().refresh(r -> r.index(index));
+    }
+
+    private void swapAlias(String index) throws IOException {
+        boolean aliasExists = elasticsearchClient.indices().existsAlias(e -> e.name(ALIAS)).value();
+        Set<String> oldIndices = aliasExists
+                ? elasticsearchClient.indices().getAlias(g -> g.name(ALIAS)).result().keySet()
+                : Set.of();
+        // Before the first rebuild "products" is a plain index, replaced by the alias here
+        boolean concreteIndex = !aliasExists && elasticsearchClient.indices().exists(e -> e.index(ALIAS)).value();
+
+        try {
+            elasticsearchClient.indices().updateAliases(u -> {
+                u.actions(a -> a.add(add -> add.index(index).alias(ALIAS).isWriteIndex(true)));
+                // Fails the whole call if a replica dropped the alias after a failed mirror write
+                u.actions(a -> a.remove(r -> r.index(index).alias(BUILDING_ALIAS).mustExist(true)));
+                if (concreteIndex) {
+                    u.actions(a -> a.removeIndex(r -> r.index(ALIAS)));
+                }
+                for (String oldIndex : oldIndices) {
+                    u.actions(a -> a.remove(r -> r.index(oldIndex).alias(ALIAS)));
+                }
+                return u;
+            });
+        } catch (ElasticsearchException e) {
+            throw new IllegalStateException("Live writes were not all mirrored into " + index
+                    + ", or the rebuild was abandoned", e);
+        }
+
+        for (String oldIndex : oldIndices) {
+            deleteQuietly(oldIndex);
+        }
+    }
+
+    private void deleteQuietly(String index) {
+        try {
+            elasticsearchClient.indices().delete(d -> d.index(index).ignoreUnavailable(true));
+        } catch (Exception e) {
+            log.warn("Could not delete index {}: {}", index, e.getMessage());
+        }
+    }
+
+    private static ProductDocument toDocument(ProductResponse product) {
+        return ProductDocument.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .currency(product.getCurrency())
+                .category(product.getCategory())
+                .suggest(ProductSuggestService.completionFor(product.getName()))
+                .build();
+    }
+
+    public record ReindexStatus(boolean running, String index, long indexed, Instant startedAt, Instant finishedAt,
+                                String error) {
+        static final ReindexStatus NEVER_RUN = new ReindexStatus(false, null, 0, null, null, null);
+    }
+}
@@ -0,0 +1,222 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Full-text product search.
+ * <p>
+ * Text queries run as a {@code multi_match} over the analyzed name (boosted), its
+ * edge n-gram {@code name.prefix} subfield for partial words, and the description,
+ * ordered by relevance. Results are sorted by {@code _score} then {@code id}, so the
+ * last hit's sort values are a stable {@code search_after} cursor: following
+ * {@code nextPageToken} costs the same at page 500 as at page 1, unlike from/size.
+ * <p>
+ * Category, currency and price filters run in filter context as the post filter,
+ * so they are cached and do not affect scoring. Facet counts come back in the same
+ * request: each facet aggregation applies every filter except its own, which keeps
+ * the counts of unselected values visible for multi-select filtering.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private static final List<String> SEARCH_FIELDS = List.of("name^3", "name.prefix^2", "description");
+    private static final int TERMS_FACET_SIZE = 50;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.search.price-histogram-interval:50}")
+    private double priceHistogramInterval;
+
+    /**
+     * Runs a search. A non-empty {@code pageToken} continues from a previous page and
+     * {@code page} is ignored; otherwise {@code page} is read with from/size. Facets are
+     * only computed for the latter, since a cursor walk has already received them.
+     */
+    public ProductSearchPage search(String text, ProductSearchFilters filters, int page, int size, String pageToken) {
+        boolean hasText = text != null && !text.isBlank();
+
+        NativeQueryBuilder builder = NativeQuery.builder();
+        if (hasText) {
+            builder.withQuery(excludingDeleted(Query.of(q -> q.multiMatch(mm -> mm
+                            .query(text)
+                            .fields(SEARCH_FIELDS)
+                            .type(TextQueryType.BestFields)
+                            .tieBreaker(0.3)))))
+                    .withSort(s -> s.score(sc -> sc.order(SortOrder.Desc)));
+        } else {
+            builder.withQuery(excludingDeleted(Query.of(q -> q.matchAll(m -> m))));
+        }
+        builder.withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)))
+                .withTrackTotalHits(true);
+
+        List<Query> filterClauses = filterClauses(filters, null);
+        if (!filterClauses.isEmpty()) {
+            builder.withFilter(q -> q.bool(b -> b.filter(filterClauses)));
+        }
+
+        boolean cursorPage = pageToken != null && !pageToken.isEmpty();
+        if (cursorPage) {
+            builder.withSearchAfter(decodePageToken(pageToken))
+                    .withPageable(PageRequest.of(0, size));
+        } else {
+            builder.withPageable(PageRequest.of(page, size));
+            addFacetAggregations(builder, filters);
+        }
+
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(builder.build(), ProductDocument.class);
+        List<SearchHit<ProductDocument>> searchHits = hits.getSearchHits();
+
+        String nextPageToken = searchHits.size() == size
+                ? encodePageToken(searchHits.get(searchHits.size() - 1).getSortValues())
+                : "";
+
+        return new ProductSearchPage(
+                searchHits.stream().map(SearchHit::getContent).toList(),
+                hits.getTotalHits(),
+                nextPageToken,
+                cursorPage ? ProductFacets.EMPTY : readFacets((ElasticsearchAggregations) hits.getAggregations()));
+    }
+
+    /**
+     * Restricts a query to live products, leaving out the tombstones of deleted ones.
+     * Applied to the query rather than the post filter so facet counts leave them out too.
+     */
+    static Query excludingDeleted(Query query) {
+        return Query.of(q -> q.bool(b -> b
+                .must(query)
+                .mustNot(n -> n.term(t -> t.field("deleted").value(true)))));
+    }
+
+    private void addFacetAggregations(NativeQueryBuilder builder, ProductSearchFilters filters) {
+        builder.withAggregation("categories", Aggregation.of(a -> a
+                        .filter(allOf(filterClauses(filters, Facet.CATEGORY)))
+                        .aggregations("values", t -> t.terms(tt -> tt.field("category").size(TERMS_FACET_SIZE)))))
+                .withAggregation("currencies", Aggregation.of(a -> a
+                        .filter(allOf(filterClauses(filters, Facet.CURRENCY)))
+                        .aggregations("values", t -> t.terms(tt -> tt.field("currency").size(TERMS_FACET_SIZE)))))
+                .withAggregation("prices", Aggregation.of(a -> a
+                        .filter(allOf(filterClauses(filters, Facet.PRICE)))
+                        .aggregations("values", h -> h.histogram(hh -> hh
+                                .field("price")
+                                .interval(priceHistogramInterval)
+                                .minDocCount(1)))));
+    }
+
+    /**
+     * Filter clauses for the request, leaving out the one for {@code excluded} when given.
+     */
+    private static List<Query> filterClauses(ProductSearchFilters filters, Facet excluded) {
+        List<Query> clauses = new ArrayList<>();
+        if (excluded != Facet.CATEGORY && !filters.categories().isEmpty()) {
+            clauses.add(termsQuery("category", filters.categories()));
+        }
+        if (excluded != Facet.CURRENCY && !filters.currencies().isEmpty()) {
+            clauses.add(termsQuery("currency", filters.currencies()));
+        }
+        if (excluded != Facet.PRICE && (filters.minPrice() != null || filters.maxPrice() != null)) {
+            clauses.add(Query.of(q -> q.range(r -> r.untyped(u -> {
+                u.field("price");
+                if (filters.minPrice() != null) {
+                    u.gte(JsonData.of(filters.minPrice()));
+                }
+                if (filters.maxPrice() != null) {
+                    u.lt(JsonData.of(filters.maxPrice()));
+                }
+                return u;
+            }))));
+        }
+        return clauses;
+    }
+
+    private static Query termsQuery(String field, List<String> values) {
+        List<FieldValue> fieldValues = values.stream().map(FieldValue::of).toList();
+        return Query.of(q -> q.terms(t -> t.field(field).terms(tv -> tv.value(fieldValues))));
+    }
+
+    private static Query allOf(List<Query> clauses) {
+        return Query.of(q -> q.bool(b -> b.filter(clauses)));
+    }
+
+    private ProductFacets readFacets(ElasticsearchAggregations aggregations) {
+        if (aggregations == null) {
+            return ProductFacets.EMPTY;
+        }
+        return new ProductFacets(
+                termBuckets(facetValues(aggregations, "categories")),
+                termBuckets(facetValues(aggregations, "currencies")),
+                facetValues(aggregations, "prices").histogram().buckets().array().stream()
+                        .map(bucket -> new PriceBucket(bucket.key(), bucket.key() + priceHistogramInterval, bucket.docCount()))
+                        .toList());
+    }
+
+    private static Aggregate facetValues(ElasticsearchAggregations aggregations, String name) {
+        return aggregations.get(name).aggregation().getAggregate().filter().aggregations().get("values");
+    }
+
+    private static List<TermBucket> termBuckets(Aggregate aggregate) {
+        return aggregate.sterms().buckets().array().stream()
+                .map(bucket -> new TermBucket(bucket.key().stringValue(), bucket.docCount()))
+                .toList();
+    }
+
+    private String encodePageToken(List<Object> sortValues) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(sortValues));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode page token", e);
+        }
+    }
+
+    private List<Object> decodePageToken(String pageToken) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(pageToken), new TypeReference<>() {});
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+
+    private enum Facet { CATEGORY, CURRENCY, PRICE }
+
+    public record ProductSearchFilters(List<String> categories, List<String> currencies, Double minPrice, Double maxPrice) {
+        public static final ProductSearchFilters NONE = new ProductSearchFilters(List.of(), List.of(), null, null);
+    }
+
+    public record TermBucket(String value, long count) {}
+
+    public record PriceBucket(double from, double to, long count) {}
+
+    public record ProductFacets(List<TermBucket> categories, List<TermBucket> currencies, List<PriceBucket> prices) {
+        public static final ProductFacets EMPTY = new ProductFacets(List.of(), List.of(), List.of());
+    }
+
+    public record ProductSearchPage(List<ProductDocument> products, long totalCount, String nextPageToken,
+                                    ProductFacets facets) {}
+}
@@ -0,0 +1,84 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
+import org.springframework.data.elasticsearch.core.suggest.response.CompletionSuggestion;
+import org.springframework.data.elasticsearch.core.suggest.response.Suggest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typeahead over the {@code suggest} completion field.
+ * <p>
+ * The completion suggester answers from an in-memory FST rather than the inverted
+ * index, so a lookup costs a few hundred microseconds on the node regardless of
+ * catalog size. Each product is indexed with its full name and with the name from
+ * each later word on, so "head" finds "Wireless Headphones". Only {@code id} and
+ * {@code name} are read from {@code _source}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSuggestService {
+
+    private static final String SUGGESTION_NAME = "products";
+    private static final int MAX_WORD_INPUTS = 5;
+    private static final FetchSourceFilter SOURCE_FILTER = new FetchSourceFilter(true, new String[]{"id", "name"}, null);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        Suggester suggester = Suggester.of(s -> s.suggesters(SUGGESTION_NAME, fs -> fs
+                .prefix(prefix)
+                .completion(c -> c.field("suggest").size(limit).skipDuplicates(true))));
+
+        NativeQuery query = NativeQuery.builder()
+                .withSuggester(suggester)
+                .withSourceFilter(SOURCE_FILTER)
+                .withMaxResults(0)
+                .build();
+
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(query, ProductDocument.class);
+        Suggest suggest = hits.getSuggest();
+        if (suggest == null || suggest.getSuggestion(SUGGESTION_NAME) == null) {
+            return List.of();
+        }
+
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+        for (var entry : suggest.getSuggestion(SUGGESTION_NAME).getEntries()) {
+            for (var option : entry.getOptions()) {
+                if (option instanceof CompletionSuggestion.Entry.Option<?> completion
+                        && completion.getSearchHit() != null
+                        && completion.getSearchHit().getContent() instanceof ProductDocument product) {
+                    suggestions.add(new ProductSuggestion(product.getId(), product.getName()));
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Completion inputs for a product name: the whole name, then the name from each of
+     * its next few words on, so that a prefix of any leading word matches.
+     */
+    public static Completion completionFor(String name) {
+        List<String> inputs = new ArrayList<>();
+        inputs.add(name);
+        String[] words = name.trim().split("\\s+");
+        for (int i = 1; i < words.length && i <= MAX_WORD_INPUTS; i++) {
+            inputs.add(String.join(" ", List.of(words).subList(i, words.length)));
+        }
+        return new Completion(inputs);
+    }
+
+    public record ProductSuggestion(String id, String name) {}
+}
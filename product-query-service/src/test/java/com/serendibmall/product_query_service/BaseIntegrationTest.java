@@ -5,27 +5,33 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.KafkaContainer;
 import org.testcontainers.elasticsearch.ElasticsearchContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.lifecycle.Startables;
 import org.testcontainers.utility.DockerImageName;
 
+/**
+ * Containers are started once per JVM and shared by every test class, like the cached
+ * Spring context that points at them. Ryuk removes them when the JVM exits.
+ */
 @SpringBootTest
-@Testcontainers
 public abstract class BaseIntegrationTest {
 
-    @Container
     static ElasticsearchContainer elasticsearch = new ElasticsearchContainer(
             DockerImageName.parse("docker.elastic.co/elasticsearch/elasticsearch:8.11.0"))
             .withEnv("discovery.type", "single-node")
             .withEnv("xpack.security.enabled", "false")
             .withEnv("ES_JAVA_OPTS", "-Xms512m -Xmx512m");
 
-    @Container
     static KafkaContainer kafka = new KafkaContainer(
             DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
 
+    static {
+        Startables.deepStart(elasticsearch, kafka).join();
+    }
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
+        // Contexts cached with different properties are alive together, so each needs its own port
+        registry.add("spring.grpc.server.port", () -> 0);
         registry.add("spring.elasticsearch.uris", elasticsearch::getHttpHostAddress);
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
     }
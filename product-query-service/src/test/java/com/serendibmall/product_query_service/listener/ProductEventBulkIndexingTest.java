@@ -0,0 +1,115 @@
+package com.serendibmall.product_query_service.listener;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductSearchService;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchFilters;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that stale and redelivered product.events do not overwrite newer state, nor
+ * bring back a deleted product. The
+ * indexing throughput is measured by ProductEventIndexingBenchmark.
+ */
+class ProductEventBulkIndexingTest extends BaseIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Test
+    void dropsStaleAndRedeliveredEvents() throws Exception {
+        String productId = UUID.randomUUID().toString();
+        double skippedBefore = skipped();
+
+        send(productId, "ProductCreated", "Original", 1);
+        send(productId, "ProductUpdated", "Renamed", 2);
+        awaitName(productId, "Renamed");
+
+        // A replay of both, then a late event from before the rename
+        send(productId, "ProductCreated", "Original", 1);
+        send(productId, "ProductUpdated", "Renamed", 2);
+        send(productId, "ProductPriceChanged", "Original", 1);
+        String marker = UUID.randomUUID().toString();
+        send(marker, "ProductCreated", "Marker", 1);
+        awaitName(marker, "Marker");
+
+        assertEquals("Renamed", elasticsearchOperations.get(productId, ProductDocument.class).getName());
+        assertTrue(skipped() - skippedBefore >= 3);
+    }
+
+    @Test
+    void deleteKeepsOlderEventsOut() throws Exception {
+        String productId = UUID.randomUUID().toString();
+        String name = "Discontinued " + productId;
+
+        send(productId, "ProductCreated", name, 1);
+        awaitName(productId, name);
+        send(productId, "ProductDeleted", name, 2);
+        awaitDeleted(productId);
+
+        // A late update from before the delete, long after Elasticsearch would have
+        // forgotten a plain delete's version
+        send(productId, "ProductUpdated", name, 1);
+        String marker = UUID.randomUUID().toString();
+        send(marker, "ProductCreated", "Marker", 1);
+        awaitName(marker, "Marker");
+
+        assertTrue(elasticsearchOperations.get(productId, ProductDocument.class).isDeleted());
+        elasticsearchOperations.indexOps(ProductDocument.class).refresh();
+        assertTrue(productSearchService.search(name, ProductSearchFilters.NONE, 0, 20, null).products().stream()
+                .noneMatch(product -> product.getId().equals(productId)));
+    }
+
+    private void send(String productId, String eventType, String name, long version) {
+        kafkaTemplate.send("product.events", productId, """
+                {"event_type":"%s","product_id":"%s","name":"%s","price":10.0,"version":%d}"""
+                .formatted(eventType, productId, name, version));
+        kafkaTemplate.flush();
+    }
+
+    private void awaitName(String productId, String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ProductDocument document = elasticsearchOperations.get(productId, ProductDocument.class);
+            if (document != null && name.equals(document.getName())) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Product " + productId + " was not indexed with name " + name);
+    }
+
+    private void awaitDeleted(String productId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ProductDocument document = elasticsearchOperations.get(productId, ProductDocument.class);
+            if (document != null && document.isDeleted()) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Product " + productId + " was not deleted");
+    }
+
+    private double skipped() {
+        return meterRegistry.get("products.indexing.documents").tag("result", "skipped").counter().count();
+    }
+}
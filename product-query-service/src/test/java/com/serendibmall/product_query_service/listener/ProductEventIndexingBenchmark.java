@@ -0,0 +1,94 @@
+package com.serendibmall.product_query_service.listener;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays {@code benchmark.events} synthetic ProductCreated events (50k by default)
+ * through the bulk indexing listener and reports the indexing throughput. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ProductEventIndexingBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventIndexingBenchmark.class);
+
+    private static final int EVENTS = Integer.getInteger("benchmark.events", 50_000);
+    private static final long TIMEOUT_MS = 180_000;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void indexesLargeEventStream() throws Exception {
+        String runId = UUID.randomUUID().toString();
+        long countBefore = count();
+        double indexedCounterBefore = meterRegistry.get("products.indexing.documents")
+                .tag("result", "indexed").counter().count();
+        double retriesBefore = meterRegistry.get("products.indexing.retries").counter().count();
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            String productId = runId + "-" + i;
+            // Every tenth event is double-encoded, as the outbox SMT sometimes emits
+            String payload = """
+                    {"event_type":"ProductCreated","product_id":"%s","name":"Product %d",\
+                    "description":"Synthetic product %d","price":%d.99,"currency":"USD","category":"category-%d"}"""
+                    .formatted(productId, i, i, i % 500, i % 20);
+            if (i % 10 == 0) {
+                payload = "\"" + payload.replace("\"", "\\\"") + "\"";
+            }
+            kafkaTemplate.send("product.events", productId, payload);
+        }
+        kafkaTemplate.flush();
+        long producedNanos = System.nanoTime();
+
+        long indexed = 0;
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            elasticsearchOperations.indexOps(ProductDocument.class).refresh();
+            indexed = count() - countBefore;
+            if (indexed >= EVENTS) {
+                break;
+            }
+            Thread.sleep(250);
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        log.info("Indexed {} products in {} s ({} docs/s, produce took {} s), lag gauge={} ms, retries={}",
+                indexed, String.format("%.1f", seconds), Math.round(indexed / seconds),
+                String.format("%.1f", (producedNanos - startNanos) / 1_000_000_000.0),
+                meterRegistry.get("products.indexing.lag").gauge().value(),
+                meterRegistry.get("products.indexing.retries").counter().count() - retriesBefore);
+
+        assertEquals(EVENTS, indexed);
+        assertTrue(meterRegistry.get("products.indexing.documents").tag("result", "indexed").counter().count()
+                - indexedCounterBefore >= EVENTS);
+        assertNotNull(elasticsearchOperations.get(runId + "-10", ProductDocument.class));
+    }
+
+    private long count() {
+        return elasticsearchOperations.count(Query.findAll(), ProductDocument.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.serendibmall.product_query_service.service;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductExportService.ExportCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestPropertySource(properties = "product.export.page-size=2")
+class ProductExportServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeEach
+    void setUp() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(ProductDocument.class);
+        indexOps.delete();
+        indexOps.createWithMapping();
+        elasticsearchOperations.save(List.of(
+                product("p1", "home"),
+                product("p2", "fashion"),
+                product("p3", "home"),
+                product("p4", "home"),
+                product("p5", "electronics")));
+        indexOps.refresh();
+    }
+
+    @Test
+    void walksEveryProductInIdOrder() {
+        assertEquals(List.of("p1", "p2", "p3", "p4", "p5"), readAll(""));
+    }
+
+    @Test
+    void filtersByCategory() {
+        assertEquals(List.of("p1", "p3", "p4"), readAll("home"));
+    }
+
+    @Test
+    void doesNotSeeProductsIndexedAfterOpening() {
+        try (ExportCursor cursor = productExportService.open("")) {
+            elasticsearchOperations.save(product("p0", "home"));
+            elasticsearchOperations.indexOps(ProductDocument.class).refresh();
+
+            List<String> ids = new ArrayList<>();
+            for (List<ProductDocument> page = cursor.nextPage(); !page.isEmpty(); page = cursor.nextPage()) {
+                page.forEach(product -> ids.add(product.getId()));
+            }
+            assertEquals(List.of("p1", "p2", "p3", "p4", "p5"), ids);
+        }
+    }
+
+    private List<String> readAll(String category) {
+        List<String> ids = new ArrayList<>();
+        try (ExportCursor cursor = productExportService.open(category)) {
+            for (List<ProductDocument> page = cursor.nextPage(); !page.isEmpty(); page = cursor.nextPage()) {
+                page.forEach(product -> ids.add(product.getId()));
+            }
+        }
+        return ids;
+    }
+
+    private static ProductDocument product(String id, String category) {
+        return ProductDocument.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("")
+                .price(10.0)
+                .currency("USD")
+                .category(category)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.serendibmall.product_query_service.service;
+
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product_query_service.service.ProductLocalStore.ProductChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductLocalStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private ProductLocalStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void appliesChangesAndIgnoresOlderVersions() throws Exception {
+        store = open();
+
+        store.apply(List.of(
+                new ProductChange("p-1", 1L, product("p-1", "Tea", 1)),
+                new ProductChange("p-1", 2L, product("p-1", "Green tea", 2)),
+                new ProductChange("p-2", 1L, product("p-2", "Coffee", 1))), Map.of("product.events-0", 3L));
+        // A redelivered event from before the rename
+        store.apply(List.of(new ProductChange("p-1", 1L, product("p-1", "Tea", 1))), Map.of("product.events-0", 4L));
+
+        assertEquals("Green tea", store.get("p-1").getName());
+        assertNull(store.get("p-3"));
+        Map<String, ProductResponse> found = store.getAll(List.of("p-1", "p-2", "p-3"));
+        assertEquals(2, found.size());
+        assertEquals("Coffee", found.get("p-2").getName());
+
+        store.apply(List.of(new ProductChange("p-2", 2L, null)), Map.of("product.events-0", 5L));
+        assertNull(store.get("p-2"));
+    }
+
+    @Test
+    void restartsWarmWithItsOffsets() throws Exception {
+        store = open();
+        assertFalse(store.isReady());
+        store.apply(List.of(new ProductChange("p-1", 1L, product("p-1", "Tea", 1))),
+                Map.of("product.events-0", 10L, "product.events-1", 7L));
+        store.close();
+
+        store = open();
+        assertTrue(store.isReady());
+        assertEquals(Map.of("product.events-0", 10L, "product.events-1", 7L), store.offsets());
+        assertEquals("Tea", store.get("p-1").getName());
+    }
+
+    private ProductLocalStore open() throws Exception {
+        ProductLocalStore opened = new ProductLocalStore(new SimpleMeterRegistry(), true, dir.toString(), 8);
+        opened.open();
+        return opened;
+    }
+
+    private static ProductResponse product(String id, String name, long version) {
+        return ProductResponse.newBuilder()
+                .setId(id)
+                .setName(name)
+                .setPrice(4.5)
+                .setCurrency("USD")
+                .setVersion(version)
+                .build();
+    }
+}
@@ -0,0 +1,252 @@
+package com.serendibmall.product_query_service.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.product.v1.ProductServiceGrpc;
+import com.serendibmall.product.v1.StreamProductsRequest;
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductBulkIndexer.PendingDocument;
+import com.serendibmall.product_query_service.service.ProductReindexService.ReindexStatus;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs rebuilds against a stand-in product-command-service whose StreamProducts stops
+ * after the first product until the test lets it finish, and writes live events in
+ * between through a second indexer, as another replica would.
+ */
+@TestPropertySource(properties = {
+        "product.reindex.bulk-size=1",
+        "product.reindex.concurrency=1",
+        "product.reindex.building-check-interval-ms=100"
+})
+class ProductReindexServiceTest extends BaseIntegrationTest {
+
+    private static final PausingProductStream productStream = new PausingProductStream();
+    private static final Server productCommandServer;
+
+    static {
+        try {
+            productCommandServer = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                    .addService(productStream)
+                    .build()
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void productCommandService(DynamicPropertyRegistry registry) {
+        registry.add("spring.grpc.client.channels.product-command-service.address",
+                () -> "static://localhost:" + productCommandServer.getPort());
+    }
+
+    @AfterAll
+    static void stopProductCommandService() {
+        productCommandServer.shutdownNow();
+    }
+
+    @Autowired
+    private ProductReindexService reindexService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired
+    @Qualifier("productCommandServiceChannel")
+    private ManagedChannel productCommandServiceChannel;
+
+    private ProductReindexService otherReplica;
+    private ProductBulkIndexer otherReplicaIndexer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        resetIndex();
+        elasticsearchOperations.save(product("stale", "Only in the old index", 1));
+        elasticsearchOperations.indexOps(ProductDocument.class).refresh();
+
+        productStream.reset(List.of(response("p1", "Kettle", 1), response("p2", "Teapot", 1)));
+        otherReplica = new ProductReindexService(elasticsearchOperations, elasticsearchClient,
+                productCommandServiceChannel, new SimpleMeterRegistry(), 1, 1, 1, "1s", 100);
+        otherReplicaIndexer = new ProductBulkIndexer(elasticsearchOperations, elasticsearchClient,
+                otherReplica, new SimpleMeterRegistry(), 1000, 5_242_880, 3, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        // Leaves a plain products index for the other test classes
+        resetIndex();
+    }
+
+    @Test
+    void liveWritesOnAnotherReplicaReachTheRebuiltIndex() throws Exception {
+        assertTrue(reindexService.start());
+        assertTrue(productStream.firstSent.await(30, TimeUnit.SECONDS));
+
+        assertFalse(otherReplica.start());
+        otherReplicaIndexer.index(List.of(
+                pending(product("live", "Created during the rebuild", 1), 1),
+                pending(product("p2", "Renamed during the rebuild", 2), 2)));
+        productStream.release.countDown();
+        ReindexStatus status = awaitFinished();
+
+        assertNull(status.error());
+        assertEquals(Set.of(status.index()), elasticsearchClient.indices()
+                .getAlias(g -> g.name(ProductReindexService.ALIAS)).result().keySet());
+        assertFalse(elasticsearchClient.indices().existsAlias(e -> e.name(ProductReindexService.BUILDING_ALIAS)).value());
+        assertNotNull(elasticsearchOperations.get("p1", ProductDocument.class));
+        assertEquals("Renamed during the rebuild", elasticsearchOperations.get("p2", ProductDocument.class).getName());
+        assertNotNull(elasticsearchOperations.get("live", ProductDocument.class));
+        assertNull(elasticsearchOperations.get("stale", ProductDocument.class));
+    }
+
+    @Test
+    void productDeletedBeforeTheRebuildStaysDeleted() throws Exception {
+        productStream.reset(List.of(response("p1", "Kettle", 1), tombstone("gone", 3)));
+
+        assertTrue(reindexService.start());
+        assertTrue(productStream.firstSent.await(30, TimeUnit.SECONDS));
+        productStream.release.countDown();
+        ReindexStatus status = awaitFinished();
+        // An event from before the delete, arriving late
+        otherReplicaIndexer.index(List.of(pending(product("gone", "Back from the dead", 1), 2)));
+
+        assertNull(status.error());
+        assertTrue(productStream.request.getIncludeDeleted());
+        assertTrue(elasticsearchOperations.get("gone", ProductDocument.class).isDeleted());
+    }
+
+    @Test
+    void failedMirrorOnAnotherReplicaFailsTheRebuild() throws Exception {
+        assertTrue(reindexService.start());
+        assertTrue(productStream.firstSent.await(30, TimeUnit.SECONDS));
+
+        otherReplica.failBuild("simulated mirror failure");
+        productStream.release.countDown();
+        ReindexStatus status = awaitFinished();
+
+        assertNotNull(status.error());
+        assertFalse(elasticsearchClient.indices().existsAlias(e -> e.name(ProductReindexService.ALIAS)).value());
+        assertFalse(elasticsearchClient.indices().exists(e -> e.index(status.index())).value());
+        assertNotNull(elasticsearchOperations.get("stale", ProductDocument.class));
+    }
+
+    private void resetIndex() throws IOException {
+        // Deleting the rebuilt indices takes their aliases along
+        elasticsearchClient.indices().delete(d -> d.index("products_v*").allowNoIndices(true).ignoreUnavailable(true));
+        IndexOperations indexOps = elasticsearchOperations.indexOps(ProductDocument.class);
+        indexOps.delete();
+        indexOps.createWithMapping();
+    }
+
+    private ReindexStatus awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            ReindexStatus status = reindexService.status();
+            if (!status.running() && status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Rebuild did not finish");
+    }
+
+    private static PendingDocument pending(ProductDocument document, long version) {
+        return new PendingDocument(0, document, version, 200, System.currentTimeMillis());
+    }
+
+    private static ProductDocument product(String id, String name, double price) {
+        return ProductDocument.builder()
+                .id(id)
+                .name(name)
+                .description("")
+                .price(price)
+                .currency("USD")
+                .category("kitchen")
+                .build();
+    }
+
+    private static ProductResponse response(String id, String name, long version) {
+        return ProductResponse.newBuilder()
+                .setId(id)
+                .setName(name)
+                .setPrice(10.0)
+                .setCurrency("USD")
+                .setCategory("kitchen")
+                .setVersion(version)
+                .build();
+    }
+
+    private static ProductResponse tombstone(String id, long version) {
+        return ProductResponse.newBuilder()
+                .setId(id)
+                .setVersion(version)
+                .setDeleted(true)
+                .build();
+    }
+
+    /**
+     * Sends the first product, then holds the stream open until {@link #release}.
+     */
+    static class PausingProductStream extends ProductServiceGrpc.ProductServiceImplBase {
+
+        private volatile List<ProductResponse> products = List.of();
+        volatile CountDownLatch firstSent = new CountDownLatch(1);
+        volatile CountDownLatch release = new CountDownLatch(1);
+        volatile StreamProductsRequest request;
+
+        void reset(List<ProductResponse> products) {
+            this.products = products;
+            this.firstSent = new CountDownLatch(1);
+            this.release = new CountDownLatch(1);
+        }
+
+        @Override
+        public void streamProducts(StreamProductsRequest request, StreamObserver<ProductResponse> responseObserver) {
+            this.request = request;
+            List<ProductResponse> products = this.products;
+            responseObserver.onNext(products.get(0));
+            firstSent.countDown();
+            try {
+                release.await(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            products.subList(1, products.size()).forEach(responseObserver::onNext);
+            responseObserver.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.serendibmall.product_query_service.service;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchFilters;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Search latency over a generated catalog of {@code benchmark.documents} products
+ * (1M by default). For each query it times page 1, page 500 through from/size, and
+ * page 500 through the search_after cursor, and separately times typeahead
+ * suggestions against their 10 ms p99 target. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSearchBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchBenchmark.class);
+
+    private static final int DOCUMENTS = Integer.getInteger("benchmark.documents", 1_000_000);
+    private static final int LOAD_CHUNK = 5_000;
+    private static final int PAGE_SIZE = 20;
+    // Deepest page from/size can reach under the default 10k result window
+    private static final int DEEP_PAGE = 499;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private static final String[] ADJECTIVES = {"classic", "vintage", "organic", "handmade", "wireless",
+            "compact", "premium", "waterproof", "lightweight", "ceylon", "rustic", "modern"};
+    private static final String[] MATERIALS = {"leather", "cotton", "bamboo", "steel", "ceramic", "teak",
+            "wool", "silk", "glass", "coconut"};
+    private static final String[] NOUNS = {"wallet", "backpack", "kettle", "headphones", "sandals", "lamp",
+            "teapot", "notebook", "saree", "mug", "blanket", "speaker", "watch", "basket"};
+    private static final String[] CATEGORIES = {"fashion", "home", "electronics", "kitchen", "crafts", "tea"};
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeAll
+    void loadCatalog() {
+        Random random = new Random(42);
+        long startNanos = System.nanoTime();
+        List<IndexQuery> chunk = new ArrayList<>(LOAD_CHUNK);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            String name = pick(random, ADJECTIVES) + " " + pick(random, MATERIALS) + " " + pick(random, NOUNS);
+            ProductDocument product = ProductDocument.builder()
+                    .id(String.format("p-%07d", i))
+                    .name(name)
+                    .description("A " + name + " made in " + pick(random, MATERIALS) + " for everyday "
+                            + pick(random, CATEGORIES) + " use")
+                    .price(1 + random.nextInt(50_000) / 100.0)
+                    .currency("USD")
+                    .category(pick(random, CATEGORIES))
+                    .suggest(ProductSuggestService.completionFor(name))
+                    .build();
+            chunk.add(new IndexQueryBuilder().withId(product.getId()).withObject(product).build());
+            if (chunk.size() == LOAD_CHUNK) {
+                elasticsearchOperations.bulkIndex(chunk, ProductDocument.class);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            elasticsearchOperations.bulkIndex(chunk, ProductDocument.class);
+        }
+        elasticsearchOperations.indexOps(ProductDocument.class).refresh();
+        log.info("Loaded {} products in {} s", DOCUMENTS, (System.nanoTime() - startNanos) / 1_000_000_000);
+    }
+
+    @ParameterizedTest(name = "\"{0}\"")
+    @ValueSource(strings = {"", "leather wallet", "ceylon teapot", "wire", "handmade bamboo basket", "headph"})
+    void searchLatency(String query) {
+        double[] firstPage = measure(() -> productSearchService.search(query, ProductSearchFilters.NONE, 0, PAGE_SIZE, null));
+        double[] deepFromSize = measure(() -> productSearchService.search(query, ProductSearchFilters.NONE, DEEP_PAGE, PAGE_SIZE, null));
+
+        // Walk the cursor to the same page once, then time only the last hop
+        String token = null;
+        for (int page = 0; page < DEEP_PAGE; page++) {
+            ProductSearchPage result = productSearchService.search(query, ProductSearchFilters.NONE, 0, PAGE_SIZE, token);
+            token = result.nextPageToken();
+        }
+        String deepToken = token;
+        double[] deepSearchAfter = measure(() -> productSearchService.search(query, ProductSearchFilters.NONE, 0, PAGE_SIZE, deepToken));
+
+        log.info("query=\"{}\" docs={} | page 1 p50={} p99={} ms | page {} from/size p50={} p99={} ms"
+                        + " | page {} search_after p50={} p99={} ms",
+                query, DOCUMENTS, format(firstPage[0]), format(firstPage[1]),
+                DEEP_PAGE + 1, format(deepFromSize[0]), format(deepFromSize[1]),
+                DEEP_PAGE + 1, format(deepSearchAfter[0]), format(deepSearchAfter[1]));
+    }
+
+    @ParameterizedTest(name = "\"{0}\"")
+    @ValueSource(strings = {"c", "cey", "leath", "wireless ste", "head"})
+    void suggestLatency(String prefix) {
+        double[] latency = measure(() -> productSuggestService.suggest(prefix, 10));
+
+        log.info("prefix=\"{}\" docs={} | suggest p50={} p99={} ms",
+                prefix, DOCUMENTS, format(latency[0]), format(latency[1]));
+    }
+
+    /**
+     * Returns {p50, p99} in milliseconds.
+     */
+    private static double[] measure(Runnable call) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            call.run();
+        }
+        double[] millis = new double[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long startNanos = System.nanoTime();
+            call.run();
+            millis[i] = (System.nanoTime() - startNanos) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return new double[] {
+                millis[(int) Math.ceil(0.50 * MEASURED_ROUNDS) - 1],
+                millis[(int) Math.ceil(0.99 * MEASURED_ROUNDS) - 1]
+        };
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String format(double millis) {
+        return String.format("%.1f", millis);
+    }
+}
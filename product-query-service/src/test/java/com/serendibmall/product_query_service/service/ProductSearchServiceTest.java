@@ -0,0 +1,99 @@
+package com.serendibmall.product_query_service.service;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductSearchService.PriceBucket;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchFilters;
+import com.serendibmall.product_query_service.service.ProductSearchService.ProductSearchPage;
+import com.serendibmall.product_query_service.service.ProductSearchService.TermBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeEach
+    void setUp() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(ProductDocument.class);
+        indexOps.delete();
+        indexOps.createWithMapping();
+        elasticsearchOperations.save(List.of(
+                product("p1", "Leather Wallet", "home", "USD", 20.0),
+                product("p2", "Leather Backpack", "fashion", "USD", 80.0),
+                product("p3", "Wireless Headphones", "electronics", "USD", 120.0),
+                product("p4", "Wireless Speaker", "electronics", "LKR", 60.0),
+                product("p5", "Ceylon Teapot", "home", "LKR", 35.0)));
+        indexOps.refresh();
+    }
+
+    @Test
+    void matchesPrefixesOfNameWords() {
+        ProductSearchPage result = productSearchService.search("wirel", ProductSearchFilters.NONE, 0, 10, null);
+
+        assertEquals(List.of("p3", "p4"), ids(result).stream().sorted().toList());
+    }
+
+    @Test
+    void filtersAndKeepsOtherFacetValuesCounted() {
+        ProductSearchFilters filters = new ProductSearchFilters(List.of("electronics"), List.of(), null, 100.0);
+
+        ProductSearchPage result = productSearchService.search(null, filters, 0, 10, null);
+
+        assertEquals(List.of("p4"), ids(result));
+        // The category facet ignores the category filter but honours the price filter
+        assertEquals(Map.of("electronics", 1L, "home", 2L, "fashion", 1L), counts(result.facets().categories()));
+        // The currency facet honours both filters
+        assertEquals(Map.of("LKR", 1L), counts(result.facets().currencies()));
+        // The price facet ignores the price filter
+        assertEquals(2L, result.facets().prices().stream().mapToLong(PriceBucket::count).sum());
+    }
+
+    @Test
+    void pagesThroughEveryResultWithTheCursor() {
+        List<String> seen = new ArrayList<>();
+        ProductSearchPage page = productSearchService.search(null, ProductSearchFilters.NONE, 0, 2, null);
+        seen.addAll(ids(page));
+        while (!page.nextPageToken().isEmpty()) {
+            page = productSearchService.search(null, ProductSearchFilters.NONE, 0, 2, page.nextPageToken());
+            seen.addAll(ids(page));
+            assertTrue(page.facets().categories().isEmpty());
+        }
+
+        assertEquals(List.of("p1", "p2", "p3", "p4", "p5"), seen);
+    }
+
+    private static ProductDocument product(String id, String name, String category, String currency, double price) {
+        return ProductDocument.builder()
+                .id(id)
+                .name(name)
+                .description(name + " for everyday use")
+                .price(price)
+                .currency(currency)
+                .category(category)
+                .build();
+    }
+
+    private static List<String> ids(ProductSearchPage page) {
+        return page.products().stream().map(ProductDocument::getId).toList();
+    }
+
+    private static Map<String, Long> counts(List<TermBucket> buckets) {
+        return buckets.stream().collect(Collectors.toMap(TermBucket::value, TermBucket::count));
+    }
+}
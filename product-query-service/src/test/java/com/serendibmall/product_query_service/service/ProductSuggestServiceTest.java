@@ -0,0 +1,70 @@
+package com.serendibmall.product_query_service.service;
+
+import com.serendibmall.product_query_service.BaseIntegrationTest;
+import com.serendibmall.product_query_service.document.ProductDocument;
+import com.serendibmall.product_query_service.service.ProductSuggestService.ProductSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeEach
+    void setUp() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(ProductDocument.class);
+        indexOps.delete();
+        indexOps.createWithMapping();
+        elasticsearchOperations.save(List.of(
+                product("p1", "Leather Wallet"),
+                product("p2", "Leather Backpack"),
+                product("p3", "Wireless Headphones"),
+                product("p4", "Ceylon Teapot")));
+        indexOps.refresh();
+    }
+
+    @Test
+    void suggestsIdAndNameByNamePrefix() {
+        List<ProductSuggestion> suggestions = productSuggestService.suggest("leath", 10);
+
+        assertEquals(List.of("p1", "p2"), suggestions.stream().map(ProductSuggestion::id).sorted().toList());
+        assertTrue(suggestions.stream().allMatch(s -> s.name().startsWith("Leather")));
+    }
+
+    @Test
+    void matchesLaterWordsCaseInsensitively() {
+        List<ProductSuggestion> suggestions = productSuggestService.suggest("HEADPH", 10);
+
+        assertEquals(List.of(new ProductSuggestion("p3", "Wireless Headphones")), suggestions);
+    }
+
+    @Test
+    void respectsLimit() {
+        assertEquals(1, productSuggestService.suggest("le", 1).size());
+        assertTrue(productSuggestService.suggest("xyz", 10).isEmpty());
+    }
+
+    private static ProductDocument product(String id, String name) {
+        return ProductDocument.builder()
+                .id(id)
+                .name(name)
+                .description(name)
+                .price(10.0)
+                .currency("USD")
+                .category("home")
+                .suggest(ProductSuggestService.completionFor(name))
+                .build();
+    }
+}
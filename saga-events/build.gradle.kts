@@ -0,0 +1,41 @@
+plugins {
+	`java-library`
+	id("me.champeau.jmh") version "0.7.3"
+}
+
+group = "com.serendibmall"
+version = "0.0.1-SNAPSHOT"
+description = "Typed decoding of saga outbox events shared by the SerendibMall services"
+
+java {
+	toolchain {
+		languageVersion = JavaLanguageVersion.of(21)
+	}
+}
+
+repositories {
+	mavenCentral()
+}
+
+// Keep in line with the Jackson version managed by Spring Boot in the services
+val jacksonVersion = "2.19.4"
+
+dependencies {
+	api("com.fasterxml.jackson.core:jackson-core:$jacksonVersion")
+	testImplementation(platform("org.junit:junit-bom:5.12.2"))
+	testImplementation("org.junit.jupiter:junit-jupiter")
+	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	// The tree-model baseline the benchmark compares against
+	jmh("com.fasterxml.jackson.core:jackson-databind:$jacksonVersion")
+}
+
+tasks.withType<Test> {
+	useJUnitPlatform()
+}
+
+jmh {
+	profilers = listOf("gc")
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+}
@@ -0,0 +1,61 @@
+package com.serendibmall.saga_events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second and, with the gc profiler ({@code gc.alloc.rate.norm}), bytes
+ * allocated per message for the streaming codec against the readTree approach the
+ * listeners used before. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SagaEventCodecBenchmark {
+
+    private static final String ORDER_CREATED = """
+            {"type":"OrderCreatedEvent","orderId":"9b2f6c1e-4d7a-4f0e-8a51-2c3d4e5f6a7b",\
+            "productId":"5e8d7c6b-1a2b-4c3d-9e8f-7a6b5c4d3e2f","userId":"c0ffee00-1234-4abc-8def-001122334455",\
+            "quantity":2,"status":"PENDING"}""";
+
+    @Param({"plain", "double-encoded"})
+    private String encoding;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String message;
+
+    @Setup
+    public void setUp() throws Exception {
+        message = "plain".equals(encoding) ? ORDER_CREATED : objectMapper.writeValueAsString(ORDER_CREATED);
+    }
+
+    @Benchmark
+    public OrderEvent streamingCodec() throws Exception {
+        return SagaEventCodec.decodeOrderEvent(message);
+    }
+
+    @Benchmark
+    public OrderEvent treeModel() throws Exception {
+        JsonNode payload = objectMapper.readTree(message);
+        if (payload.isTextual()) {
+            payload = objectMapper.readTree(payload.asText());
+        }
+        return new OrderEvent(
+                payload.get("type").asText(),
+                payload.get("orderId").asText(),
+                payload.get("productId").asText(),
+                payload.get("userId").asText(),
+                payload.get("quantity").asInt(),
+                payload.get("status").asText());
+    }
+}
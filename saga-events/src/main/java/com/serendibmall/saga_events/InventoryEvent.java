@@ -0,0 +1,11 @@
+package com.serendibmall.saga_events;
+
+/**
+ * An event from {@code inventory.events}: InventoryReservedEvent or InventoryFailedEvent.
+ */
+public record InventoryEvent(String type, String orderId, String productId, int quantity) {
+
+    public boolean isType(String eventType) {
+        return eventType.equals(type);
+    }
+}
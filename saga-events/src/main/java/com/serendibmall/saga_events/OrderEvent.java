@@ -0,0 +1,43 @@
+package com.serendibmall.saga_events;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An event from {@code order.events}. Fields absent from the payload are null, and
+ * {@code quantity} is 0.
+ * <p>
+ * {@code lines} holds every product of the order. Payloads written before orders had
+ * lines carry only {@code productId} and {@code quantity}, which then form the single
+ * line; for newer payloads those two fields repeat the first line.
+ */
+public record OrderEvent(String type, String orderId, String productId, String userId, int quantity, String status,
+                         List<Line> lines) {
+
+    /**
+     * A single-line order.
+     */
+    public OrderEvent(String type, String orderId, String productId, String userId, int quantity, String status) {
+        this(type, orderId, productId, userId, quantity, status,
+                productId != null ? List.of(new Line(productId, quantity)) : List.of());
+    }
+
+    public boolean isType(String eventType) {
+        return eventType.equals(type);
+    }
+
+    /**
+     * Total quantity per product over all lines, in product id order, the order in
+     * which stock rows should be locked.
+     */
+    public SortedMap<String, Integer> quantitiesByProduct() {
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for (Line line : lines) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    public record Line(String productId, int quantity) {}
+}
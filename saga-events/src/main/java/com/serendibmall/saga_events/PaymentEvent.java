@@ -0,0 +1,16 @@
+package com.serendibmall.saga_events;
+
+/**
+ * An event from {@code payment.events}. The payload carries no type, so a processed
+ * payment is recognised by its transaction id and a failed one by its reason.
+ */
+public record PaymentEvent(String orderId, String paymentId, String transactionId, String reason) {
+
+    public boolean isProcessed() {
+        return transactionId != null;
+    }
+
+    public boolean isFailed() {
+        return reason != null;
+    }
+}
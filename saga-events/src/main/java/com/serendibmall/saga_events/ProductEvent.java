@@ -0,0 +1,15 @@
+package com.serendibmall.saga_events;
+
+/**
+ * An event from {@code product.events}. The command service writes snake_case keys
+ * and older producers camelCase, so both spellings are accepted. Fields absent from
+ * the payload are null. {@code version} is the event's position in its product's
+ * history, starting at 1; it is null for events written before versions existed.
+ */
+public record ProductEvent(String eventType, String productId, String name, String description,
+                           Double price, String currency, String category, Long version) {
+
+    public boolean isType(String type) {
+        return type.equals(eventType);
+    }
+}
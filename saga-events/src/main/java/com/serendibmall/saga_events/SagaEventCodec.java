@@ -0,0 +1,205 @@
+package com.serendibmall.saga_events;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes Debezium outbox payloads into typed events with the streaming parser.
+ * <p>
+ * The outbox SMT sometimes emits the payload as a JSON string holding the JSON
+ * document. In that case the inner document is parsed straight from the outer
+ * parser's unescaped text buffer, so neither case builds a tree or an intermediate
+ * String. Field names come from Jackson's symbol table and are not allocated per
+ * message; unknown fields and nested values are skipped.
+ */
+public final class SagaEventCodec {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private SagaEventCodec() {
+    }
+
+    public static OrderEvent decodeOrderEvent(String message) throws IOException {
+        return decode(message, parser -> {
+            String type = null;
+            String orderId = null;
+            String productId = null;
+            String userId = null;
+            int quantity = 0;
+            String status = null;
+            List<OrderEvent.Line> lines = null;
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "type" -> type = parser.getValueAsString();
+                    case "orderId" -> orderId = parser.getValueAsString();
+                    case "productId" -> productId = parser.getValueAsString();
+                    case "userId" -> userId = parser.getValueAsString();
+                    case "quantity" -> quantity = parser.getValueAsInt();
+                    case "status" -> status = parser.getValueAsString();
+                    case "lines" -> lines = readOrderLines(parser);
+                    default -> { }
+                }
+                parser.skipChildren();
+            }
+            if (lines == null) {
+                return new OrderEvent(required(parser, "type", type), required(parser, "orderId", orderId),
+                        productId, userId, quantity, status);
+            }
+            return new OrderEvent(required(parser, "type", type), required(parser, "orderId", orderId),
+                    productId, userId, quantity, status, lines);
+        });
+    }
+
+    public static InventoryEvent decodeInventoryEvent(String message) throws IOException {
+        return decode(message, parser -> {
+            String type = null;
+            String orderId = null;
+            String productId = null;
+            int quantity = 0;
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "type" -> type = parser.getValueAsString();
+                    case "orderId" -> orderId = parser.getValueAsString();
+                    case "productId" -> productId = parser.getValueAsString();
+                    case "quantity" -> quantity = parser.getValueAsInt();
+                    default -> { }
+                }
+                parser.skipChildren();
+            }
+            return new InventoryEvent(required(parser, "type", type), required(parser, "orderId", orderId),
+                    productId, quantity);
+        });
+    }
+
+    public static PaymentEvent decodePaymentEvent(String message) throws IOException {
+        return decode(message, parser -> {
+            String orderId = null;
+            String paymentId = null;
+            String transactionId = null;
+            String reason = null;
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "orderId" -> orderId = parser.getValueAsString();
+                    case "paymentId" -> paymentId = parser.getValueAsString();
+                    case "transactionId" -> transactionId = parser.getValueAsString();
+                    case "reason" -> reason = parser.getValueAsString();
+                    default -> { }
+                }
+                parser.skipChildren();
+            }
+            return new PaymentEvent(orderId, paymentId, transactionId, reason);
+        });
+    }
+
+    public static ProductEvent decodeProductEvent(String message) throws IOException {
+        return decode(message, parser -> {
+            String eventType = null;
+            String type = null;
+            String productId = null;
+            String name = null;
+            String description = null;
+            Double price = null;
+            String currency = null;
+            String category = null;
+            Long version = null;
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "event_type", "eventType" -> eventType = parser.getValueAsString();
+                    case "type" -> type = parser.getValueAsString();
+                    case "product_id", "productId" -> productId = parser.getValueAsString();
+                    case "name" -> name = parser.getValueAsString();
+                    case "description" -> description = parser.getValueAsString();
+                    case "price" -> price = parser.currentToken().isNumeric() || parser.currentToken() == JsonToken.VALUE_STRING
+                            ? parser.getValueAsDouble() : null;
+                    case "currency" -> currency = parser.getValueAsString();
+                    case "category" -> category = parser.getValueAsString();
+                    case "version" -> version = parser.currentToken().isNumeric() ? parser.getValueAsLong() : null;
+                    default -> { }
+                }
+                parser.skipChildren();
+            }
+            return new ProductEvent(eventType != null ? eventType : type, productId, name, description,
+                    price, currency, category, version);
+        });
+    }
+
+    /**
+     * Reads an array of {@code {"productId", "quantity"}} objects, leaving the parser on
+     * its closing bracket. Returns null if the value is not an array.
+     */
+    private static List<OrderEvent.Line> readOrderLines(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return null;
+        }
+        List<OrderEvent.Line> lines = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String productId = null;
+            int quantity = 0;
+            while (nextField(parser)) {
+                switch (parser.currentName()) {
+                    case "productId" -> productId = parser.getValueAsString();
+                    case "quantity" -> quantity = parser.getValueAsInt();
+                    default -> { }
+                }
+                parser.skipChildren();
+            }
+            lines.add(new OrderEvent.Line(required(parser, "lines.productId", productId), quantity));
+        }
+        return List.copyOf(lines);
+    }
+
+    private static <T> T decode(String message, EventReader<T> reader) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(message)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                // Double-encoded: read the inner document from the unescaped characters in place
+                try (JsonParser inner = JSON_FACTORY.createParser(
+                        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                    return readObject(inner, inner.nextToken(), reader);
+                }
+            }
+            return readObject(parser, token, reader);
+        }
+    }
+
+    private static <T> T readObject(JsonParser parser, JsonToken token, EventReader<T> reader) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+        }
+        return reader.read(parser);
+    }
+
+    /**
+     * Advances to the next field's value. Returns false at the end of the object.
+     */
+    private static boolean nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return false;
+        }
+        parser.nextToken();
+        return true;
+    }
+
+    private static String required(JsonParser parser, String field, String value) throws JsonParseException {
+        if (value == null) {
+            throw new JsonParseException(parser, "Missing required field '" + field + "'");
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface EventReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,97 @@
+package com.serendibmall.saga_events;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SagaEventCodecTest {
+
+    private static final String ORDER_CREATED = """
+            {"type":"OrderCreatedEvent","orderId":"o-1","productId":"p-1","userId":"u-1","quantity":3,"status":"PENDING"}""";
+
+    @Test
+    void decodesOrderEvent() throws Exception {
+        OrderEvent event = SagaEventCodec.decodeOrderEvent(ORDER_CREATED);
+
+        assertEquals(new OrderEvent("OrderCreatedEvent", "o-1", "p-1", "u-1", 3, "PENDING"), event);
+        assertTrue(event.isType("OrderCreatedEvent"));
+    }
+
+    @Test
+    void decodesOrderLines() throws Exception {
+        OrderEvent event = SagaEventCodec.decodeOrderEvent("""
+                {"type":"OrderCreatedEvent","orderId":"o-6","productId":"p-1","quantity":2,\
+                "lines":[{"productId":"p-1","quantity":2},{"productId":"p-2","quantity":1,"note":{"gift":true}}],\
+                "status":"PENDING"}""");
+
+        assertEquals(List.of(new OrderEvent.Line("p-1", 2), new OrderEvent.Line("p-2", 1)), event.lines());
+        assertEquals("PENDING", event.status());
+    }
+
+    @Test
+    void treatsLegacyOrderPayloadAsOneLine() throws Exception {
+        OrderEvent event = SagaEventCodec.decodeOrderEvent(ORDER_CREATED);
+
+        assertEquals(List.of(new OrderEvent.Line("p-1", 3)), event.lines());
+    }
+
+    @Test
+    void decodesDoubleEncodedPayload() throws Exception {
+        String doubleEncoded = "\"" + ORDER_CREATED.replace("\"", "\\\"") + "\"";
+
+        assertEquals(SagaEventCodec.decodeOrderEvent(ORDER_CREATED), SagaEventCodec.decodeOrderEvent(doubleEncoded));
+    }
+
+    @Test
+    void skipsUnknownAndNestedFields() throws Exception {
+        InventoryEvent event = SagaEventCodec.decodeInventoryEvent("""
+                {"meta":{"source":{"table":"outbox"},"tags":[1,2]},"type":"InventoryReservedEvent","orderId":"o-2","quantity":"5"}""");
+
+        assertEquals(new InventoryEvent("InventoryReservedEvent", "o-2", null, 5), event);
+    }
+
+    @Test
+    void rejectsMissingRequiredField() {
+        assertThrows(JsonParseException.class,
+                () -> SagaEventCodec.decodeOrderEvent("{\"orderId\":\"o-3\"}"));
+        assertThrows(JsonParseException.class,
+                () -> SagaEventCodec.decodeOrderEvent("[1,2,3]"));
+    }
+
+    @Test
+    void recognisesPaymentOutcome() throws Exception {
+        PaymentEvent processed = SagaEventCodec.decodePaymentEvent(
+                "{\"orderId\":\"o-4\",\"paymentId\":\"pay-1\",\"transactionId\":\"tx-1\"}");
+        PaymentEvent failed = SagaEventCodec.decodePaymentEvent(
+                "{\"orderId\":\"o-5\",\"reason\":\"Payment declined\"}");
+
+        assertTrue(processed.isProcessed());
+        assertFalse(processed.isFailed());
+        assertTrue(failed.isFailed());
+        assertFalse(failed.isProcessed());
+    }
+
+    @Test
+    void acceptsBothProductKeySpellings() throws Exception {
+        ProductEvent snake = SagaEventCodec.decodeProductEvent(
+                "{\"event_type\":\"ProductCreated\",\"product_id\":\"p-2\",\"name\":\"Tea\",\"price\":4.5,\"version\":3}");
+        ProductEvent camel = SagaEventCodec.decodeProductEvent(
+                "{\"type\":\"ProductCreated\",\"productId\":\"p-2\",\"name\":\"Tea\"}");
+
+        assertTrue(snake.isType("ProductCreated"));
+        assertEquals("p-2", snake.productId());
+        assertEquals(4.5, snake.price());
+        assertEquals(3L, snake.version());
+        assertTrue(camel.isType("ProductCreated"));
+        assertEquals("p-2", camel.productId());
+        assertNull(camel.price());
+        assertNull(camel.version());
+    }
+}
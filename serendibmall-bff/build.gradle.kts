@@ -32,6 +32,10 @@ extra["springGrpcVersion"] = "0.12.0"
 
 sourceSets {
     main {
+        java {
+            srcDir("../saga-events/src/main/java")
+            srcDir("saga-events/src/main/java")
+        }
         proto {
             srcDir("../proto")
             srcDir("proto")
@@ -47,11 +51,15 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-oauth2-resource-server")
 	implementation("org.springframework.boot:spring-boot-starter-security")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-websocket")
 	implementation("org.springframework.cloud:spring-cloud-starter-circuitbreaker-resilience4j")
 	implementation("org.springframework.grpc:spring-grpc-client-spring-boot-starter")
 	implementation("io.grpc:grpc-services")
 	implementation("io.grpc:grpc-stub")
 	implementation("io.grpc:grpc-protobuf")
+	implementation("org.springframework.kafka:spring-kafka")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 	compileOnly("org.projectlombok:lombok")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
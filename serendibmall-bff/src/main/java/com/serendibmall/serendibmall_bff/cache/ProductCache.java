@@ -0,0 +1,65 @@
+package com.serendibmall.serendibmall_bff.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.serendibmall.product.v1.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process read-through cache of product-query-service responses.
+ * Entries expire after a TTL and are refreshed or dropped as product.events arrive.
+ * Concurrent misses for the same id share one in-flight load, and failed loads are
+ * not cached. Hit, miss and eviction counts are published as {@code cache.*{cache="products"}}.
+ */
+@Component
+public class ProductCache {
+
+    public static final String CACHE_NAME = "products";
+
+    private final AsyncCache<String, ProductResponse> cache;
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${bff.product-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${bff.product-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public CompletableFuture<ProductResponse> get(String productId,
+                                                  Function<String, CompletableFuture<ProductResponse>> loader) {
+        return cache.get(productId, (id, executor) -> loader.apply(id));
+    }
+
+    /**
+     * Returns the cached products and loads the missing ones with a single bulk call.
+     * Ids the loader does not return are absent from the result.
+     */
+    public CompletableFuture<Map<String, ProductResponse>> getAll(
+            Collection<String> productIds,
+            Function<List<String>, CompletableFuture<Map<String, ProductResponse>>> loader) {
+        return cache.getAll(productIds, (missingIds, executor) -> loader.apply(new ArrayList<>(missingIds)));
+    }
+
+    public void refreshIfPresent(ProductResponse product) {
+        cache.asMap().computeIfPresent(product.getId(), (id, cached) -> CompletableFuture.completedFuture(product));
+    }
+
+    public void invalidate(String productId) {
+        cache.synchronous().invalidate(productId);
+    }
+}
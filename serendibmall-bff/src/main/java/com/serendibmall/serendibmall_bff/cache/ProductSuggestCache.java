@@ -0,0 +1,48 @@
+package com.serendibmall.serendibmall_bff.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.serendibmall.product.v1.SuggestProductsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces typeahead lookups. Identical prefixes typed at the same time by many
+ * users share one in-flight SuggestProducts call, and the answer is kept for a few
+ * seconds since suggestions only change as products are created. Prefixes are
+ * matched case-insensitively, as they are in the suggester. Published as
+ * {@code cache.*{cache="product-suggestions"}}.
+ */
+@Component
+public class ProductSuggestCache {
+
+    public static final String CACHE_NAME = "product-suggestions";
+
+    private final AsyncCache<SuggestKey, SuggestProductsResponse> cache;
+
+    public ProductSuggestCache(MeterRegistry meterRegistry,
+                               @Value("${bff.product-suggest-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${bff.product-suggest-cache.expire-after-write:5s}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public CompletableFuture<SuggestProductsResponse> get(String prefix, int limit,
+                                                          Supplier<CompletableFuture<SuggestProductsResponse>> loader) {
+        SuggestKey key = new SuggestKey(prefix.strip().toLowerCase(Locale.ROOT), limit);
+        return cache.get(key, (k, executor) -> loader.get());
+    }
+
+    private record SuggestKey(String prefix, int limit) {}
+}
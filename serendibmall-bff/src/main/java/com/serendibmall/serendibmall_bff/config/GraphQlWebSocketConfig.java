@@ -0,0 +1,28 @@
+package com.serendibmall.serendibmall_bff.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.server.support.BearerTokenAuthenticationExtractor;
+import org.springframework.graphql.server.webmvc.AuthenticationWebSocketInterceptor;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+
+@Configuration
+public class GraphQlWebSocketConfig {
+
+    /**
+     * Browsers cannot set headers on a WebSocket handshake, so GraphQL subscriptions
+     * over WebSocket authenticate with the Keycloak token sent as
+     * {@code {"Authorization": "Bearer ..."}} in the connection_init payload.
+     */
+    @Bean
+    public AuthenticationWebSocketInterceptor authenticationWebSocketInterceptor(
+            JwtDecoder jwtDecoder, JwtAuthenticationConverter jwtAuthenticationConverter) {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwtDecoder);
+        provider.setJwtAuthenticationConverter(jwtAuthenticationConverter);
+        return new AuthenticationWebSocketInterceptor(new BearerTokenAuthenticationExtractor(),
+                new ProviderManager(provider));
+    }
+}
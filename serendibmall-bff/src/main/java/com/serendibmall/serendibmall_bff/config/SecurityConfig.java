@@ -35,7 +35,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authorize -> authorize
                 // GraphQL endpoint — fine-grained auth handled at resolver level
-                .requestMatchers("/graphql", "/graphiql/**").permitAll()
+                .requestMatchers("/graphql", "/graphql-ws", "/graphiql/**").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .anyRequest().authenticated()
             )
@@ -1,12 +1,12 @@
 package com.serendibmall.serendibmall_bff.controller;
 
 import com.serendibmall.inventory.v1.*;
+import com.serendibmall.product.v1.GetProductRequest;
+import com.serendibmall.product.v1.GetProductsRequest;
 import com.serendibmall.product.v1.ProductResponse;
 import com.serendibmall.product.v1.ProductServiceGrpc;
-import com.serendibmall.product.v1.SearchProductsRequest;
-import com.serendibmall.product.v1.SearchProductsResponse;
+import com.serendibmall.serendibmall_bff.cache.ProductCache;
 import io.grpc.ManagedChannel;
-import io.grpc.StatusRuntimeException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -15,89 +15,91 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import static com.serendibmall.serendibmall_bff.grpc.GrpcFutures.toCompletableFuture;
+
 @Controller
 @Slf4j
 public class InventoryGraphqlController {
 
-    private final InventoryServiceGrpc.InventoryServiceBlockingStub inventoryServiceStub;
-    private final ProductServiceGrpc.ProductServiceBlockingStub productServiceStub;
+    private final InventoryServiceGrpc.InventoryServiceFutureStub inventoryServiceStub;
+    private final ProductServiceGrpc.ProductServiceFutureStub productServiceStub;
+    private final ProductCache productCache;
 
     public InventoryGraphqlController(
             @Qualifier("inventoryServiceChannel") ManagedChannel inventoryServiceChannel,
-            @Qualifier("productServiceChannel") ManagedChannel productServiceChannel) {
-        this.inventoryServiceStub = InventoryServiceGrpc.newBlockingStub(inventoryServiceChannel);
-        this.productServiceStub = ProductServiceGrpc.newBlockingStub(productServiceChannel);
+            @Qualifier("productServiceChannel") ManagedChannel productServiceChannel,
+            ProductCache productCache) {
+        this.inventoryServiceStub = InventoryServiceGrpc.newFutureStub(inventoryServiceChannel);
+        this.productServiceStub = ProductServiceGrpc.newFutureStub(productServiceChannel);
+        this.productCache = productCache;
     }
 
     @QueryMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public InventoryPage inventory(@Argument Integer page, @Argument Integer size) {
+    public CompletableFuture<InventoryPage> inventory(@Argument Integer page, @Argument Integer size) {
         int pageNum = page != null ? page : 0;
         int pageSize = size != null ? size : 20;
 
-        ListInventoryResponse response = inventoryServiceStub.listInventory(
-                ListInventoryRequest.newBuilder()
-                        .setPage(pageNum)
-                        .setSize(pageSize)
-                        .build());
-
-        // Collect product IDs to fetch names in batch
-        List<String> productIds = response.getItemsList().stream()
-                .map(StockResponse::getProductId)
-                .collect(Collectors.toList());
-
-        // Fetch product names from product-query-service
-        Map<String, String> productNames = fetchProductNames(productIds);
-
-        List<InventoryItem> items = response.getItemsList().stream()
-                .map(stock -> new InventoryItem(
-                        stock.getProductId(),
-                        productNames.getOrDefault(stock.getProductId(), "Unknown Product"),
-                        stock.getQuantity(),
-                        stock.getIsAvailable()))
-                .collect(Collectors.toList());
-
-        return new InventoryPage(items, response.getTotalCount());
+        return toCompletableFuture(inventoryServiceStub.listInventory(
+                        ListInventoryRequest.newBuilder()
+                                .setPage(pageNum)
+                                .setSize(pageSize)
+                                .build()))
+                .thenCompose(response -> {
+                    // Collect product IDs to fetch names in batch
+                    List<String> productIds = response.getItemsList().stream()
+                            .map(StockResponse::getProductId)
+                            .collect(Collectors.toList());
+
+                    // Fetch product names from product-query-service
+                    return fetchProductNames(productIds).thenApply(productNames -> {
+                        List<InventoryItem> items = response.getItemsList().stream()
+                                .map(stock -> new InventoryItem(
+                                        stock.getProductId(),
+                                        productNames.getOrDefault(stock.getProductId(), "Unknown Product"),
+                                        stock.getQuantity(),
+                                        stock.getIsAvailable()))
+                                .collect(Collectors.toList());
+
+                        return new InventoryPage(items, response.getTotalCount());
+                    });
+                });
     }
 
     @MutationMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public InventoryItem setStock(@Argument String productId, @Argument Integer quantity) {
+    public CompletableFuture<InventoryItem> setStock(@Argument String productId, @Argument Integer quantity) {
         log.info("Setting stock for product {}: {}", productId, quantity);
 
-        StockResponse response = inventoryServiceStub.setStock(
+        CompletableFuture<StockResponse> stock = toCompletableFuture(inventoryServiceStub.setStock(
                 SetStockRequest.newBuilder()
                         .setProductId(productId)
                         .setQuantity(quantity)
-                        .build());
-
-        String productName = fetchProductName(productId);
+                        .build()));
 
-        return new InventoryItem(
-                response.getProductId(),
-                productName,
-                response.getQuantity(),
-                response.getIsAvailable());
+        return stock.thenCombine(fetchProductName(productId), InventoryGraphqlController::toInventoryItem);
     }
 
     @MutationMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public InventoryItem updateStock(@Argument String productId, @Argument Integer delta) {
+    public CompletableFuture<InventoryItem> updateStock(@Argument String productId, @Argument Integer delta) {
         log.info("Updating stock for product {} by delta: {}", productId, delta);
 
-        StockResponse response = inventoryServiceStub.updateStock(
+        CompletableFuture<StockResponse> stock = toCompletableFuture(inventoryServiceStub.updateStock(
                 UpdateStockRequest.newBuilder()
                         .setProductId(productId)
                         .setDelta(delta)
-                        .build());
+                        .build()));
 
-        String productName = fetchProductName(productId);
+        return stock.thenCombine(fetchProductName(productId), InventoryGraphqlController::toInventoryItem);
+    }
 
+    private static InventoryItem toInventoryItem(StockResponse response, String productName) {
         return new InventoryItem(
                 response.getProductId(),
                 productName,
@@ -105,38 +107,39 @@ public class InventoryGraphqlController {
                 response.getIsAvailable());
     }
 
-    private Map<String, String> fetchProductNames(List<String> productIds) {
-        try {
-            // Use search to get all products, then map by ID
-            SearchProductsResponse searchResponse = productServiceStub.searchProducts(
-                    SearchProductsRequest.newBuilder()
-                            .setQuery("")
-                            .setPage(0)
-                            .setSize(100)
-                            .build());
-
-            return searchResponse.getProductsList().stream()
-                    .collect(Collectors.toMap(
-                            ProductResponse::getId,
-                            ProductResponse::getName,
-                            (a, b) -> a));
-        } catch (StatusRuntimeException e) {
-            log.warn("Failed to fetch product names: {}", e.getMessage());
-            return Map.of();
+    private CompletableFuture<Map<String, String>> fetchProductNames(List<String> productIds) {
+        if (productIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
         }
+        // Cached names first; the rest in one targeted multi-get of O(page size)
+        return productCache.getAll(productIds, missingIds ->
+                        toCompletableFuture(productServiceStub.getProducts(
+                                        GetProductsRequest.newBuilder()
+                                                .addAllProductIds(missingIds)
+                                                .build()))
+                                .thenApply(response -> response.getProductsList().stream()
+                                        .collect(Collectors.toMap(ProductResponse::getId, product -> product, (a, b) -> a))))
+                .thenApply(products -> products.values().stream()
+                        .collect(Collectors.toMap(
+                                ProductResponse::getId,
+                                ProductResponse::getName,
+                                (a, b) -> a)))
+                .exceptionally(e -> {
+                    log.warn("Failed to fetch product names: {}", e.getMessage());
+                    return Map.of();
+                });
     }
 
-    private String fetchProductName(String productId) {
-        try {
-            var response = productServiceStub.getProduct(
-                    com.serendibmall.product.v1.GetProductRequest.newBuilder()
-                            .setProductId(productId)
-                            .build());
-            return response.getName();
-        } catch (StatusRuntimeException e) {
-            log.warn("Failed to fetch product name for {}: {}", productId, e.getMessage());
-            return "Unknown Product";
-        }
+    private CompletableFuture<String> fetchProductName(String productId) {
+        return productCache.get(productId, id -> toCompletableFuture(productServiceStub.getProduct(
+                        GetProductRequest.newBuilder()
+                                .setProductId(id)
+                                .build())))
+                .thenApply(ProductResponse::getName)
+                .exceptionally(e -> {
+                    log.warn("Failed to fetch product name for {}: {}", productId, e.getMessage());
+                    return "Unknown Product";
+                });
     }
 
     public record InventoryItem(String productId, String productName, int quantity, boolean isAvailable) {}
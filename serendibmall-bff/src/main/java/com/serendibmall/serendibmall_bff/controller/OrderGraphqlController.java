@@ -1,46 +1,112 @@
 package com.serendibmall.serendibmall_bff.controller;
 
 import com.serendibmall.order.v1.CreateOrderRequest;
-import com.serendibmall.order.v1.CreateOrderResponse;
+import com.serendibmall.order.v1.GetOrderRequest;
+import com.serendibmall.order.v1.OrderLine;
 import com.serendibmall.order.v1.OrderServiceGrpc;
+import com.serendibmall.serendibmall_bff.subscription.OrderStatusFeed;
+import com.serendibmall.serendibmall_bff.subscription.OrderStatusFeed.OrderStatusSubscription;
 import io.grpc.ManagedChannel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.serendibmall.serendibmall_bff.grpc.GrpcFutures.toCompletableFuture;
 
 @Controller
 @Slf4j
 public class OrderGraphqlController {
 
-    private final OrderServiceGrpc.OrderServiceBlockingStub orderServiceStub;
+    // Saga order of the statuses; anything else is final
+    private static final Map<String, Integer> STATUS_RANK = Map.of("PENDING", 0, "PAYMENT_PENDING", 1);
+    private static final int FINAL_RANK = 2;
+
+    private final OrderServiceGrpc.OrderServiceFutureStub orderServiceStub;
+    private final OrderStatusFeed orderStatusFeed;
 
-    public OrderGraphqlController(@Qualifier("orderServiceChannel") ManagedChannel channel) {
-        this.orderServiceStub = OrderServiceGrpc.newBlockingStub(channel);
+    public OrderGraphqlController(@Qualifier("orderServiceChannel") ManagedChannel channel,
+                                  OrderStatusFeed orderStatusFeed) {
+        this.orderServiceStub = OrderServiceGrpc.newFutureStub(channel);
+        this.orderStatusFeed = orderStatusFeed;
     }
 
     @MutationMapping
     @PreAuthorize("isAuthenticated()")
-    public Order createOrder(@Argument String productId, @Argument Integer quantity,
-                             @AuthenticationPrincipal Jwt jwt) {
+    public CompletableFuture<Order> createOrder(@Argument String productId, @Argument Integer quantity,
+                                                @Argument List<OrderLineInput> lines,
+                                                @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
         String username = jwt.getClaimAsString("preferred_username");
-        log.info("Creating order for user {} ({}): product={}, qty={}", username, userId, productId, quantity);
 
-        CreateOrderRequest request = CreateOrderRequest.newBuilder()
-                .setUserId(userId)
-                .setProductId(productId)
-                .setQuantity(quantity)
-                .build();
+        // order-service validates the lines and answers INVALID_ARGUMENT for bad ones
+        CreateOrderRequest.Builder request = CreateOrderRequest.newBuilder().setUserId(userId);
+        String firstProductId;
+        if (lines != null && !lines.isEmpty()) {
+            log.info("Creating order for user {} ({}): {} lines", username, userId, lines.size());
+            lines.forEach(line -> request.addLines(OrderLine.newBuilder()
+                    .setProductId(line.productId())
+                    .setQuantity(line.quantity())));
+            firstProductId = lines.get(0).productId();
+        } else {
+            log.info("Creating order for user {} ({}): product={}, qty={}", username, userId, productId, quantity);
+            if (productId != null) {
+                request.setProductId(productId);
+            }
+            if (quantity != null) {
+                request.setQuantity(quantity);
+            }
+            firstProductId = productId;
+        }
 
-        CreateOrderResponse response = orderServiceStub.createOrder(request);
+        return toCompletableFuture(orderServiceStub.createOrder(request.build()))
+                .thenApply(response -> new Order(response.getOrderId(), response.getStatus(), firstProductId));
+    }
 
-        return new Order(response.getOrderId(), response.getStatus(), productId);
+    /**
+     * The caller's order as it is now, then each status change until it is confirmed,
+     * rejected or cancelled. Changes come from this pod's shared order.events feed;
+     * the subscription starts collecting them before the current state is read, and
+     * statuses older than one already sent are dropped.
+     */
+    @SubscriptionMapping
+    @PreAuthorize("isAuthenticated()")
+    public Flux<Order> orderStatusChanged(@Argument String orderId, @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        return Flux.using(() -> orderStatusFeed.subscribe(orderId), subscription ->
+                Mono.fromFuture(() -> toCompletableFuture(orderServiceStub.getOrder(
+                                GetOrderRequest.newBuilder().setOrderId(orderId).build())))
+                        .flatMapMany(order -> {
+                            if (!order.getUserId().equals(userId)) {
+                                return Flux.error(new AccessDeniedException("Not your order: " + orderId));
+                            }
+                            AtomicInteger sentRank = new AtomicInteger(-1);
+                            return Flux.concat(Mono.just(order.getStatus()), subscription.updates())
+                                    .filter(status -> rank(status) > sentRank.get())
+                                    .doOnNext(status -> sentRank.set(rank(status)))
+                                    .takeUntil(status -> rank(status) == FINAL_RANK)
+                                    .map(status -> new Order(orderId, status, order.getProductId()));
+                        }), OrderStatusSubscription::close);
+    }
+
+    private static int rank(String status) {
+        return STATUS_RANK.getOrDefault(status, FINAL_RANK);
     }
 
     public record Order(String id, String status, String productId) {}
+
+    public record OrderLineInput(String productId, Integer quantity) {}
 }
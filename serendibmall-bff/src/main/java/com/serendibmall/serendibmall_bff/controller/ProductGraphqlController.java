@@ -1,121 +1,197 @@
 package com.serendibmall.serendibmall_bff.controller;
 
-import com.serendibmall.inventory.v1.GetStockRequest;
+import com.serendibmall.inventory.v1.GetBatchStockRequest;
 import com.serendibmall.inventory.v1.InventoryServiceGrpc;
 import com.serendibmall.inventory.v1.SetStockRequest;
 import com.serendibmall.inventory.v1.StockResponse;
 import com.serendibmall.product.v1.CreateProductRequest;
-import com.serendibmall.product.v1.CreateProductResponse;
 import com.serendibmall.product.v1.GetProductRequest;
-import com.serendibmall.product.v1.ProductResponse;
 import com.serendibmall.product.v1.ProductServiceGrpc;
 import com.serendibmall.product.v1.SearchProductsRequest;
-import com.serendibmall.product.v1.SearchProductsResponse;
+import com.serendibmall.product.v1.SuggestProductsRequest;
+import com.serendibmall.serendibmall_bff.cache.ProductCache;
+import com.serendibmall.serendibmall_bff.cache.ProductSuggestCache;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.grpc.ManagedChannel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
-import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import static com.serendibmall.serendibmall_bff.grpc.GrpcFutures.toCompletableFuture;
+
 @Controller
 @Slf4j
 public class ProductGraphqlController {
 
-    private final ProductServiceGrpc.ProductServiceBlockingStub productServiceStub;
-    private final ProductServiceGrpc.ProductServiceBlockingStub productCommandServiceStub;
-    private final InventoryServiceGrpc.InventoryServiceBlockingStub inventoryServiceStub;
+    private final ProductServiceGrpc.ProductServiceFutureStub productServiceStub;
+    private final ProductServiceGrpc.ProductServiceFutureStub productCommandServiceStub;
+    private final InventoryServiceGrpc.InventoryServiceFutureStub inventoryServiceStub;
+    private final ProductCache productCache;
+    private final ProductSuggestCache productSuggestCache;
 
     public ProductGraphqlController(
             @Qualifier("productServiceChannel") ManagedChannel productServiceChannel,
             @Qualifier("productCommandServiceChannel") ManagedChannel productCommandServiceChannel,
-            @Qualifier("inventoryServiceChannel") ManagedChannel inventoryServiceChannel) {
-        this.productServiceStub = ProductServiceGrpc.newBlockingStub(productServiceChannel);
-        this.productCommandServiceStub = ProductServiceGrpc.newBlockingStub(productCommandServiceChannel);
-        this.inventoryServiceStub = InventoryServiceGrpc.newBlockingStub(inventoryServiceChannel);
+            @Qualifier("inventoryServiceChannel") ManagedChannel inventoryServiceChannel,
+            ProductCache productCache,
+            ProductSuggestCache productSuggestCache) {
+        this.productServiceStub = ProductServiceGrpc.newFutureStub(productServiceChannel);
+        this.productCommandServiceStub = ProductServiceGrpc.newFutureStub(productCommandServiceChannel);
+        this.inventoryServiceStub = InventoryServiceGrpc.newFutureStub(inventoryServiceChannel);
+        this.productCache = productCache;
+        this.productSuggestCache = productSuggestCache;
     }
 
     @QueryMapping
     @CircuitBreaker(name = "product-service", fallbackMethod = "productFallback")
-    public ProductDetails product(@Argument String id) {
-        GetProductRequest request = GetProductRequest.newBuilder()
-                .setProductId(id)
-                .build();
-        
-        ProductResponse response = productServiceStub.getProduct(request);
-        
-        return new ProductDetails(
-                response.getId(),
-                response.getName(),
-                response.getDescription(),
-                response.getPrice(),
-                response.getCurrency(),
-                response.getCategory()
-        );
+    public CompletableFuture<ProductDetails> product(@Argument String id) {
+        return productCache.get(id, productId -> toCompletableFuture(productServiceStub.getProduct(
+                        GetProductRequest.newBuilder()
+                                .setProductId(productId)
+                                .build())))
+                .thenApply(response -> new ProductDetails(
+                        response.getId(),
+                        response.getName(),
+                        response.getDescription(),
+                        response.getPrice(),
+                        response.getCurrency(),
+                        response.getCategory()
+                ));
     }
 
-    private ProductDetails productFallback(String id, Exception ex) {
-        return new ProductDetails(id, "Service Unavailable", "Please try again later", 0.0, "USD", "");
+    private CompletableFuture<ProductDetails> productFallback(String id, Throwable ex) {
+        return CompletableFuture.completedFuture(
+                new ProductDetails(id, "Service Unavailable", "Please try again later", 0.0, "USD", ""));
     }
 
     @QueryMapping
     @CircuitBreaker(name = "product-service", fallbackMethod = "productsFallback")
-    public ProductSearchResult products(@Argument String query, @Argument Integer page, @Argument Integer size) {
+    public CompletableFuture<ProductSearchResult> products(@Argument String query, @Argument Integer page, @Argument Integer size,
+                                                        @Argument String after, @Argument ProductFilter filter) {
         SearchProductsRequest.Builder requestBuilder = SearchProductsRequest.newBuilder();
         
         if (query != null) requestBuilder.setQuery(query);
         requestBuilder.setPage(page != null ? page : 0);
         requestBuilder.setSize(size != null ? size : 20);
+        if (after != null) requestBuilder.setPageToken(after);
+        if (filter != null) {
+            if (filter.categories() != null) requestBuilder.addAllCategories(filter.categories());
+            if (filter.currencies() != null) requestBuilder.addAllCurrencies(filter.currencies());
+            if (filter.minPrice() != null) requestBuilder.setMinPrice(filter.minPrice());
+            if (filter.maxPrice() != null) requestBuilder.setMaxPrice(filter.maxPrice());
+        }
 
-        SearchProductsResponse response = productServiceStub.searchProducts(requestBuilder.build());
+        return toCompletableFuture(productServiceStub.searchProducts(requestBuilder.build()))
+                .thenApply(response -> {
+                    List<ProductDetails> productList = response.getProductsList().stream()
+                            .map(p -> new ProductDetails(
+                                    p.getId(),
+                                    p.getName(),
+                                    p.getDescription(),
+                                    p.getPrice(),
+                                    p.getCurrency(),
+                                    p.getCategory()))
+                            .collect(Collectors.toList());
+
+                    ProductFacets facets = new ProductFacets(
+                            response.getCategoryFacetsList().stream()
+                                    .map(f -> new FacetBucket(f.getValue(), f.getCount()))
+                                    .collect(Collectors.toList()),
+                            response.getCurrencyFacetsList().stream()
+                                    .map(f -> new FacetBucket(f.getValue(), f.getCount()))
+                                    .collect(Collectors.toList()),
+                            response.getPriceFacetsList().stream()
+                                    .map(f -> new PriceBucket(f.getFrom(), f.getTo(), f.getCount()))
+                                    .collect(Collectors.toList()));
+
+                    return new ProductSearchResult(productList, response.getTotalCount(), response.getTotalPages(),
+                            response.getNextPageToken().isEmpty() ? null : response.getNextPageToken(), facets);
+                });
+    }
 
-        List<ProductDetails> productList = response.getProductsList().stream()
-                .map(p -> new ProductDetails(
-                        p.getId(),
-                        p.getName(),
-                        p.getDescription(),
-                        p.getPrice(),
-                        p.getCurrency(),
-                        p.getCategory()))
-                .collect(Collectors.toList());
+    private CompletableFuture<ProductSearchResult> productsFallback(String query, Integer page, Integer size, String after,
+                                                                  ProductFilter filter, Throwable ex) {
+        return CompletableFuture.completedFuture(new ProductSearchResult(Collections.emptyList(), 0, 0, null,
+                new ProductFacets(Collections.emptyList(), Collections.emptyList(), Collections.emptyList())));
+    }
 
-        return new ProductSearchResult(productList, response.getTotalCount(), response.getTotalPages());
+    @QueryMapping
+    @CircuitBreaker(name = "product-service", fallbackMethod = "suggestProductsFallback")
+    public CompletableFuture<List<ProductSuggestion>> suggestProducts(@Argument String prefix, @Argument Integer limit) {
+        if (prefix.isBlank()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        int resolvedLimit = limit != null && limit > 0 ? Math.min(limit, 20) : 10;
+
+        return productSuggestCache.get(prefix, resolvedLimit, () -> toCompletableFuture(productServiceStub.suggestProducts(
+                        SuggestProductsRequest.newBuilder()
+                                .setPrefix(prefix)
+                                .setLimit(resolvedLimit)
+                                .build())))
+                .thenApply(response -> response.getSuggestionsList().stream()
+                        .map(s -> new ProductSuggestion(s.getId(), s.getName()))
+                        .collect(Collectors.toList()));
     }
 
-    private ProductSearchResult productsFallback(String query, Integer page, Integer size, Exception ex) {
-        return new ProductSearchResult(Collections.emptyList(), 0, 0);
+    private CompletableFuture<List<ProductSuggestion>> suggestProductsFallback(String prefix, Integer limit, Throwable ex) {
+        return CompletableFuture.completedFuture(Collections.emptyList());
     }
 
-    @SchemaMapping(typeName = "ProductDetails")
+    /**
+     * Resolves stockLevel for every ProductDetails in the request with a single
+     * GetBatchStock call. The circuit breaker and its UNKNOWN fallback cover the batch.
+     */
+    @BatchMapping(typeName = "ProductDetails")
     @CircuitBreaker(name = "inventory-service", fallbackMethod = "stockLevelFallback")
-    public String stockLevel(ProductDetails product) {
-        GetStockRequest request = GetStockRequest.newBuilder()
-                .setProductId(product.id())
+    public CompletableFuture<Map<ProductDetails, String>> stockLevel(List<ProductDetails> products) {
+        GetBatchStockRequest request = GetBatchStockRequest.newBuilder()
+                .addAllProductIds(products.stream().map(ProductDetails::id).distinct().toList())
                 .build();
-        
-        StockResponse response = inventoryServiceStub.getStock(request);
-        
-        return response.getIsAvailable() ? "IN_STOCK" : "OUT_OF_STOCK";
+
+        return toCompletableFuture(inventoryServiceStub.getBatchStock(request))
+                .thenApply(response -> {
+                    Map<String, Boolean> availability = response.getStocksList().stream()
+                            .collect(Collectors.toMap(StockResponse::getProductId, StockResponse::getIsAvailable, (a, b) -> a));
+
+                    Map<ProductDetails, String> stockLevels = new LinkedHashMap<>();
+                    for (ProductDetails product : products) {
+                        stockLevels.put(product, availability.getOrDefault(product.id(), false) ? "IN_STOCK" : "OUT_OF_STOCK");
+                    }
+                    return stockLevels;
+                });
     }
 
-    private String stockLevelFallback(ProductDetails product, Exception ex) {
-        return "UNKNOWN";
+    private CompletableFuture<Map<ProductDetails, String>> stockLevelFallback(List<ProductDetails> products, Throwable ex) {
+        Map<ProductDetails, String> stockLevels = new LinkedHashMap<>();
+        for (ProductDetails product : products) {
+            stockLevels.put(product, "UNKNOWN");
+        }
+        return CompletableFuture.completedFuture(stockLevels);
     }
 
     @MutationMapping
     @PreAuthorize("hasRole('ADMIN')")
     @CircuitBreaker(name = "product-service", fallbackMethod = "createProductFallback")
-    public ProductDetails createProduct(@Argument Map<String, Object> input) {
+    public CompletableFuture<ProductDetails> createProduct(@Argument Map<String, Object> input) {
+        // The id is assigned here so a retried create is rejected as ALREADY_EXISTS
+        // rather than creating the product twice
+        String productId = UUID.randomUUID().toString();
+
         CreateProductRequest request = CreateProductRequest.newBuilder()
+                .setProductId(productId)
                 .setName((String) input.get("name"))
                 .setDescription(input.getOrDefault("description", "").toString())
                 .setPrice(Double.parseDouble(input.get("price").toString()))
@@ -123,42 +199,51 @@ public class ProductGraphqlController {
                 .setCategory(input.getOrDefault("category", "").toString())
                 .build();
 
-        CreateProductResponse response = productCommandServiceStub.createProduct(request);
-
-        String productId = response.getProductId();
-
-        // Set initial stock if provided
         Object initialStockObj = input.get("initialStock");
-        if (initialStockObj != null) {
-            int initialStock = Integer.parseInt(initialStockObj.toString());
-            if (initialStock > 0) {
-                try {
-                    inventoryServiceStub.setStock(
-                            SetStockRequest.newBuilder()
-                                    .setProductId(productId)
-                                    .setQuantity(initialStock)
-                                    .build());
-                    log.info("Set initial stock for product {}: {}", productId, initialStock);
-                } catch (Exception e) {
-                    log.warn("Failed to set initial stock for product {}: {}", productId, e.getMessage());
-                }
-            }
-        }
+        int initialStock = initialStockObj == null ? 0 : Integer.parseInt(initialStockObj.toString());
+
+        // Stock is only set once the product exists, so a failed create leaves no inventory row behind
+        return toCompletableFuture(productCommandServiceStub.createProduct(request))
+                .thenCompose(response -> initialStock > 0
+                        ? setInitialStock(response.getProductId(), initialStock).thenApply(ignored -> response)
+                        : CompletableFuture.completedFuture(response))
+                .thenApply(response -> new ProductDetails(
+                        response.getProductId(),
+                        (String) input.get("name"),
+                        input.getOrDefault("description", "").toString(),
+                        Double.parseDouble(input.get("price").toString()),
+                        input.getOrDefault("currency", "USD").toString(),
+                        input.getOrDefault("category", "").toString()
+                ));
+    }
 
-        return new ProductDetails(
-                productId,
-                (String) input.get("name"),
-                input.getOrDefault("description", "").toString(),
-                Double.parseDouble(input.get("price").toString()),
-                input.getOrDefault("currency", "USD").toString(),
-                input.getOrDefault("category", "").toString()
-        );
+    private CompletableFuture<Void> setInitialStock(String productId, int initialStock) {
+        return toCompletableFuture(inventoryServiceStub.setStock(
+                        SetStockRequest.newBuilder()
+                                .setProductId(productId)
+                                .setQuantity(initialStock)
+                                .build()))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        log.warn("Failed to set initial stock for product {}: {}", productId, e.getMessage());
+                    } else {
+                        log.info("Set initial stock for product {}: {}", productId, initialStock);
+                    }
+                    return null;
+                });
     }
 
-    private ProductDetails createProductFallback(Map<String, Object> input, Exception ex) {
-        throw new RuntimeException("Product creation failed: " + ex.getMessage(), ex);
+    private CompletableFuture<ProductDetails> createProductFallback(Map<String, Object> input, Throwable ex) {
+        return CompletableFuture.failedFuture(
+                new RuntimeException("Product creation failed: " + ex.getMessage(), ex));
     }
 
     public record ProductDetails(String id, String name, String description, double price, String currency, String category) {}
-    public record ProductSearchResult(List<ProductDetails> products, int totalCount, int totalPages) {}
+    public record ProductSearchResult(List<ProductDetails> products, int totalCount, int totalPages, String nextPageToken,
+                                      ProductFacets facets) {}
+    public record ProductFilter(List<String> categories, List<String> currencies, Double minPrice, Double maxPrice) {}
+    public record ProductFacets(List<FacetBucket> categories, List<FacetBucket> currencies, List<PriceBucket> prices) {}
+    public record FacetBucket(String value, long count) {}
+    public record PriceBucket(double from, double to, long count) {}
+    public record ProductSuggestion(String id, String name) {}
 }
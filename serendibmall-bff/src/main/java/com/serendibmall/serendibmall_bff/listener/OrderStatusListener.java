@@ -0,0 +1,36 @@
+package com.serendibmall.serendibmall_bff.listener;
+
+import com.serendibmall.saga_events.OrderEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
+import com.serendibmall.serendibmall_bff.subscription.OrderStatusFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * The one upstream feed of order status changes per BFF pod, handed to
+ * {@link OrderStatusFeed}. Like the product cache listener, every pod joins its own
+ * consumer group and starts from the latest offset.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderStatusListener {
+
+    private final OrderStatusFeed orderStatusFeed;
+
+    @KafkaListener(topics = "order.events",
+            groupId = "serendibmall-bff-order-status-${HOSTNAME:local}",
+            properties = "auto.offset.reset=latest")
+    public void handleOrderEvent(String message) {
+        try {
+            OrderEvent event = SagaEventCodec.decodeOrderEvent(message);
+            if (event.orderId() != null && event.status() != null) {
+                orderStatusFeed.publish(event.orderId(), event.status());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read order event: {}", e.getMessage());
+        }
+    }
+}
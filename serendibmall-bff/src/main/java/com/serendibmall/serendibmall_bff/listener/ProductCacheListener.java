@@ -0,0 +1,54 @@
+package com.serendibmall.serendibmall_bff.listener;
+
+import com.serendibmall.product.v1.ProductResponse;
+import com.serendibmall.saga_events.ProductEvent;
+import com.serendibmall.saga_events.SagaEventCodec;
+import com.serendibmall.serendibmall_bff.cache.ProductCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link ProductCache} in step with product.events. Every BFF pod joins its own
+ * consumer group so each one sees every event, starting from the latest offset.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductCacheListener {
+
+    private final ProductCache productCache;
+
+    @KafkaListener(topics = "product.events",
+            groupId = "serendibmall-bff-product-cache-${HOSTNAME:local}",
+            properties = "auto.offset.reset=latest")
+    public void handleProductEvent(String message, @Header(value = "event_type", required = false) String eventTypeHeader) {
+        try {
+            ProductEvent event = SagaEventCodec.decodeProductEvent(message);
+
+            String productId = event.productId();
+            if (productId == null) {
+                return;
+            }
+
+            String eventType = event.eventType() != null ? event.eventType() : eventTypeHeader;
+
+            if ("ProductCreated".equals(eventType) && event.name() != null) {
+                productCache.refreshIfPresent(ProductResponse.newBuilder()
+                        .setId(productId)
+                        .setName(event.name())
+                        .setDescription(event.description() != null ? event.description() : "")
+                        .setPrice(event.price() != null ? event.price() : 0.0)
+                        .setCurrency(event.currency() != null ? event.currency() : "USD")
+                        .setCategory(event.category() != null ? event.category() : "")
+                        .build());
+            } else {
+                productCache.invalidate(productId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to apply product event to cache: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.serendibmall.serendibmall_bff.subscription;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans this pod's single order.events feed out to its orderStatusChanged
+ * subscriptions. Each subscription gets its own queue of at most {@code buffer-size}
+ * statuses; when a slow client lets it fill up, further statuses for that client are
+ * dropped and counted rather than held in memory.
+ * <p>
+ * Metrics: {@code bff.order-status.subscribers} and {@code bff.order-status.dropped}.
+ */
+@Component
+public class OrderStatusFeed {
+
+    private final Map<String, Set<Sinks.Many<String>>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter droppedCounter;
+    private final int bufferSize;
+
+    public OrderStatusFeed(MeterRegistry meterRegistry,
+                           @Value("${bff.order-status.buffer-size:16}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.droppedCounter = meterRegistry.counter("bff.order-status.dropped");
+        meterRegistry.gauge("bff.order-status.subscribers", subscriberCount);
+    }
+
+    /**
+     * Starts collecting the order's status changes right away; they are buffered until
+     * {@link OrderStatusSubscription#updates()} is subscribed to. The subscription must
+     * be closed when no longer needed.
+     */
+    public OrderStatusSubscription subscribe(String orderId) {
+        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>get(bufferSize).get());
+        subscribers.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(sink);
+        subscriberCount.incrementAndGet();
+        return new OrderStatusSubscription(sink.asFlux(), () -> subscribers.computeIfPresent(orderId, (id, sinks) -> {
+            if (sinks.remove(sink)) {
+                subscriberCount.decrementAndGet();
+            }
+            return sinks.isEmpty() ? null : sinks;
+        }));
+    }
+
+    /**
+     * Called from the order.events listener thread only, so emissions never race.
+     */
+    public void publish(String orderId, String status) {
+        Set<Sinks.Many<String>> sinks = subscribers.get(orderId);
+        if (sinks == null) {
+            return;
+        }
+        for (Sinks.Many<String> sink : sinks) {
+            Sinks.EmitResult result = sink.tryEmitNext(status);
+            // A full queue nobody has subscribed to yet reports zero subscribers instead
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW || result == Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    public record OrderStatusSubscription(Flux<String> updates, Runnable closer) implements AutoCloseable {
+        @Override
+        public void close() {
+            closer.run();
+        }
+    }
+}
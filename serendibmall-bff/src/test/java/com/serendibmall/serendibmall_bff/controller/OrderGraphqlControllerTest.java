@@ -0,0 +1,138 @@
+package com.serendibmall.serendibmall_bff.controller;
+
+import com.serendibmall.order.v1.CreateOrderRequest;
+import com.serendibmall.order.v1.CreateOrderResponse;
+import com.serendibmall.order.v1.GetOrderRequest;
+import com.serendibmall.order.v1.OrderLine;
+import com.serendibmall.order.v1.OrderResponse;
+import com.serendibmall.order.v1.OrderServiceGrpc;
+import com.serendibmall.serendibmall_bff.controller.OrderGraphqlController.Order;
+import com.serendibmall.serendibmall_bff.controller.OrderGraphqlController.OrderLineInput;
+import com.serendibmall.serendibmall_bff.subscription.OrderStatusFeed;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Order queries against a stand-in order-service that knows one order, owned by
+ * {@code u-1}, with status changes pushed straight into the feed.
+ */
+class OrderGraphqlControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderStatusFeed orderStatusFeed = new OrderStatusFeed(meterRegistry, 16);
+
+    private final OneOrder orderService = new OneOrder();
+
+    private Server orderServer;
+    private ManagedChannel channel;
+    private OrderGraphqlController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        orderServer = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .addService(orderService)
+                .build()
+                .start();
+        channel = ManagedChannelBuilder.forAddress("localhost", orderServer.getPort()).usePlaintext().build();
+        controller = new OrderGraphqlController(channel, orderStatusFeed);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+        orderServer.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void sendsNewerStatusesUntilAFinalOne() throws Exception {
+        CompletableFuture<List<Order>> updates = controller.orderStatusChanged("o-1", jwt("u-1"))
+                .collectList()
+                .toFuture();
+
+        orderStatusFeed.publish("o-1", "PAYMENT_PENDING");
+        // A repeat and an older status, as a redelivered event would bring
+        orderStatusFeed.publish("o-1", "PAYMENT_PENDING");
+        orderStatusFeed.publish("o-1", "PENDING");
+        orderStatusFeed.publish("o-1", "CONFIRMED");
+        orderStatusFeed.publish("o-1", "CANCELLED");
+
+        assertThat(updates.get(10, TimeUnit.SECONDS))
+                .extracting(Order::status)
+                .containsExactly("PENDING", "PAYMENT_PENDING", "CONFIRMED");
+        assertThat(meterRegistry.get("bff.order-status.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void refusesSomeoneElsesOrder() {
+        CompletableFuture<List<Order>> updates = controller.orderStatusChanged("o-1", jwt("u-2"))
+                .collectList()
+                .toFuture();
+
+        assertThatThrownBy(() -> updates.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AccessDeniedException.class);
+        assertThat(meterRegistry.get("bff.order-status.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void createsOneOrderForAllLines() throws Exception {
+        Order order = controller.createOrder(null, null,
+                List.of(new OrderLineInput("p-1", 2), new OrderLineInput("p-2", 1)), jwt("u-1"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertThat(order.productId()).isEqualTo("p-1");
+        assertThat(orderService.created.getUserId()).isEqualTo("u-1");
+        assertThat(orderService.created.getLinesList()).containsExactly(
+                OrderLine.newBuilder().setProductId("p-1").setQuantity(2).build(),
+                OrderLine.newBuilder().setProductId("p-2").setQuantity(1).build());
+    }
+
+    private static Jwt jwt(String subject) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(subject)
+                .build();
+    }
+
+    static class OneOrder extends OrderServiceGrpc.OrderServiceImplBase {
+
+        volatile CreateOrderRequest created;
+
+        @Override
+        public void createOrder(CreateOrderRequest request, StreamObserver<CreateOrderResponse> responseObserver) {
+            created = request;
+            responseObserver.onNext(CreateOrderResponse.newBuilder().setOrderId("o-2").setStatus("PENDING").build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getOrder(GetOrderRequest request, StreamObserver<OrderResponse> responseObserver) {
+            responseObserver.onNext(OrderResponse.newBuilder()
+                    .setOrderId(request.getOrderId())
+                    .setUserId("u-1")
+                    .setProductId("p-1")
+                    .setQuantity(1)
+                    .setStatus("PENDING")
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+}
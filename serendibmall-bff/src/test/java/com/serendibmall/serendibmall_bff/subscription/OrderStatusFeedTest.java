@@ -0,0 +1,44 @@
+package com.serendibmall.serendibmall_bff.subscription;
+
+import com.serendibmall.serendibmall_bff.subscription.OrderStatusFeed.OrderStatusSubscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderStatusFeed feed = new OrderStatusFeed(meterRegistry, 16);
+
+    @Test
+    void slowSubscriberKeepsOnlyWhatFitsInItsBuffer() {
+        try (OrderStatusSubscription slow = feed.subscribe("o-1");
+             OrderStatusSubscription other = feed.subscribe("o-2")) {
+            IntStream.range(0, 20).forEach(i -> feed.publish("o-1", "S" + i));
+            feed.publish("o-2", "PENDING");
+
+            List<String> received = slow.updates().take(Duration.ofMillis(200)).collectList().block();
+
+            assertThat(received).hasSize(16).startsWith("S0").endsWith("S15");
+            assertThat(meterRegistry.counter("bff.order-status.dropped").count()).isEqualTo(4);
+            assertThat(other.updates().take(Duration.ofMillis(200)).collectList().block()).containsExactly("PENDING");
+        }
+    }
+
+    @Test
+    void closingRemovesTheSubscriber() {
+        OrderStatusSubscription subscription = feed.subscribe("o-1");
+        assertThat(meterRegistry.get("bff.order-status.subscribers").gauge().value()).isEqualTo(1);
+
+        subscription.close();
+        feed.publish("o-1", "CONFIRMED");
+
+        assertThat(meterRegistry.get("bff.order-status.subscribers").gauge().value()).isZero();
+        assertThat(meterRegistry.counter("bff.order-status.dropped").count()).isZero();
+    }
+}
@@ -15,8 +15,8 @@ export const GET_PRODUCT = gql`
 `
 
 export const SEARCH_PRODUCTS = gql`
-  query SearchProducts($query: String, $page: Int, $size: Int) {
-    products(query: $query, page: $page, size: $size) {
+  query SearchProducts($query: String, $page: Int, $size: Int, $filter: ProductFilter) {
+    products(query: $query, page: $page, size: $size, filter: $filter) {
       products {
         id
         name
@@ -27,6 +27,20 @@ export const SEARCH_PRODUCTS = gql`
       }
       totalCount
       totalPages
+      facets {
+        categories { value count }
+        currencies { value count }
+        prices { from to count }
+      }
+    }
+  }
+`
+
+export const SUGGEST_PRODUCTS = gql`
+  query SuggestProducts($prefix: String!, $limit: Int) {
+    suggestProducts(prefix: $prefix, limit: $limit) {
+      id
+      name
     }
   }
 `
@@ -0,0 +1,39 @@
+plugins {
+	`java-library`
+}
+
+group = "com.serendibmall"
+version = "0.0.1-SNAPSHOT"
+description = "Virtual-thread execution mode shared by the SerendibMall services"
+
+java {
+	toolchain {
+		languageVersion = JavaLanguageVersion.of(21)
+	}
+}
+
+repositories {
+	mavenCentral()
+}
+
+// Services compile src/jdbc when they use Hikari and src/grpc when they run a gRPC server
+sourceSets {
+	main {
+		java {
+			setSrcDirs(listOf("src/jdbc/java", "src/grpc/java"))
+		}
+	}
+}
+
+// Keep in line with the Spring Boot and Spring gRPC versions of the services
+val springBootVersion = "3.5.8"
+val springGrpcVersion = "0.12.0"
+
+dependencies {
+	api(platform("org.springframework.boot:spring-boot-dependencies:$springBootVersion"))
+	api(platform("org.springframework.grpc:spring-grpc-dependencies:$springGrpcVersion"))
+	api("org.springframework.boot:spring-boot-autoconfigure")
+	api("com.zaxxer:HikariCP")
+	api("org.springframework.grpc:spring-grpc-spring-boot-autoconfigure")
+	api("org.slf4j:slf4j-api")
+}
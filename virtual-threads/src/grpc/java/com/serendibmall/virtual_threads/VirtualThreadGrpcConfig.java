@@ -0,0 +1,28 @@
+package com.serendibmall.virtual_threads;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.grpc.autoconfigure.server.GrpcServerExecutorProvider;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * gRPC handlers on virtual threads, switched on with {@code spring.threads.virtual.enabled}.
+ * <p>
+ * Boot already moves Tomcat and the Kafka listener containers onto virtual threads but
+ * leaves the gRPC server on its cached platform-thread pool, which grows by one thread
+ * per handler blocked on I/O.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadGrpcConfig {
+
+    @Bean
+    public GrpcServerExecutorProvider grpcServerExecutorProvider() {
+        Executor executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-vt-", 0).factory());
+        return () -> executor;
+    }
+}
@@ -0,0 +1,47 @@
+package com.serendibmall.virtual_threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Hikari sizing for the virtual-thread execution mode, switched on with
+ * {@code spring.threads.virtual.enabled}.
+ * <p>
+ * Once handler and listener threads stop being scarce, the pool is the only bound on
+ * concurrent database work, so it is fixed at
+ * {@code virtual-threads.hikari.maximum-pool-size} connections and callers give up
+ * after {@code virtual-threads.hikari.connection-timeout} ms instead of queueing
+ * without end.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadJdbcConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadJdbcConfig.class);
+
+    @Bean
+    public static BeanPostProcessor virtualThreadHikariSizing(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The pool starts lazily, so it can still be resized after property binding
+                if (bean instanceof HikariDataSource dataSource) {
+                    int poolSize = environment.getProperty("virtual-threads.hikari.maximum-pool-size", Integer.class, 20);
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                    dataSource.setConnectionTimeout(environment.getProperty(
+                            "virtual-threads.hikari.connection-timeout", Long.class, 5000L));
+                    log.info("Virtual threads enabled: Hikari pool fixed at {} connections", poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+}